@@ -1,56 +1,332 @@
 package org.example;
 
 import org.example.api.ApiDataRetriever;
-import org.example.db.RepoMetadata;
+import org.example.api.HttpTransport;
+import org.example.api.RateLimitTracker;
+import org.example.api.TransportConfig;
+import org.example.db.CompletedJobCache;
+import org.example.db.EventJournal;
+import org.example.db.HistoryQuery;
+import org.example.db.HistoryStore;
 import org.example.db.Repository;
+import org.example.events.ConsoleSink;
+import org.example.events.EventDispatcher;
+import org.example.events.EventDispatcher.OverflowPolicy;
+import org.example.events.ChangeEvent;
+import org.example.events.EventSink;
+import org.example.events.JsonLinesSink;
+import org.example.events.RunInfo;
+import org.example.logic.LoggerConfig;
+import org.example.logic.MonitorEngine;
+import org.example.logic.MonitorEngine.RepositoryRef;
 import org.example.logic.WorkflowLogger;
+import org.example.model.Conclusion;
+import org.example.model.Status;
+import org.example.webhook.WebhookServer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
 
 public class App {
+    private static final String WEBHOOK_SECRET_ENV = "GITHUB_WEBHOOK_SECRET";
+    private static final String REPLAY_USAGE = "Usage: replay [<url>] [--from <sequence>] [--output <console,jsonl,history>]";
+    private static final String QUERY_USAGE = "Usage: query <url> [--workflow <name>] [--branch <branch>]"
+            + " [--conclusion <conclusion>] [--days <days, default 7>] [--limit <runs, default 100>]";
+
     public static void main(String[] args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.isEmpty() && arguments.get(0).equals("query")) {
+            runQuery(arguments.subList(1, arguments.size()));
+            return;
+        }
+        if (!arguments.isEmpty() && arguments.get(0).equals("replay")) {
+            runReplay(arguments.subList(1, arguments.size()));
+            return;
+        }
+        final Integer webhookPort;
+        final int failureLogLines;
+        final OverflowPolicy outputOverflow;
+        final List<String> outputs;
+        final TransportConfig transport;
+        try {
+            String port = extractOption(arguments, "--webhook");
+            webhookPort = port == null ? null : Integer.parseInt(port);
+            String lines = extractOption(arguments, "--failure-logs");
+            failureLogLines = lines == null ? 0 : Integer.parseInt(lines);
+            String overflow = extractOption(arguments, "--output-overflow");
+            outputOverflow = overflow == null ? OverflowPolicy.BLOCK : OverflowPolicy.valueOf(overflow.toUpperCase());
+            String output = extractOption(arguments, "--output");
+            outputs = output == null ? List.of("console", "history") : Arrays.asList(output.toLowerCase().split(","));
+            if (outputs.isEmpty() || !List.of("console", "jsonl", "history").containsAll(outputs)) {
+                throw new IllegalArgumentException("unknown output in " + output);
+            }
+            transport = parseTransportConfig(arguments);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid option value: " + e.getMessage());
+            return;
+        }
+        args = arguments.toArray(String[]::new);
+
         if (args.length < 2) {
             System.err.println("Usage: <url> <token>");
+            System.err.println("       --repos <file> <token>   watch every owner/repo listed in the file");
+            System.err.println("       --connected <token>      watch every repository connected before");
+            System.err.println("       query <url> [filters]    list stored runs, e.g. failures on a branch; run alone for its filters");
+            System.err.println("       replay [<url>] [--from <sequence>] [--output <console,jsonl,history>]");
+            System.err.println("                                replay journaled changes, e.g. to print them again or rebuild history");
+            System.err.println("Options:");
+            System.err.println("       --webhook <port>         receive webhook deliveries (secret in " + WEBHOOK_SECRET_ENV
+                    + ") and only poll to reconcile");
+            System.err.println("       --failure-logs <lines>   print the last lines of the failing step under each failed job");
+            System.err.println("       --output <console,jsonl,history>  where changes go (default console,history); jsonl writes"
+                    + " rolling files under " + JsonLinesSink.DEFAULT_DIRECTORY + ", history keeps them queryable");
+            System.err.println("       --output-overflow <block|drop>  when output can't keep up, slow polling down (default) or skip changes");
+            System.err.println("       --connect-timeout <seconds>  deadline for connecting to the API (default 10)");
+            System.err.println("       --request-timeout <seconds>  deadline for the response headers of one request (default 30)");
+            System.err.println("       --hedge <millis>         race a second request against GETs slower than the recent p95 latency,"
+                    + " waiting at least this long; both count against the rate limit");
             return;
         }
+        LoggerConfig config = (webhookPort == null ? LoggerConfig.defaults() : LoggerConfig.defaults().forWebhooks())
+                .withFailureLogLines(failureLogLines)
+                .withOutputOverflow(outputOverflow)
+                .withTransport(transport);
 
-        String inputUrl = args[0];
-        String token = args[1];
-
-        // Remove protocol and trailing slashes for consistent splitting
-        String path = inputUrl.replace("https://", "")
-                .replace("http://", "")
-                .replace("github.com/", "");
-
-        if (path.endsWith("/")) {
-            path = path.substring(0, path.length() - 1);
+        if (args[0].equals("--repos") || args[0].equals("--connected")) {
+            runMultiRepository(args, config, webhookPort, outputs);
+            return;
         }
 
-        String[] parts = path.split("/");
+        String inputUrl = args[0];
+        String token = args[1];
 
-        if (parts.length < 2) {
-            System.err.println("Invalid GitHub URL. Expected format: owner/repo or github.com/owner/repo");
+        final RepositoryRef ref;
+        try {
+            ref = RepositoryRef.parse(inputUrl);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
             return;
         }
 
-        final String owner = parts[0];
-        final String repo = parts[1];
-
-        System.out.println("Starting workflow logger for " + owner + "/" + repo);
+        System.out.println("Starting workflow logger for " + ref);
         Repository repository = new Repository();
-        WorkflowLogger logger = new WorkflowLogger(new ApiDataRetriever(repo, owner, token), repository, System.out);
+        ApiDataRetriever api = new ApiDataRetriever(ref.repo(), ref.owner(), token, new RateLimitTracker(),
+                new HttpTransport(config.transport()));
+        WorkflowLogger logger = new WorkflowLogger(api, repository, System.out, config, CompletedJobCache.shared(),
+                createEventDispatcher(outputs, config, false), openJournal());
         try {
             logger.registerShutdownHook();
+            logger.connect();
+            if (webhookPort != null) {
+                startWebhookServer(webhookPort, fullName -> ref.toString().equalsIgnoreCase(fullName) ? logger : null);
+            }
+            logger.startPolling();
+            System.out.println("Exiting...");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-            if (repository.exists(repo, owner)) {
-                RepoMetadata metadata = repository.getConnectedAt(repo, owner);
-                logger.handleExistingRepository(metadata.lastNotCompletedWorkflowRunTimestamp(), metadata.lastLoggedItemTimestamp());
+    private static void runMultiRepository(String[] args, LoggerConfig config, Integer webhookPort, List<String> outputs) {
+        Repository repository = new Repository();
+        final String token;
+        final List<RepositoryRef> repositories;
+        try {
+            if (args[0].equals("--repos")) {
+                if (args.length < 3) {
+                    System.err.println("Usage: --repos <file> <token>");
+                    return;
+                }
+                token = args[2];
+                repositories = Files.readAllLines(Path.of(args[1])).stream()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .map(RepositoryRef::parse)
+                        .distinct()
+                        .toList();
             } else {
-                repository.add(repo, owner);
-                logger.handleNewRepository();
+                token = args[1];
+                repositories = repository.getConnectedRepos().stream()
+                        .map(RepositoryRef::parse)
+                        .toList();
             }
-            logger.startPolling();
+        } catch (Exception e) {
+            System.err.println("Could not read repositories: " + e.getMessage());
+            return;
+        }
+
+        System.out.println("Starting workflow logger for " + repositories.size() + " repositories");
+        MonitorEngine engine = new MonitorEngine(token, repository, System.out, config,
+                createEventDispatcher(outputs, config, true), openJournal());
+        try {
+            engine.registerShutdownHook();
+            engine.start(repositories);
+            if (webhookPort != null) {
+                startWebhookServer(webhookPort, engine::findLogger);
+            }
+            engine.awaitTermination();
             System.out.println("Exiting...");
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    private static TransportConfig parseTransportConfig(List<String> arguments) {
+        TransportConfig defaults = TransportConfig.defaults();
+        String connectTimeout = extractOption(arguments, "--connect-timeout");
+        String requestTimeout = extractOption(arguments, "--request-timeout");
+        String hedge = extractOption(arguments, "--hedge");
+        TransportConfig config = defaults.withTimeouts(
+                connectTimeout == null ? defaults.connectTimeout() : Duration.ofSeconds(Long.parseLong(connectTimeout)),
+                requestTimeout == null ? defaults.requestTimeout() : Duration.ofSeconds(Long.parseLong(requestTimeout)));
+        return hedge == null ? config : config.withHedging(true).withMinHedgeDelay(Duration.ofMillis(Long.parseLong(hedge)));
+    }
+
+    private static EventDispatcher createEventDispatcher(List<String> outputs, LoggerConfig config, boolean showRepository) {
+        return new EventDispatcher(createSinks(outputs, showRepository), EventDispatcher.DEFAULT_CAPACITY, config.outputOverflow());
+    }
+
+    private static List<EventSink> createSinks(List<String> outputs, boolean showRepository) {
+        List<EventSink> sinks = new ArrayList<>();
+        if (outputs.contains("console")) {
+            sinks.add(new ConsoleSink(System.out, showRepository));
+        }
+        if (outputs.contains("jsonl")) {
+            sinks.add(new JsonLinesSink());
+        }
+        if (outputs.contains("history")) {
+            sinks.add(new HistoryStore());
+        }
+        return sinks;
+    }
+
+    // Changes are still logged without a journal, e.g. while another process holds it
+    private static EventJournal openJournal() {
+        try {
+            return new EventJournal();
+        } catch (Exception e) {
+            System.err.println("Event journal disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void runQuery(List<String> arguments) {
+        final HistoryQuery query;
+        try {
+            String workflow = extractOption(arguments, "--workflow");
+            String branch = extractOption(arguments, "--branch");
+            String conclusion = extractOption(arguments, "--conclusion");
+            String days = extractOption(arguments, "--days");
+            String limit = extractOption(arguments, "--limit");
+            if (arguments.size() != 1) {
+                System.err.println(QUERY_USAGE);
+                return;
+            }
+            long since = Instant.now().minus(Duration.ofDays(days == null ? 7 : Long.parseLong(days))).toEpochMilli();
+            query = new HistoryQuery(RepositoryRef.parse(arguments.get(0)).toString(), workflow, branch,
+                    conclusion == null ? null : Conclusion.valueOf(conclusion.toUpperCase()), since,
+                    limit == null ? 100 : Integer.parseInt(limit));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid option value: " + e.getMessage());
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        List<RunInfo> runs = new HistoryStore().findRuns(query);
+        long tookMillis = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+
+        DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+        for (RunInfo run : runs) {
+            Enum<?> state = run.status() == Status.COMPLETED ? run.conclusion() : run.status();
+            System.out.println(timeFormat.format(Instant.ofEpochMilli(run.timestamp()))
+                    + " [RUN " + (state == null ? "NULL" : state.toString().toUpperCase()) + "] "
+                    + run.workflowName() + " / " + run.name()
+                    + " | Branch: " + run.headBranch()
+                    + " | Commit: " + run.headSha()
+                    + " | " + run.htmlUrl());
+        }
+        System.out.println(runs.size() + " runs (" + tookMillis + " ms)");
+    }
+
+    private static void runReplay(List<String> arguments) {
+        final long fromSequence;
+        final List<String> outputs;
+        final String repository;
+        try {
+            String from = extractOption(arguments, "--from");
+            fromSequence = from == null ? 0 : Long.parseLong(from);
+            String output = extractOption(arguments, "--output");
+            outputs = output == null ? List.of("console") : Arrays.asList(output.toLowerCase().split(","));
+            if (outputs.isEmpty() || !List.of("console", "jsonl", "history").containsAll(outputs)) {
+                throw new IllegalArgumentException("unknown output in " + output);
+            }
+            if (arguments.size() > 1) {
+                System.err.println(REPLAY_USAGE);
+                return;
+            }
+            repository = arguments.isEmpty() ? null : RepositoryRef.parse(arguments.get(0)).toString();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid option value: " + e.getMessage());
+            return;
+        }
+
+        // Replayed on this thread straight into the sinks, without a dispatcher in between
+        List<EventSink> sinks = createSinks(outputs, repository == null);
+        EventSink target = new EventSink() {
+            @Override
+            public void accept(ChangeEvent event) throws Exception {
+                if (repository == null || repository.equals(event.repository())) {
+                    for (EventSink sink : sinks) {
+                        sink.accept(event);
+                    }
+                }
+            }
+
+            @Override
+            public void endOfBatch() throws Exception {
+                for (EventSink sink : sinks) {
+                    sink.endOfBatch();
+                }
+            }
+        };
+        try {
+            long startedAt = System.nanoTime();
+            long replayed = EventJournal.replay(EventJournal.DEFAULT_DIRECTORY, fromSequence, target);
+            long tookMillis = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+            for (EventSink sink : sinks) {
+                sink.close();
+            }
+            System.err.println("Replayed " + replayed + " changes in " + tookMillis + " ms");
+        } catch (Exception e) {
+            System.err.println("Replay failed: " + e.getMessage());
+        }
+    }
+
+    private static void startWebhookServer(int port, Function<String, WorkflowLogger> loggers) throws Exception {
+        WebhookServer server = new WebhookServer(port, System.getenv(WEBHOOK_SECRET_ENV), loggers, System.out);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+    }
+
+    // Removes "<name> <value>" from the arguments and returns the value, or null if the option is absent
+    private static String extractOption(List<String> arguments, String name) {
+        int index = arguments.indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        if (index + 1 >= arguments.size() || arguments.get(index + 1).startsWith("--")) {
+            throw new IllegalArgumentException("missing value for " + name);
+        }
+        String value = arguments.remove(index + 1);
+        arguments.remove(index);
+        return value;
+    }
+}
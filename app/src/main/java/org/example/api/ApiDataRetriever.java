@@ -1,99 +1,520 @@
 package org.example.api;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.example.model.Status;
+import org.example.model.Views;
 import org.example.model.Workflow;
 import org.example.model.WorkflowJob;
 import org.example.model.WorkflowRun;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.ObjLongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class ApiDataRetriever {
+    private static final int DEFAULT_CACHE_SIZE = 512;
+    private static final int DEFAULT_PAGE_CONCURRENCY = 4;
+    private static final long TRANSFER_CHUNK = 1 << 20;
+    private static final Pattern LAST_PAGE_LINK = Pattern.compile("[?&]page=(\\d+)[^>]*>;\\s*rel=\"last\"");
+
+    // size counts every item on the page, including fingerprinted ones that were skipped
+    private record Page<U>(List<U> items, int size, int totalCount, int lastPage) {}
+
+    // Which items are already known by the fingerprint of their JSON, and where to record the fingerprint
+    private record Fingerprinting<U>(LongPredicate unchanged, ObjLongConsumer<? super U> assign) {}
+
     private final String apiBaseUrl;
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final HttpTransport transport;
     private final String token;
     private final ObjectMapper objectMapper;
     private final int perPage;
+    private final ResponseCache responseCache;
+    private final int pageConcurrency;
+    private final PageParser pageParser;
+    private final RateLimitTracker rateLimit;
+    private final AtomicLong chargedRequests = new AtomicLong();
 
     public final String owner;
     public final String repo;
 
     public ApiDataRetriever(String repo, String owner, String token, int perPage, String baseUrl) {
+        this(repo, owner, token, perPage, baseUrl,
+                new ResponseCache(DEFAULT_CACHE_SIZE), DEFAULT_PAGE_CONCURRENCY, new RateLimitTracker(), new HttpTransport());
+    }
+
+    public ApiDataRetriever(String repo, String owner, String token, int perPage, String baseUrl,
+                            ResponseCache responseCache, int pageConcurrency, RateLimitTracker rateLimit,
+                            HttpTransport transport) {
         if (perPage < 1 || perPage > 100) {
             throw new IllegalArgumentException("perPage must be between 1 and 100");
         }
+        if (pageConcurrency < 1) {
+            throw new IllegalArgumentException("pageConcurrency must be positive");
+        }
         this.repo = repo;
         this.owner = owner;
         this.token = token;
         this.perPage = perPage;
         this.apiBaseUrl = baseUrl;
-        this.objectMapper = new ObjectMapper();
-        objectMapper.findAndRegisterModules();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.responseCache = responseCache;
+        this.pageConcurrency = pageConcurrency;
+        this.rateLimit = rateLimit;
+        this.transport = transport;
+        // Responses are read through the poll view: fields outside it are skipped by the parser, not bound
+        this.objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .build();
+        this.pageParser = new PageParser(objectMapper, Views.Poll.class);
     }
 
     public ApiDataRetriever(String repo, String owner, String token) {
         this(repo, owner, token, 100, "https://api.github.com");
     }
 
+    /**
+     * Creates a retriever that shares its token's rate-limit budget and HTTP connection with others.
+     */
+    public ApiDataRetriever(String repo, String owner, String token, RateLimitTracker rateLimit, HttpTransport transport) {
+        this(repo, owner, token, rateLimit, transport, new ResponseCache(DEFAULT_CACHE_SIZE));
+    }
+
+    /**
+     * Like {@link #ApiDataRetriever(String, String, String, RateLimitTracker, HttpTransport)}, also sharing the
+     * cache of parsed pages; its keys are full URLs, so repositories don't collide.
+     */
+    public ApiDataRetriever(String repo, String owner, String token, RateLimitTracker rateLimit, HttpTransport transport,
+                            ResponseCache responseCache) {
+        this(repo, owner, token, 100, "https://api.github.com",
+                responseCache, DEFAULT_PAGE_CONCURRENCY, rateLimit, transport);
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public RateLimitTracker getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Requests made by this retriever that counted against the quota (304s are free). The only count kept:
+     * the {@link RateLimitTracker} is shared by every retriever of a token and holds what GitHub reports.
+     */
+    public long getChargedRequests() {
+        return chargedRequests.get();
+    }
+
     public List<Workflow> getWorkflows() throws Exception {
         String url = String.format("%s/repos/%s/%s/actions/workflows", apiBaseUrl, owner, repo);
         return executePaginatedRequest(url, Map.of(), WorkflowsDataContract.class);
     }
 
+    /**
+     * Returns a single workflow, or null if it no longer exists.
+     */
+    public Workflow getWorkflow(long workflowId) throws Exception {
+        String url = String.format("%s/repos/%s/%s/actions/workflows/%d", apiBaseUrl, owner, repo, workflowId);
+        try {
+            return executeSingleRequest(url, Workflow.class);
+        } catch (GitHubApiException e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
     public List<WorkflowRun> getWorkflowRunsFrom(String fromDate) throws Exception {
         String url = String.format("%s/repos/%s/%s/actions/runs", apiBaseUrl, owner, repo);
         return executePaginatedRequest(url, Map.of("created", ">=" + fromDate), WorkflowRunsDataContract.class);
     }
 
+    public List<WorkflowRun> getWorkflowRunsWithStatus(Status status) throws Exception {
+        String url = String.format("%s/repos/%s/%s/actions/runs", apiBaseUrl, owner, repo);
+        return executePaginatedRequest(url, Map.of("status", status.getApiValue()), WorkflowRunsDataContract.class);
+    }
+
+    /**
+     * Returns a single run, or null if it no longer exists.
+     */
+    public WorkflowRun getWorkflowRun(long runId) throws Exception {
+        String url = String.format("%s/repos/%s/%s/actions/runs/%d", apiBaseUrl, owner, repo, runId);
+        try {
+            return executeSingleRequest(url, WorkflowRun.class);
+        } catch (GitHubApiException e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
     public List<WorkflowJob> getJobsForWorkflowRun(long runId) throws Exception {
         String url = String.format("%s/repos/%s/%s/actions/runs/%d/jobs", apiBaseUrl, owner, repo, runId);
         return executePaginatedRequest(url, Map.of(), WorkflowRunJobsDataContract.class);
     }
 
+    /**
+     * Only the jobs of the run whose JSON changed: each job's raw JSON is hashed while the page is parsed, and
+     * a job whose fingerprint {@code unchanged} accepts is skipped without binding it or its steps. Returned
+     * jobs carry the fingerprint of their JSON.
+     */
+    public List<WorkflowJob> getJobsForWorkflowRun(long runId, LongPredicate unchanged) throws Exception {
+        String url = String.format("%s/repos/%s/%s/actions/runs/%d/jobs", apiBaseUrl, owner, repo, runId);
+        return executePaginatedRequest(url, Map.of(), WorkflowRunJobsDataContract.class,
+                new Fingerprinting<>(unchanged, WorkflowJob::setFingerprint));
+    }
+
+    /**
+     * Streams the plain-text log of a job into {@code target} through a file channel, so the body is
+     * never held in memory. Returns false if the log no longer exists (logs expire with the retention period).
+     */
+    public boolean downloadJobLog(long jobId, Path target) throws Exception {
+        String url = String.format("%s/repos/%s/%s/actions/jobs/%d/logs", apiBaseUrl, owner, repo, jobId);
+        HttpResponse<InputStream> response;
+        try {
+            response = executeRequest(newRequestBuilder(URI.create(url), null).build(), true);
+        } catch (GitHubApiException e) {
+            if (e.getStatusCode() == 404 || e.getStatusCode() == 410) {
+                return false;
+            }
+            throw e;
+        }
+
+        // GitHub answers with a short-lived signed URL; it must not receive the token
+        if (response.statusCode() == 302) {
+            String location = header(response, "Location");
+            response.body().close();
+            if (location == null) {
+                throw new GitHubApiException(302, "GitHub API error: 302 without Location for logs of job " + jobId);
+            }
+            response = transport.send(HttpRequest.newBuilder(URI.create(location)).GET().build());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new GitHubApiException(response.statusCode(),
+                        "Log download failed: " + response.statusCode() + " for job " + jobId);
+            }
+        }
+
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try (ReadableByteChannel body = Channels.newChannel(response.body());
+             FileChannel file = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = file.transferFrom(body, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    public void forEachWorkflowRunFrom(String fromDate, Consumer<? super WorkflowRun> consumer) throws Exception {
+        String url = String.format("%s/repos/%s/%s/actions/runs", apiBaseUrl, owner, repo);
+        streamPaginatedRequest(url, Map.of("created", ">=" + fromDate), WorkflowRunsDataContract.class, consumer);
+    }
+
+    public void forEachJobOfWorkflowRun(long runId, Consumer<? super WorkflowJob> consumer) throws Exception {
+        String url = String.format("%s/repos/%s/%s/actions/runs/%d/jobs", apiBaseUrl, owner, repo, runId);
+        streamPaginatedRequest(url, Map.of(), WorkflowRunJobsDataContract.class, consumer);
+    }
+
     private <T extends CountableDataContract<U>, U> List<U> executePaginatedRequest(
             String baseUrl,
             Map<String, String> queryParams,
             Class<T> responseType
     ) throws Exception {
+        return executePaginatedRequest(baseUrl, queryParams, responseType, null);
+    }
 
-        int page = 1;
-        List<U> allItems = new ArrayList<>();
+    private <T extends CountableDataContract<U>, U> List<U> executePaginatedRequest(
+            String baseUrl,
+            Map<String, String> queryParams,
+            Class<T> responseType,
+            Fingerprinting<U> fingerprinting
+    ) throws Exception {
 
-        while (true) {
-            String queryString = buildQueryString(queryParams, page);
-            URI uri = URI.create(baseUrl + "?" + queryString);
+        Page<U> first = fetchPage(baseUrl, queryParams, 1, responseType, item -> {}, fingerprinting);
+        List<U> allItems = new ArrayList<>(first.items());
+        int received = first.size();
+        if (first.size() < perPage || received >= first.totalCount()) {
+            return allItems;
+        }
+
+        // The first page tells us how many pages there are; fetch the rest concurrently
+        int lastPage = first.lastPage() > 0
+                ? first.lastPage()
+                : (first.totalCount() + perPage - 1) / perPage;
+        List<Page<U>> pages = fetchPages(baseUrl, queryParams, 2, lastPage, responseType, fingerprinting);
+
+        Page<U> previous = first;
+        for (Page<U> page : pages) {
+            allItems.addAll(page.items());
+            received += page.size();
+            previous = page;
+        }
+
+        // Runs created while paging shift items towards later pages; keep going sequentially in that case
+        int page = lastPage;
+        while (previous.size() >= perPage && received < previous.totalCount()) {
+            page++;
+            previous = fetchPage(baseUrl, queryParams, page, responseType, item -> {}, fingerprinting);
+            allItems.addAll(previous.items());
+            received += previous.size();
+        }
+        return allItems;
+    }
+
+    private <T extends CountableDataContract<U>, U> List<Page<U>> fetchPages(
+            String baseUrl,
+            Map<String, String> queryParams,
+            int fromPage,
+            int toPage,
+            Class<T> responseType,
+            Fingerprinting<U> fingerprinting
+    ) throws Exception {
+        if (fromPage > toPage) {
+            return List.of();
+        }
+
+        Semaphore permits = new Semaphore(pageConcurrency);
+        List<Future<Page<U>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Cancel inside the executor scope so a failed page does not wait for the others
+            try {
+                for (int page = fromPage; page <= toPage; page++) {
+                    final int pageNumber = page;
+                    futures.add(executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            return fetchPage(baseUrl, queryParams, pageNumber, responseType, item -> {}, fingerprinting);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+
+                // Merge back in page order
+                List<Page<U>> pages = new ArrayList<>(futures.size());
+                for (Future<Page<U>> future : futures) {
+                    pages.add(awaitPage(future));
+                }
+                return pages;
+            } finally {
+                futures.forEach(f -> f.cancel(true));
+            }
+        }
+    }
+
+    private static <U> Page<U> awaitPage(Future<Page<U>> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .GET()
-                    .header("Authorization", "Bearer " + token)
-                    .header("Accept", "application/vnd.github+json")
-                    .header("X-GitHub-Api-Version", "2022-11-28") // Good practice to lock version
-                    .build();
+    private <R> R executeSingleRequest(String url, Class<R> responseType) throws Exception {
+        ResponseCache.Entry cached = responseCache.get(url);
+        HttpResponse<InputStream> response = executeConditionalRequest(URI.create(url), cached);
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 304 && cached != null) {
+                responseCache.recordHit();
+                return responseType.cast(cached.items().get(0));
+            }
 
-            String jsonBody = executeRequest(request).body();
-            T data = objectMapper.readValue(jsonBody, responseType);
+            responseCache.recordMiss();
+            R result = objectMapper.readerFor(responseType).withView(Views.Poll.class).readValue(body);
+            String etag = header(response, "ETag");
+            String lastModified = header(response, "Last-Modified");
+            if (etag != null || lastModified != null) {
+                responseCache.put(url, new ResponseCache.Entry(etag, lastModified, 1, 0, List.of(result)));
+            }
+            return result;
+        }
+    }
 
-            List<U> pageItems = data.getItems();
-            allItems.addAll(pageItems);
+    private HttpRequest.Builder newRequestBuilder(URI uri, ResponseCache.Entry cached) {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/vnd.github+json")
+                .header("X-GitHub-Api-Version", "2022-11-28"); // Good practice to lock version
 
-            if (pageItems.size() < perPage || allItems.size() >= data.getTotalCount()) {
+        // Conditional request: GitHub answers 304 without charging the rate limit
+        if (cached != null) {
+            if (cached.etag() != null) requestBuilder.header("If-None-Match", cached.etag());
+            if (cached.lastModified() != null) requestBuilder.header("If-Modified-Since", cached.lastModified());
+        }
+        return requestBuilder;
+    }
+
+    /**
+     * Sends a request made conditional on {@code cached}. A 304 can only be answered from that entry; without
+     * one its empty body would read as an empty page, so the request is repeated without conditional headers.
+     */
+    private HttpResponse<InputStream> executeConditionalRequest(URI uri, ResponseCache.Entry cached) throws Exception {
+        HttpResponse<InputStream> response = executeRequest(newRequestBuilder(uri, cached).build());
+        if (response.statusCode() != 304 || cached != null) {
+            return response;
+        }
+        response.body().close();
+        response = executeRequest(newRequestBuilder(uri, null).build());
+        if (response.statusCode() == 304) {
+            response.body().close();
+            throw new GitHubApiException(304, "GitHub API error: 304 without a cached response for " + uri);
+        }
+        return response;
+    }
+
+    /**
+     * Streams items page by page to {@code itemSink} as they are parsed from the response body.
+     */
+    private <T extends CountableDataContract<U>, U> void streamPaginatedRequest(
+            String baseUrl,
+            Map<String, String> queryParams,
+            Class<T> responseType,
+            Consumer<? super U> itemSink
+    ) throws Exception {
+        int page = 1;
+        int received = 0;
+        while (true) {
+            Page<U> current = fetchPage(baseUrl, queryParams, page, responseType, itemSink, null);
+            received += current.size();
+            if (current.size() < perPage || received >= current.totalCount()) {
                 break;
             }
             page++;
         }
-        return allItems;
+    }
+
+    /**
+     * @param fingerprinting null to bind every item; otherwise only items whose JSON changed are bound and returned
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends CountableDataContract<U>, U> Page<U> fetchPage(
+            String baseUrl,
+            Map<String, String> queryParams,
+            int page,
+            Class<T> responseType,
+            Consumer<? super U> itemSink,
+            Fingerprinting<U> fingerprinting
+    ) throws Exception {
+        String queryString = buildQueryString(queryParams, page);
+        URI uri = URI.create(baseUrl + "?" + queryString);
+        String cacheKey = uri.toString();
+        ResponseCache.Entry cached = responseCache.get(cacheKey);
+        // A page cached with only its changed items can't answer a request for all of them, and a page cached
+        // without fingerprints can't tell which of its items changed
+        if (cached != null && (cached.fingerprints() != null) != (fingerprinting != null)) {
+            cached = null;
+        }
+        HttpResponse<InputStream> response = executeConditionalRequest(uri, cached);
+
+        List<U> pageItems = new ArrayList<>(perPage);
+        long[] fingerprints = fingerprinting != null ? new long[perPage] : null;
+        int totalCount;
+        int size;
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 304 && cached != null) {
+                responseCache.recordHit();
+                List<U> items = (List<U>) cached.items();
+                if (fingerprinting != null) {
+                    items = new ArrayList<>();
+                    for (int i = 0; i < cached.items().size(); i++) {
+                        if (!fingerprinting.unchanged().test(cached.fingerprints()[i])) {
+                            items.add((U) cached.items().get(i));
+                        }
+                    }
+                }
+                for (U item : items) {
+                    itemSink.accept(item);
+                }
+                return new Page<>(items, cached.size(), cached.totalCount(), cached.lastPage());
+            }
+
+            responseCache.recordMiss();
+            if (fingerprinting == null) {
+                totalCount = pageParser.parse(body, responseType, item -> {
+                    pageItems.add(item);
+                    itemSink.accept(item);
+                });
+                size = pageItems.size();
+            } else {
+                PageParser.Counts counts = pageParser.parseFingerprinted(body, responseType, fingerprinting.unchanged(),
+                        (U item, long fingerprint) -> {
+                            // Freshly bound, so not yet shared with a cached page
+                            fingerprinting.assign().accept(item, fingerprint);
+                            fingerprints[pageItems.size()] = fingerprint;
+                            pageItems.add(item);
+                            itemSink.accept(item);
+                        });
+                totalCount = counts.totalCount();
+                size = counts.items();
+            }
+        }
+        int lastPage = parseLastPage(header(response, "Link"));
+
+        String etag = header(response, "ETag");
+        String lastModified = header(response, "Last-Modified");
+        if (etag != null || lastModified != null) {
+            responseCache.put(cacheKey, new ResponseCache.Entry(etag, lastModified, totalCount, lastPage,
+                    List.copyOf(pageItems), size,
+                    fingerprints != null ? Arrays.copyOf(fingerprints, pageItems.size()) : null));
+        } else {
+            responseCache.remove(cacheKey);
+        }
+        return new Page<>(pageItems, size, totalCount, lastPage);
+    }
+
+    static int parseLastPage(String linkHeader) {
+        if (linkHeader == null) {
+            return 0;
+        }
+        Matcher matcher = LAST_PAGE_LINK.matcher(linkHeader);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
     }
 
     private String buildQueryString(Map<String, String> filters, int page) {
@@ -110,12 +531,45 @@ public class ApiDataRetriever {
         return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
 
-    HttpResponse<String> executeRequest(HttpRequest request) throws Exception {
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    private static String header(HttpResponse<?> response, String name) {
+        HttpHeaders headers = response.headers();
+        return headers == null ? null : headers.firstValue(name).orElse(null);
+    }
 
-        if (response.statusCode() != 200) {
-            throw new RuntimeException(
-                    "GitHub API error: " + response.statusCode() + " | Body: " + response.body()
+    private boolean isRateLimited(HttpResponse<?> response, String errorBody) {
+        return response.statusCode() == 429
+                || (response.statusCode() == 403
+                    && (header(response, "Retry-After") != null
+                        || rateLimit.isExhausted()
+                        || errorBody.contains("rate limit")));
+    }
+
+    HttpResponse<InputStream> executeRequest(HttpRequest request) throws Exception {
+        return executeRequest(request, false);
+    }
+
+    // Redirects are only expected from download endpoints; everywhere else they are errors
+    HttpResponse<InputStream> executeRequest(HttpRequest request, boolean allowRedirect) throws Exception {
+        HttpResponse<InputStream> response = transport.send(request);
+        rateLimit.update(response.statusCode(), response.headers());
+        if (response.statusCode() != 304) {
+            chargedRequests.incrementAndGet();
+        }
+
+        if (response.statusCode() != 200 && response.statusCode() != 304
+                && !(allowRedirect && response.statusCode() == 302)) {
+            String errorBody;
+            try (InputStream body = response.body()) {
+                errorBody = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (isRateLimited(response, errorBody)) {
+                Instant retryAt = rateLimit.block(response.headers(), Instant.now());
+                throw new RateLimitExceededException(
+                        "GitHub API rate limit exceeded: " + response.statusCode() + " | Retry at: " + retryAt, retryAt
+                );
+            }
+            throw new GitHubApiException(response.statusCode(),
+                    "GitHub API error: " + response.statusCode() + " | Body: " + errorBody
             );
         }
         return response;
@@ -0,0 +1,15 @@
+package org.example.api;
+
+public class GitHubApiException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final int statusCode;
+
+    public GitHubApiException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
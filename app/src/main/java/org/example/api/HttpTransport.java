@@ -0,0 +1,171 @@
+package org.example.api;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP/2 client wrapper shared by all API calls: multiplexes requests over one connection per host,
+ * negotiates gzip, enforces connect/request deadlines and optionally hedges slow GETs.
+ * <p>
+ * A hedged GET fires a second identical request once the first has been outstanding longer than
+ * the recent p95 latency; the first successful response wins and the other is cancelled.
+ * Both requests count against the rate limit, so hedging is off by default.
+ */
+public class HttpTransport {
+    private static final int LATENCY_WINDOW = 128;
+
+    private final HttpClient httpClient;
+    private final TransportConfig config;
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private int latencyIndex;
+    private final AtomicLong hedgedRequests = new AtomicLong();
+
+    public HttpTransport(TransportConfig config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(config.connectTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    public HttpTransport() {
+        this(TransportConfig.defaults());
+    }
+
+    public TransportConfig getConfig() {
+        return config;
+    }
+
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    public HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true)
+                .timeout(config.requestTimeout());
+        if (config.gzip()) {
+            builder.setHeader("Accept-Encoding", "gzip");
+        }
+        HttpRequest prepared = builder.build();
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = config.hedging() && "GET".equals(prepared.method())
+                ? sendHedged(prepared)
+                : httpClient.send(prepared, HttpResponse.BodyHandlers.ofInputStream());
+        recordLatency(System.nanoTime() - start);
+
+        return decode(response);
+    }
+
+    private HttpResponse<InputStream> sendHedged(HttpRequest request) throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<InputStream>> primary =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            return primary.get(hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            hedgedRequests.incrementAndGet();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        CompletableFuture<HttpResponse<InputStream>> secondary =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<HttpResponse<InputStream>> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<HttpResponse<InputStream>> attempt : List.of(primary, secondary)) {
+            attempt.whenComplete((response, error) -> {
+                if (error == null) {
+                    // The losing response still holds a stream; release it
+                    if (!first.complete(response)) closeQuietly(response.body());
+                } else if (failures.incrementAndGet() == 2) {
+                    first.completeExceptionally(error);
+                }
+            });
+        }
+
+        try {
+            return first.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            primary.cancel(true);
+            secondary.cancel(true);
+        }
+    }
+
+    // Hedge after the p95 of recent latencies, never sooner than the configured floor
+    Duration hedgeDelay() {
+        long p95;
+        synchronized (latencies) {
+            if (latencyCount < 20) {
+                return config.minHedgeDelay();
+            }
+            long[] window = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(window);
+            p95 = window[(int) Math.ceil(window.length * 0.95) - 1];
+        }
+        Duration delay = Duration.ofNanos(p95);
+        return delay.compareTo(config.minHedgeDelay()) < 0 ? config.minHedgeDelay() : delay;
+    }
+
+    void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[latencyIndex] = nanos;
+            latencyIndex = (latencyIndex + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+        }
+    }
+
+    private static HttpResponse<InputStream> decode(HttpResponse<InputStream> response) throws IOException {
+        boolean gzipped = response.headers().firstValue("Content-Encoding")
+                .map(v -> v.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzipped || response.statusCode() == 204 || response.statusCode() == 304) {
+            return response;
+        }
+        return new DecodedResponse(response, new GZIPInputStream(response.body(), 8192));
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException io) return io;
+        if (cause instanceof RuntimeException runtime) throw runtime;
+        return new IOException(cause);
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private record DecodedResponse(HttpResponse<InputStream> delegate, InputStream body) implements HttpResponse<InputStream> {
+        @Override public int statusCode() { return delegate.statusCode(); }
+        @Override public HttpRequest request() { return delegate.request(); }
+        @Override public Optional<HttpResponse<InputStream>> previousResponse() { return delegate.previousResponse(); }
+        @Override public HttpHeaders headers() { return delegate.headers(); }
+        @Override public Optional<SSLSession> sslSession() { return delegate.sslSession(); }
+        @Override public URI uri() { return delegate.uri(); }
+        @Override public HttpClient.Version version() { return delegate.version(); }
+    }
+}
@@ -0,0 +1,326 @@
+package org.example.api;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Walks a paginated response body with a streaming {@link JsonParser} and emits the items of a
+ * {@link CountableDataContract} one by one, without materializing the body as a String or the contract object.
+ */
+final class PageParser {
+
+    private static final String TOTAL_COUNT_FIELD = "total_count";
+
+    private record ContractLayout(String itemsField, ObjectReader itemReader) {}
+
+    record Counts(int totalCount, int items) {}
+
+    interface FingerprintedItemSink<U> {
+        void accept(U item, long fingerprint);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Class<?> view;
+    private final Map<Class<?>, ContractLayout> layouts = new ConcurrentHashMap<>();
+
+    /**
+     * @param view Jackson view the items are read with, or null to bind every field
+     */
+    PageParser(ObjectMapper objectMapper, Class<?> view) {
+        this.objectMapper = objectMapper;
+        this.view = view;
+    }
+
+    /**
+     * Streams the items of one page to {@code itemSink} and returns the page's {@code total_count}.
+     */
+    <T extends CountableDataContract<U>, U> int parse(InputStream body, Class<T> responseType, Consumer<? super U> itemSink)
+            throws IOException {
+        ContractLayout layout = layoutOf(responseType);
+        int totalCount = 0;
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object for " + responseType.getSimpleName());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if (TOTAL_COUNT_FIELD.equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    totalCount = parser.getIntValue();
+                } else if (layout.itemsField().equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        U item = layout.itemReader().readValue(parser);
+                        itemSink.accept(item);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return totalCount;
+    }
+
+    /**
+     * Like {@link #parse}, but fingerprints the raw JSON of every item and binds only the items whose
+     * fingerprint {@code unchanged} rejects. The body is read in chunks and its structure walked with a plain
+     * byte scan, so an unchanged item costs a hash of its bytes and is never tokenized, and at most one item
+     * is buffered at a time.
+     */
+    <T extends CountableDataContract<U>, U> Counts parseFingerprinted(InputStream body, Class<T> responseType,
+                                                                     LongPredicate unchanged,
+                                                                     FingerprintedItemSink<? super U> itemSink)
+            throws IOException {
+        ContractLayout layout = layoutOf(responseType);
+        ByteScanner json = new ByteScanner(body);
+        int totalCount = 0;
+        int items = 0;
+
+        json.skipWhitespace();
+        if (json.peek() != '{') {
+            throw new IOException("Expected a JSON object for " + responseType.getSimpleName());
+        }
+        json.advance();
+        json.skipWhitespace();
+        while (json.peek() >= 0 && json.peek() != '}') {
+            String field = json.readString();
+            json.skipWhitespace();
+            json.expect(':');
+            json.skipWhitespace();
+
+            if (TOTAL_COUNT_FIELD.equals(field) && json.peek() >= '0' && json.peek() <= '9') {
+                json.mark();
+                json.skipValue();
+                totalCount = Integer.parseInt(json.marked(StandardCharsets.US_ASCII));
+                json.unmark();
+            } else if (layout.itemsField().equals(field) && json.peek() == '[') {
+                json.advance();
+                json.skipWhitespace();
+                while (json.peek() == '{') {
+                    json.mark();
+                    json.skipValue();
+                    items++;
+                    long fingerprint = XxHash64.hash(json.buffer(), json.markStart(), json.markLength());
+                    if (!unchanged.test(fingerprint)) {
+                        U item = layout.itemReader().readValue(json.buffer(), json.markStart(), json.markLength());
+                        itemSink.accept(item, fingerprint);
+                    }
+                    json.unmark();
+                    json.skipWhitespace();
+                    if (json.peek() == ',') {
+                        json.advance();
+                        json.skipWhitespace();
+                    }
+                }
+                json.expect(']');
+            } else {
+                json.skipValue();
+            }
+
+            json.skipWhitespace();
+            if (json.peek() == ',') {
+                json.advance();
+                json.skipWhitespace();
+            }
+        }
+        json.expect('}');
+        return new Counts(totalCount, items);
+    }
+
+    /**
+     * Byte cursor over a stream that keeps only the unread chunk plus the marked value (a field name,
+     * a number or one item) in memory. Only the structure of values is checked, not their contents.
+     */
+    private static final class ByteScanner {
+        private static final int CHUNK_BYTES = 8192;
+
+        private final InputStream in;
+        private byte[] buffer = new byte[CHUNK_BYTES];
+        private int position;
+        private int limit;
+        private int mark = -1;
+        // Stream offset of buffer[0], for error messages
+        private long discarded;
+
+        ByteScanner(InputStream in) {
+            this.in = in;
+        }
+
+        // The next byte (0-255) without consuming it, or -1 at the end of the stream
+        int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position] & 0xFF;
+        }
+
+        void advance() {
+            position++;
+        }
+
+        void mark() {
+            mark = position;
+        }
+
+        void unmark() {
+            mark = -1;
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        int markStart() {
+            return mark;
+        }
+
+        int markLength() {
+            return position - mark;
+        }
+
+        String marked(Charset charset) {
+            return new String(buffer, mark, position - mark, charset);
+        }
+
+        void expect(char expected) throws IOException {
+            if (peek() != expected) {
+                throw new IOException("Expected '" + expected + "' at offset " + (discarded + position));
+            }
+            advance();
+        }
+
+        void skipWhitespace() throws IOException {
+            int b = peek();
+            while (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                advance();
+                b = peek();
+            }
+        }
+
+        String readString() throws IOException {
+            mark();
+            skipString();
+            String value = new String(buffer, mark + 1, position - mark - 2, StandardCharsets.UTF_8);
+            unmark();
+            return value;
+        }
+
+        // Moves past the value starting at the cursor
+        void skipValue() throws IOException {
+            int first = peek();
+            if (first < 0) {
+                throw new IOException("Unexpected end of JSON");
+            }
+            if (first == '"') {
+                skipString();
+                return;
+            }
+            if (first == '{' || first == '[') {
+                int depth = 0;
+                while (true) {
+                    int b = peek();
+                    if (b < 0) {
+                        throw new IOException("Unexpected end of JSON");
+                    }
+                    if (b == '"') {
+                        skipString();
+                        continue;
+                    }
+                    advance();
+                    if (b == '{' || b == '[') {
+                        depth++;
+                    } else if ((b == '}' || b == ']') && --depth == 0) {
+                        return;
+                    }
+                }
+            }
+            // Number, true, false or null
+            int b = peek();
+            while (b > ' ' && b != ',' && b != '}' && b != ']') {
+                advance();
+                b = peek();
+            }
+        }
+
+        // Moves past the string starting at the cursor, including its closing quote
+        private void skipString() throws IOException {
+            if (peek() != '"') {
+                throw new IOException("Expected a JSON string at offset " + (discarded + position));
+            }
+            advance();
+            while (true) {
+                int b = peek();
+                if (b < 0) {
+                    throw new IOException("Unexpected end of JSON");
+                }
+                advance();
+                if (b == '\\') {
+                    if (peek() < 0) {
+                        throw new IOException("Unexpected end of JSON");
+                    }
+                    advance();
+                } else if (b == '"') {
+                    return;
+                }
+            }
+        }
+
+        // Drops consumed bytes that are not marked and reads the next chunk; false at the end of the stream
+        private boolean fill() throws IOException {
+            int keep = mark >= 0 ? mark : position;
+            if (keep > 0) {
+                System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+                limit -= keep;
+                position -= keep;
+                if (mark >= 0) {
+                    mark = 0;
+                }
+                discarded += keep;
+            }
+            if (limit == buffer.length) {
+                // A marked value longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read;
+            do {
+                read = in.read(buffer, limit, buffer.length - limit);
+            } while (read == 0);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+            return true;
+        }
+    }
+
+    // The items array is whichever writable List property the contract declares (e.g. "workflow_runs", "jobs")
+    private ContractLayout layoutOf(Class<?> responseType) {
+        return layouts.computeIfAbsent(responseType, type -> {
+            BeanDescription description = objectMapper.getDeserializationConfig()
+                    .introspect(objectMapper.constructType(type));
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                JavaType propertyType = property.getPrimaryType();
+                if (propertyType.isCollectionLikeType() && (property.hasSetter() || property.hasField())) {
+                    return new ContractLayout(property.getName(), objectMapper.readerFor(propertyType.getContentType()).withView(view));
+                }
+            }
+            throw new IllegalArgumentException(type.getName() + " does not declare an item list");
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.api;
+
+import java.time.Instant;
+
+public class RateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Instant retryAt;
+
+    public RateLimitExceededException(String message, Instant retryAt) {
+        super(message);
+        this.retryAt = retryAt;
+    }
+
+    public Instant getRetryAt() {
+        return retryAt;
+    }
+}
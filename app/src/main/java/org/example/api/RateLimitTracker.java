@@ -0,0 +1,80 @@
+package org.example.api;
+
+import java.net.http.HttpHeaders;
+import java.time.Instant;
+import java.util.OptionalLong;
+
+/**
+ * Tracks the primary rate-limit quota reported by GitHub (X-RateLimit-*) and any
+ * Retry-After / secondary-limit lockout, so the poller can spread its requests until the reset.
+ */
+public class RateLimitTracker {
+
+    public record Snapshot(int limit, int remaining, Instant resetAt, Instant blockedUntil) {
+        public boolean isKnown() {
+            return limit > 0 && resetAt != null;
+        }
+    }
+
+    private int limit = -1;
+    private int remaining = -1;
+    private Instant resetAt;
+    private Instant blockedUntil;
+
+    /**
+     * Reads the quota headers of any response; a successful one also ends an earlier lockout.
+     */
+    synchronized void update(int statusCode, HttpHeaders headers) {
+        if (statusCode < 400) {
+            blockedUntil = null;
+        }
+        if (headers == null) {
+            return;
+        }
+
+        number(headers, "X-RateLimit-Limit", Integer.MAX_VALUE).ifPresent(v -> this.limit = (int) v);
+        number(headers, "X-RateLimit-Remaining", Integer.MAX_VALUE).ifPresent(v -> this.remaining = (int) v);
+        number(headers, "X-RateLimit-Reset", Instant.MAX.getEpochSecond()).ifPresent(v -> this.resetAt = Instant.ofEpochSecond(v));
+    }
+
+    /**
+     * Records a rate-limit rejection (403/429) and returns the instant after which requests may resume.
+     */
+    synchronized Instant block(HttpHeaders headers, Instant now) {
+        OptionalLong retryAfter = headers == null
+                ? OptionalLong.empty()
+                : number(headers, "Retry-After", Integer.MAX_VALUE);
+        Instant until = retryAfter.isPresent() ? now.plusSeconds(retryAfter.getAsLong()) : null;
+        if (until == null && remaining == 0 && resetAt != null) {
+            until = resetAt;
+        }
+        if (until == null) {
+            // Secondary limit without a hint: GitHub asks to wait at least a minute
+            until = now.plusSeconds(60);
+        }
+        this.blockedUntil = until;
+        return until;
+    }
+
+    // A header that is not an integer between 0 and max (e.g. an HTTP-date Retry-After) is ignored
+    private static OptionalLong number(HttpHeaders headers, String name, long max) {
+        String value = headers.firstValue(name).orElse(null);
+        if (value == null) {
+            return OptionalLong.empty();
+        }
+        try {
+            long number = Long.parseLong(value.trim());
+            return number < 0 || number > max ? OptionalLong.empty() : OptionalLong.of(number);
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    synchronized boolean isExhausted() {
+        return remaining == 0;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(limit, remaining, resetAt, blockedUntil);
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.api;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of parsed pages keyed by request URL, used to send conditional
+ * requests (If-None-Match / If-Modified-Since) and reuse the page on 304 Not Modified.
+ */
+public class ResponseCache {
+
+    /**
+     * @param size         items on the page, including those not kept because their fingerprint was known
+     * @param fingerprints fingerprints of {@code items} when only changed items were kept, otherwise null
+     */
+    record Entry(String etag, String lastModified, int totalCount, int lastPage, List<?> items, int size,
+                 long[] fingerprints) {
+        Entry(String etag, String lastModified, int totalCount, int lastPage, List<?> items) {
+            this(etag, lastModified, totalCount, lastPage, items, items.size(), null);
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ResponseCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    synchronized void put(String url, Entry entry) {
+        entries.put(url, entry);
+    }
+
+    synchronized void remove(String url) {
+        entries.remove(url);
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    public long getHits() { return hits.get(); }
+
+    public long getMisses() { return misses.get(); }
+
+    public synchronized int size() { return entries.size(); }
+
+    public int getMaxEntries() { return maxEntries; }
+}
@@ -0,0 +1,36 @@
+package org.example.api;
+
+import java.time.Duration;
+
+/**
+ * Settings of the shared {@link HttpTransport}.
+ *
+ * @param connectTimeout deadline for establishing a connection
+ * @param requestTimeout deadline for receiving the response headers of a single request
+ * @param gzip           whether to ask for and decode gzip-compressed bodies
+ * @param hedging        whether slow GETs get a second, racing request
+ * @param minHedgeDelay  lower bound for the hedge delay, used until enough latencies are recorded
+ */
+public record TransportConfig(
+        Duration connectTimeout,
+        Duration requestTimeout,
+        boolean gzip,
+        boolean hedging,
+        Duration minHedgeDelay
+) {
+    public static TransportConfig defaults() {
+        return new TransportConfig(Duration.ofSeconds(10), Duration.ofSeconds(30), true, false, Duration.ofMillis(500));
+    }
+
+    public TransportConfig withHedging(boolean hedging) {
+        return new TransportConfig(connectTimeout, requestTimeout, gzip, hedging, minHedgeDelay);
+    }
+
+    public TransportConfig withMinHedgeDelay(Duration minHedgeDelay) {
+        return new TransportConfig(connectTimeout, requestTimeout, gzip, hedging, minHedgeDelay);
+    }
+
+    public TransportConfig withTimeouts(Duration connectTimeout, Duration requestTimeout) {
+        return new TransportConfig(connectTimeout, requestTimeout, gzip, hedging, minHedgeDelay);
+    }
+}
@@ -0,0 +1,372 @@
+package org.example.db;
+
+import org.example.model.Conclusion;
+import org.example.model.JobStep;
+import org.example.model.Status;
+import org.example.model.StringPool;
+import org.example.model.WorkflowJob;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Job lists of completed runs keyed by {@code (runId, runAttempt)}. A finished attempt never changes,
+ * so an entry is valid forever and a run is fetched at most once, even across restarts.
+ * <p>
+ * Recently used lists live in an LRU map; every list is also appended to a compact binary file
+ * ({@code data/completed-jobs.bin}) whose offsets are indexed on open. Each record carries a CRC so a
+ * torn write at the tail is dropped instead of poisoning the cache. When the file outgrows its limit
+ * it is rewritten keeping the newest half of the records. The file belongs to one process at a time;
+ * another process using the same path keeps its lists in memory only.
+ */
+public class CompletedJobCache {
+    public static final Path DEFAULT_PATH = Path.of("data", "completed-jobs.bin");
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final long DEFAULT_MAX_FILE_BYTES = 64L * 1024 * 1024;
+
+    private static final int MAGIC = 0x474A4331; // "GJC1"
+    // Enums are stored by ordinal; bump when Status or Conclusion change
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    // runId, runAttempt, payload length, payload CRC
+    private static final int RECORD_HEADER_BYTES = 8 + 4 + 4 + 4;
+
+    private record RunKey(long runId, int runAttempt) {}
+
+    private record Slot(long offset, int length, int checksum) {}
+
+    private static CompletedJobCache shared;
+
+    private final Path path;
+    private final long maxFileBytes;
+    private final Map<RunKey, List<WorkflowJob>> memory;
+    private final Map<RunKey, Slot> index = new LinkedHashMap<>();
+    private FileChannel file;
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    /**
+     * The cache backed by {@link #DEFAULT_PATH}, shared by every repository of the process.
+     */
+    public static synchronized CompletedJobCache shared() {
+        if (shared == null) {
+            shared = new CompletedJobCache(DEFAULT_PATH, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_FILE_BYTES);
+        }
+        return shared;
+    }
+
+    /**
+     * A cache that only keeps the in-memory LRU, e.g. for tests.
+     */
+    public static CompletedJobCache inMemory() {
+        return new CompletedJobCache(null, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_FILE_BYTES);
+    }
+
+    public CompletedJobCache(Path path, int maxEntries, long maxFileBytes) {
+        this.path = path;
+        this.maxFileBytes = maxFileBytes;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RunKey, List<WorkflowJob>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        if (path != null) {
+            try {
+                open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open job cache " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the cached jobs of a run attempt, or null if it was never stored.
+     */
+    public synchronized List<WorkflowJob> get(long runId, int runAttempt) {
+        RunKey key = new RunKey(runId, runAttempt);
+        List<WorkflowJob> jobs = memory.get(key);
+        if (jobs != null || file == null) {
+            return jobs;
+        }
+        Slot slot = index.get(key);
+        if (slot == null) {
+            return null;
+        }
+        try {
+            ByteBuffer payload = ByteBuffer.allocate(slot.length());
+            readFully(payload, slot.offset() + RECORD_HEADER_BYTES);
+            if (checksum(payload.array()) != slot.checksum()) {
+                throw new IOException("Checksum mismatch");
+            }
+            jobs = decode(payload.array());
+        } catch (IOException e) {
+            // Unreadable record: forget it, the jobs get fetched again
+            index.remove(key);
+            return null;
+        }
+        memory.put(key, jobs);
+        return jobs;
+    }
+
+    /**
+     * Stores the jobs of a completed run attempt. Failures to persist only cost a re-fetch after a restart.
+     */
+    public synchronized void put(long runId, int runAttempt, List<WorkflowJob> jobs) {
+        RunKey key = new RunKey(runId, runAttempt);
+        List<WorkflowJob> copy = List.copyOf(jobs);
+        memory.put(key, copy);
+        if (file == null || index.containsKey(key)) {
+            return;
+        }
+        try {
+            byte[] payload = encode(copy);
+            int checksum = checksum(payload);
+
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+            record.putLong(runId).putInt(runAttempt).putInt(payload.length).putInt(checksum).put(payload).flip();
+            long offset = file.size();
+            while (record.hasRemaining()) {
+                file.write(record, offset + record.position());
+            }
+            index.put(key, new Slot(offset, payload.length, checksum));
+
+            if (file.size() > maxFileBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not persist jobs of run " + runId + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized int size() {
+        return file == null ? memory.size() : index.size();
+    }
+
+    public synchronized void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        // A separate lock file, since compaction replaces the data file
+        lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by this process
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            System.err.println("Job cache " + path + " is already in use, keeping completed jobs in memory only");
+            return;
+        }
+        file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        if (file.size() < FILE_HEADER_BYTES || !readHeader(header)) {
+            // New file, or written by an incompatible version
+            file.truncate(0);
+            header.clear();
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+            file.write(header, 0);
+        }
+
+        long offset = FILE_HEADER_BYTES;
+        long size = file.size();
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (offset + RECORD_HEADER_BYTES <= size) {
+            recordHeader.clear();
+            readFully(recordHeader, offset);
+            recordHeader.flip();
+            long runId = recordHeader.getLong();
+            int runAttempt = recordHeader.getInt();
+            int length = recordHeader.getInt();
+            int checksum = recordHeader.getInt();
+            if (length < 0 || offset + RECORD_HEADER_BYTES + length > size
+                    || !checksumMatches(offset + RECORD_HEADER_BYTES, length, checksum)) {
+                break;
+            }
+            index.put(new RunKey(runId, runAttempt), new Slot(offset, length, checksum));
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        if (offset < size) {
+            // Torn or corrupt tail from an interrupted write
+            file.truncate(offset);
+        }
+        if (file.size() > maxFileBytes) {
+            compact();
+        }
+    }
+
+    private boolean readHeader(ByteBuffer header) throws IOException {
+        readFully(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION;
+    }
+
+    private boolean checksumMatches(long position, int length, int expected) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(payload, position);
+        return checksum(payload.array()) == expected;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // Rewrites the file with the newest records that fit into half the limit
+    private void compact() throws IOException {
+        List<Map.Entry<RunKey, Slot>> entries = new ArrayList<>(index.entrySet());
+        long budget = maxFileBytes / 2;
+        int first = entries.size();
+        while (first > 0 && budget >= RECORD_HEADER_BYTES + entries.get(first - 1).getValue().length()) {
+            first--;
+            budget -= RECORD_HEADER_BYTES + entries.get(first).getValue().length();
+        }
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        Map<RunKey, Slot> kept = new LinkedHashMap<>();
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+            out.write(header);
+            for (Map.Entry<RunKey, Slot> entry : entries.subList(first, entries.size())) {
+                Slot slot = entry.getValue();
+                long target = out.position();
+                long copied = 0;
+                long recordBytes = RECORD_HEADER_BYTES + slot.length();
+                while (copied < recordBytes) {
+                    copied += file.transferTo(slot.offset() + copied, recordBytes - copied, out);
+                }
+                kept.put(entry.getKey(), new Slot(target, slot.length(), slot.checksum()));
+            }
+            out.force(true);
+        }
+
+        file.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        index.putAll(kept);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + path);
+            }
+        }
+    }
+
+    private static byte[] encode(List<WorkflowJob> jobs) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * Math.max(1, jobs.size()));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(jobs.size());
+        for (WorkflowJob job : jobs) {
+            out.writeLong(job.getId());
+            out.writeLong(job.getRunId());
+            writeString(out, job.getName());
+            out.writeByte(ordinal(job.getStatus()));
+            out.writeByte(ordinal(job.getConclusion()));
+            out.writeLong(job.getCreatedAt());
+            out.writeLong(job.getStartedAt());
+            out.writeLong(job.getCompletedAt());
+            List<JobStep> steps = job.getSortedSteps();
+            out.writeInt(steps.size());
+            for (JobStep step : steps) {
+                writeString(out, step.getName());
+                out.writeInt(step.getNumber());
+                out.writeByte(ordinal(step.getStatus()));
+                out.writeByte(ordinal(step.getConclusion()));
+                out.writeLong(step.getStartedAt());
+                out.writeLong(step.getCompletedAt());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<WorkflowJob> decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int jobCount = in.readInt();
+        List<WorkflowJob> jobs = new ArrayList<>(jobCount);
+        for (int i = 0; i < jobCount; i++) {
+            WorkflowJob job = new WorkflowJob();
+            job.setId(in.readLong());
+            job.setRunId(in.readLong());
+            job.setName(readString(in));
+            job.setStatus(fromOrdinal(Status.values(), in.readByte()));
+            job.setConclusion(fromOrdinal(Conclusion.values(), in.readByte()));
+            job.setCreatedAt(in.readLong());
+            job.setStartedAt(in.readLong());
+            job.setCompletedAt(in.readLong());
+            int stepCount = in.readInt();
+            List<JobStep> steps = new ArrayList<>(stepCount);
+            for (int s = 0; s < stepCount; s++) {
+                JobStep step = new JobStep();
+                step.setName(readString(in));
+                step.setNumber(in.readInt());
+                step.setStatus(fromOrdinal(Status.values(), in.readByte()));
+                step.setConclusion(fromOrdinal(Conclusion.values(), in.readByte()));
+                step.setStartedAt(in.readLong());
+                step.setCompletedAt(in.readLong());
+                steps.add(step);
+            }
+            job.setSteps(steps);
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? StringPool.SHARED.intern(in.readUTF()) : null;
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E fromOrdinal(E[] values, byte ordinal) throws IOException {
+        if (ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Unknown enum ordinal " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
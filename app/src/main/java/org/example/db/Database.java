@@ -1,28 +1,44 @@
 package org.example.db;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
 
+/**
+ * The one connection to {@code data/repos.db}, shared by every repository of the process. SQLite serializes
+ * writers anyway, so instead of a connection per call there is one long-lived connection in WAL mode, used
+ * by one caller at a time, with its prepared statements cached by SQL text.
+ */
 final class Database {
 
-    private static final String DB_URL = "jdbc:sqlite:data/repos.db";
+    static final Path DEFAULT_FILE = Path.of("data", "repos.db");
 
-    static {
-        init();
+    interface Work<T> {
+        T run(Connection connection) throws SQLException;
     }
 
-    private static void init() {
-        // 1. Get the parent directory from the URL (or hardcode it if it matches DB_URL)
-        java.io.File dbFile = new java.io.File("data/repos.db");
-        java.io.File directory = dbFile.getParentFile();
+    private static Path file = DEFAULT_FILE;
+    private static Connection connection;
+    private static final Map<String, PreparedStatement> statements = new HashMap<>();
 
-        // 2. Create the directory if it doesn't exist
-        if (directory != null && !directory.exists()) {
-            directory.mkdirs();
+    /**
+     * Closes the shared connection and reopens it on {@code path} when next used, e.g. a temporary file in tests.
+     */
+    static synchronized void useFile(Path path) throws SQLException {
+        if (connection != null) {
+            connection.close();
+            connection = null;
         }
+        statements.clear();
+        file = path;
+    }
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-
+    private static void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
             stmt.execute("""
                 CREATE TABLE IF NOT EXISTS connected_repos (
                     repo TEXT PRIMARY KEY,
@@ -31,12 +47,146 @@ final class Database {
                 )
             """);
 
-        } catch (SQLException e) {
-            throw new ExceptionInInitializerError(e);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS watched_runs (
+                    repo TEXT NOT NULL,
+                    run_id INTEGER NOT NULL,
+                    PRIMARY KEY (repo, run_id)
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS workflows (
+                    repo TEXT NOT NULL,
+                    workflow_id INTEGER NOT NULL,
+                    name TEXT NOT NULL,
+                    fetched_at INTEGER NOT NULL,
+                    PRIMARY KEY (repo, workflow_id)
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS tracking_snapshots (
+                    repo TEXT PRIMARY KEY,
+                    taken_at INTEGER NOT NULL,
+                    data BLOB NOT NULL
+                )
+            """);
+
+            // Run history, keyed by owner/repo like the change events it is recorded from
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS history_runs (
+                    repo TEXT NOT NULL,
+                    run_id INTEGER NOT NULL,
+                    run_attempt INTEGER NOT NULL,
+                    workflow_id INTEGER NOT NULL,
+                    workflow_name TEXT,
+                    name TEXT,
+                    head_branch TEXT,
+                    head_sha TEXT,
+                    status TEXT,
+                    conclusion TEXT,
+                    html_url TEXT,
+                    updated_at INTEGER NOT NULL,
+                    PRIMARY KEY (repo, run_id, run_attempt)
+                )
+            """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS history_runs_by_time ON history_runs (repo, updated_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS history_runs_by_workflow ON history_runs (repo, workflow_name, updated_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS history_runs_by_branch ON history_runs (repo, head_branch, conclusion, updated_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS history_runs_by_conclusion ON history_runs (repo, conclusion, updated_at)");
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS history_jobs (
+                    repo TEXT NOT NULL,
+                    job_id INTEGER NOT NULL,
+                    run_id INTEGER NOT NULL,
+                    run_attempt INTEGER NOT NULL,
+                    name TEXT,
+                    status TEXT,
+                    conclusion TEXT,
+                    updated_at INTEGER NOT NULL,
+                    PRIMARY KEY (repo, job_id)
+                )
+            """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS history_jobs_by_run ON history_jobs (repo, run_id, run_attempt)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS history_jobs_by_conclusion ON history_jobs (repo, conclusion, updated_at)");
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS history_steps (
+                    repo TEXT NOT NULL,
+                    job_id INTEGER NOT NULL,
+                    number INTEGER NOT NULL,
+                    name TEXT,
+                    status TEXT,
+                    conclusion TEXT,
+                    updated_at INTEGER NOT NULL,
+                    PRIMARY KEY (repo, job_id, number)
+                )
+            """);
         }
     }
 
-    public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+    /**
+     * Runs {@code work} with exclusive use of the shared connection, (re)opening it if needed.
+     */
+    static synchronized <T> T withConnection(Work<T> work) throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            statements.clear();
+            connection = open();
+        }
+        return work.run(connection);
+    }
+
+    /**
+     * Like {@link #withConnection}, inside one transaction that is rolled back if {@code work} fails.
+     */
+    static synchronized <T> T inTransaction(Work<T> work) throws SQLException {
+        return withConnection(conn -> {
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * The cached statement for {@code sql}; only valid inside {@link #withConnection} or {@link #inTransaction}.
+     */
+    static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = conn.prepareStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+        return statement;
+    }
+
+    private static Connection open() throws SQLException {
+        Path directory = file.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new SQLException("Could not create " + directory, e);
+        }
+        // Other processes may share the file; wait for their lock instead of failing
+        Properties properties = new Properties();
+        properties.setProperty("busy_timeout", "5000");
+        // Readers don't block the writer, and commits skip the fsync of every transaction
+        properties.setProperty("journal_mode", "WAL");
+        properties.setProperty("synchronous", "NORMAL");
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file, properties);
+        createSchema(conn);
+        return conn;
     }
 }
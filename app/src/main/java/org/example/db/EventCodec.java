@@ -0,0 +1,267 @@
+package org.example.db;
+
+import org.example.events.ChangeEvent;
+import org.example.events.ChangeEvent.JobStatusChanged;
+import org.example.events.ChangeEvent.RunCompleted;
+import org.example.events.ChangeEvent.RunQueued;
+import org.example.events.ChangeEvent.RunStarted;
+import org.example.events.ChangeEvent.StepStatusChanged;
+import org.example.events.FailureSummary;
+import org.example.events.JobInfo;
+import org.example.events.RunInfo;
+import org.example.events.StepInfo;
+import org.example.model.Conclusion;
+import org.example.model.Status;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary form of {@link ChangeEvent}s for the {@link EventJournal}, and the key that identifies a change
+ * so it is journaled only once.
+ */
+final class EventCodec {
+    private static final byte RUN_QUEUED = 0;
+    private static final byte RUN_STARTED = 1;
+    private static final byte RUN_COMPLETED = 2;
+    private static final byte JOB_STATUS_CHANGED = 3;
+    private static final byte STEP_STATUS_CHANGED = 4;
+
+    private static final Status[] STATUSES = Status.values();
+    private static final Conclusion[] CONCLUSIONS = Conclusion.values();
+
+    private EventCodec() {
+    }
+
+    /**
+     * Identity of the change, independent of when it was seen or what else the event carries: the run
+     * attempt for run events, the job or step together with the status it changed to otherwise. Never 0.
+     */
+    static long key(ChangeEvent event) {
+        RunInfo run = event.run();
+        long hash = mix(event.repository().hashCode(), kind(event));
+        if (event instanceof JobStatusChanged changed) {
+            hash = mix(hash, changed.job().id());
+            hash = mix(hash, state(changed.job().status(), changed.job().conclusion()));
+        } else if (event instanceof StepStatusChanged changed) {
+            hash = mix(hash, changed.job().id());
+            hash = mix(hash, changed.step().number());
+            hash = mix(hash, state(changed.step().status(), changed.step().conclusion()));
+        } else {
+            hash = mix(hash, run.id());
+            hash = mix(hash, run.runAttempt());
+            hash = mix(hash, state(run.status(), run.conclusion()));
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Keys of everything the event reports: its own, followed for a job change by those of the steps it lists.
+     */
+    static long[] keys(ChangeEvent event) {
+        if (!(event instanceof JobStatusChanged changed) || changed.steps().isEmpty()) {
+            return new long[]{key(event)};
+        }
+        long[] keys = new long[1 + changed.steps().size()];
+        keys[0] = key(event);
+        for (int i = 0; i < changed.steps().size(); i++) {
+            keys[i + 1] = key(new StepStatusChanged(changed.repository(), changed.run(), changed.job(), changed.steps().get(i)));
+        }
+        return keys;
+    }
+
+    static void encode(ChangeEvent event, DataOutputStream out) throws IOException {
+        out.writeByte(kind(event));
+        writeString(out, event.repository());
+        writeRun(out, event.run());
+        if (event instanceof RunCompleted completed) {
+            FailureSummary failures = completed.failures();
+            out.writeBoolean(failures != null);
+            if (failures != null) {
+                out.writeInt(failures.jobs().size());
+                for (FailureSummary.FailedJob failed : failures.jobs()) {
+                    writeJob(out, failed.job());
+                    writeSteps(out, failed.failedSteps());
+                    out.writeInt(failed.logExcerpt().size());
+                    for (String line : failed.logExcerpt()) {
+                        writeString(out, line);
+                    }
+                }
+            }
+        } else if (event instanceof JobStatusChanged changed) {
+            writeJob(out, changed.job());
+            writeSteps(out, changed.steps());
+        } else if (event instanceof StepStatusChanged changed) {
+            writeJob(out, changed.job());
+            writeStep(out, changed.step());
+        }
+    }
+
+    static ChangeEvent decode(ByteBuffer in) throws IOException {
+        byte kind = in.get();
+        String repository = readString(in);
+        RunInfo run = readRun(in);
+        switch (kind) {
+            case RUN_QUEUED:
+                return new RunQueued(repository, run);
+            case RUN_STARTED:
+                return new RunStarted(repository, run);
+            case RUN_COMPLETED:
+                FailureSummary failures = null;
+                if (in.get() != 0) {
+                    int count = in.getInt();
+                    List<FailureSummary.FailedJob> jobs = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        JobInfo job = readJob(in);
+                        List<StepInfo> steps = readSteps(in);
+                        int lines = in.getInt();
+                        List<String> excerpt = new ArrayList<>(lines);
+                        for (int j = 0; j < lines; j++) {
+                            excerpt.add(readString(in));
+                        }
+                        jobs.add(new FailureSummary.FailedJob(job, steps, excerpt));
+                    }
+                    failures = new FailureSummary(jobs);
+                }
+                return new RunCompleted(repository, run, failures);
+            case JOB_STATUS_CHANGED:
+                return new JobStatusChanged(repository, run, readJob(in), readSteps(in));
+            case STEP_STATUS_CHANGED:
+                return new StepStatusChanged(repository, run, readJob(in), readStep(in));
+            default:
+                throw new IOException("Unknown event kind " + kind);
+        }
+    }
+
+    private static byte kind(ChangeEvent event) {
+        if (event instanceof RunQueued) {
+            return RUN_QUEUED;
+        } else if (event instanceof RunStarted) {
+            return RUN_STARTED;
+        } else if (event instanceof RunCompleted) {
+            return RUN_COMPLETED;
+        } else if (event instanceof JobStatusChanged) {
+            return JOB_STATUS_CHANGED;
+        }
+        return STEP_STATUS_CHANGED;
+    }
+
+    private static long mix(long hash, long value) {
+        hash += value * 0xC2B2AE3D27D4EB4FL;
+        return Long.rotateLeft(hash, 31) * 0x9E3779B185EBCA87L;
+    }
+
+    private static long state(Status status, Conclusion conclusion) {
+        return (long) ordinal(status) << 8 | (ordinal(conclusion) & 0xFF);
+    }
+
+    private static void writeRun(DataOutputStream out, RunInfo run) throws IOException {
+        out.writeLong(run.id());
+        out.writeLong(run.workflowId());
+        writeString(out, run.workflowName());
+        writeString(out, run.name());
+        writeString(out, run.headBranch());
+        writeString(out, run.headSha());
+        out.writeByte(ordinal(run.status()));
+        out.writeByte(ordinal(run.conclusion()));
+        out.writeInt(run.runAttempt());
+        writeString(out, run.htmlUrl());
+        out.writeLong(run.timestamp());
+    }
+
+    private static RunInfo readRun(ByteBuffer in) throws IOException {
+        return new RunInfo(in.getLong(), in.getLong(), readString(in), readString(in), readString(in), readString(in),
+                fromOrdinal(STATUSES, in.get()), fromOrdinal(CONCLUSIONS, in.get()), in.getInt(), readString(in),
+                in.getLong());
+    }
+
+    private static void writeJob(DataOutputStream out, JobInfo job) throws IOException {
+        out.writeLong(job.id());
+        writeString(out, job.name());
+        out.writeByte(ordinal(job.status()));
+        out.writeByte(ordinal(job.conclusion()));
+        out.writeLong(job.timestamp());
+    }
+
+    private static JobInfo readJob(ByteBuffer in) throws IOException {
+        return new JobInfo(in.getLong(), readString(in), fromOrdinal(STATUSES, in.get()),
+                fromOrdinal(CONCLUSIONS, in.get()), in.getLong());
+    }
+
+    private static void writeSteps(DataOutputStream out, List<StepInfo> steps) throws IOException {
+        out.writeInt(steps.size());
+        for (StepInfo step : steps) {
+            writeStep(out, step);
+        }
+    }
+
+    private static List<StepInfo> readSteps(ByteBuffer in) throws IOException {
+        int count = in.getInt();
+        if (count == 0) {
+            return List.of();
+        }
+        List<StepInfo> steps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            steps.add(readStep(in));
+        }
+        return steps;
+    }
+
+    private static void writeStep(DataOutputStream out, StepInfo step) throws IOException {
+        out.writeInt(step.number());
+        writeString(out, step.name());
+        out.writeByte(ordinal(step.status()));
+        out.writeByte(ordinal(step.conclusion()));
+        out.writeLong(step.timestamp());
+    }
+
+    private static StepInfo readStep(ByteBuffer in) throws IOException {
+        return new StepInfo(in.getInt(), readString(in), fromOrdinal(STATUSES, in.get()),
+                fromOrdinal(CONCLUSIONS, in.get()), in.getLong());
+    }
+
+    // Length-prefixed UTF-8 rather than writeUTF, which is limited to 64 KB (log excerpt lines can be longer)
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        int length = in.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E fromOrdinal(E[] values, byte ordinal) throws IOException {
+        if (ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Unknown enum ordinal " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
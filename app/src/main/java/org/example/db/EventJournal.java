@@ -0,0 +1,492 @@
+package org.example.db;
+
+import org.example.events.ChangeEvent;
+import org.example.events.ChangeEvent.JobStatusChanged;
+import org.example.events.ChangeEvent.StepStatusChanged;
+import org.example.events.EventSink;
+import org.example.events.StepInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record of every detected change, in memory-mapped segment files under {@code data/journal/}.
+ * Each record is length-prefixed and CRC-checked and carries the keys of what it reports (a job change also
+ * covers the steps it lists), so a change that is detected again after a restart, or by a webhook and a
+ * poll, is journaled and logged only once.
+ * <p>
+ * A segment is named after the sequence number of its first record. When it is full it is forced to disk,
+ * its record offsets are written to an index file next to it, and the next segment is mapped; the oldest
+ * segments beyond the limit are deleted. On open, the last segment is scanned up to the first torn or
+ * corrupt record and appending continues there. Writes go to the page cache and survive a crash of the
+ * process; they are forced to disk when a segment is sealed and on close. Duplicates are recognized
+ * within the last two segments.
+ */
+public class EventJournal implements AutoCloseable {
+    public static final Path DEFAULT_DIRECTORY = Path.of("data", "journal");
+    public static final long DEFAULT_SEGMENT_BYTES = 16L << 20;
+    public static final int DEFAULT_MAX_SEGMENTS = 64;
+
+    private static final int MAGIC = 0x474A4E31; // "GJN1"
+    // Enums are stored by ordinal; bump when Status or Conclusion change
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_HEADER_BYTES = 8;
+    // Payload length and payload CRC; the payload starts with the count and the keys of the changes it holds
+    private static final int RECORD_HEADER_BYTES = 4 + 4;
+    // Replayed changes handed to the sink between two end-of-batch calls
+    private static final int REPLAY_BATCH = 4096;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    // Exposes its array so an encoded record is copied into the segment without another allocation
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    // The mapped file being appended to and the offsets of its records
+    private static final class Segment {
+        final long firstSequence;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int[] offsets = new int[1024];
+        int count;
+        int position = SEGMENT_HEADER_BYTES;
+
+        Segment(long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void addOffset(int offset) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+        }
+    }
+
+    // Open-addressing set of change keys; 0 marks a free slot and is never a key
+    private static final class KeySet {
+        private long[] slots = new long[1 << 12];
+        private int size;
+
+        boolean contains(long key) {
+            int mask = slots.length - 1;
+            for (int i = slot(key, mask); slots[i] != 0; i = (i + 1) & mask) {
+                if (slots[i] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(long key) {
+            if (size * 2 >= slots.length) {
+                long[] old = slots;
+                slots = new long[old.length * 2];
+                size = 0;
+                for (long existing : old) {
+                    if (existing != 0) {
+                        add(existing);
+                    }
+                }
+            }
+            int mask = slots.length - 1;
+            int i = slot(key, mask);
+            while (slots[i] != 0) {
+                if (slots[i] == key) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = key;
+            size++;
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) (key ^ key >>> 32) & mask;
+        }
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final RecordBuffer record = new RecordBuffer();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private KeySet keys = new KeySet();
+    private KeySet previousKeys = new KeySet();
+    private Segment segment;
+    private boolean closed;
+
+    public EventJournal() throws IOException {
+        this(DEFAULT_DIRECTORY, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * Opens the journal for appending.
+     *
+     * @throws IOException if it can't be opened, e.g. because another journal is appending to it
+     */
+    public EventJournal(Path directory, long segmentBytes, int maxSegments) throws IOException {
+        if (segmentBytes <= SEGMENT_HEADER_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(2, maxSegments);
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve("journal.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by this process
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IOException("Event journal " + directory + " is already in use");
+        }
+        this.lock = acquired;
+
+        List<Long> starts = segmentStarts(directory);
+        if (starts.isEmpty()) {
+            this.segment = createSegment(0);
+            return;
+        }
+        if (starts.size() > 1) {
+            readKeys(starts.get(starts.size() - 2), previousKeys);
+        }
+        this.segment = recoverSegment(starts.get(starts.size() - 1));
+    }
+
+    /**
+     * Appends what the journal doesn't hold yet of the change. That is the whole change, or nothing if it
+     * was journaled before; a job change that was journaled before may still report steps that weren't,
+     * which are then journaled and returned as step changes of their own.
+     *
+     * @return the changes to log, empty if all of it was logged before
+     * @throws UncheckedIOException if the journal is closed or a new segment can't be created
+     */
+    public synchronized List<ChangeEvent> append(ChangeEvent event) {
+        if (closed) {
+            throw new UncheckedIOException(new IOException("Event journal is closed"));
+        }
+        try {
+            if (!isKnown(EventCodec.key(event))) {
+                write(event, EventCodec.keys(event));
+                return List.of(event);
+            }
+            if (!(event instanceof JobStatusChanged changed) || changed.steps().isEmpty()) {
+                return List.of();
+            }
+            List<ChangeEvent> unlogged = new ArrayList<>();
+            for (StepInfo step : changed.steps()) {
+                StepStatusChanged stepChanged = new StepStatusChanged(changed.repository(), changed.run(), changed.job(), step);
+                long key = EventCodec.key(stepChanged);
+                if (!isKnown(key)) {
+                    write(stepChanged, new long[]{key});
+                    unlogged.add(stepChanged);
+                }
+            }
+            return unlogged;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether the change was journaled before, so it would not be logged again.
+     */
+    public synchronized boolean contains(ChangeEvent event) {
+        return isKnown(EventCodec.key(event));
+    }
+
+    /**
+     * Whether nothing was ever appended, e.g. because the journal was just created.
+     */
+    public synchronized boolean isEmpty() {
+        return nextSequence() == 0;
+    }
+
+    /**
+     * Sequence number the next appended change will get.
+     */
+    public synchronized long nextSequence() {
+        return segment.firstSequence + segment.count;
+    }
+
+    /**
+     * Forces the last segment to disk, writes its index and releases the journal.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            seal(segment);
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            System.err.println("Closing event journal failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hands every journaled change from {@code fromSequence} on to the sink, in order, stopping at the first
+     * torn or corrupt record. Reads a journal that another process may be appending to.
+     *
+     * @return the number of changes replayed
+     */
+    public static long replay(Path directory, long fromSequence, EventSink sink) throws Exception {
+        CRC32 crc = new CRC32();
+        List<Long> starts = segmentStarts(directory);
+        long replayed = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            long firstSequence = starts.get(i);
+            if (i + 1 < starts.size() && starts.get(i + 1) <= fromSequence) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(directory, firstSequence), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                checkHeader(buffer, firstSequence);
+                long sequence = firstSequence;
+                int position = SEGMENT_HEADER_BYTES;
+                if (fromSequence > firstSequence) {
+                    int[] offsets = readIndex(directory, firstSequence);
+                    int skipped = (int) Math.min(fromSequence - firstSequence, Integer.MAX_VALUE);
+                    if (offsets != null && skipped < offsets.length) {
+                        position = offsets[skipped];
+                        sequence = fromSequence;
+                    }
+                }
+
+                int length;
+                while ((length = validLength(buffer, position, crc)) >= 0) {
+                    if (sequence >= fromSequence) {
+                        int keysBytes = 4 + buffer.getInt(position + RECORD_HEADER_BYTES) * 8;
+                        sink.accept(EventCodec.decode(
+                                buffer.slice(position + RECORD_HEADER_BYTES + keysBytes, length - keysBytes)));
+                        if (++replayed % REPLAY_BATCH == 0) {
+                            sink.endOfBatch();
+                        }
+                    }
+                    position += RECORD_HEADER_BYTES + length;
+                    sequence++;
+                }
+            }
+        }
+        sink.endOfBatch();
+        return replayed;
+    }
+
+    private boolean isKnown(long key) {
+        return keys.contains(key) || previousKeys.contains(key);
+    }
+
+    private void write(ChangeEvent event, long[] eventKeys) throws IOException {
+        record.reset();
+        recordOut.writeInt(eventKeys.length);
+        for (long key : eventKeys) {
+            recordOut.writeLong(key);
+        }
+        EventCodec.encode(event, recordOut);
+        int length = record.size();
+        // Room for the record and the end marker after it
+        if (segment.position + RECORD_HEADER_BYTES + length + 4 > segmentBytes) {
+            if (SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES + length + 4 > segmentBytes) {
+                throw new IOException("Change of " + length + " bytes does not fit in a journal segment");
+            }
+            roll();
+        }
+        crc.reset();
+        crc.update(record.array(), 0, length);
+
+        int position = segment.position;
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.put(position + RECORD_HEADER_BYTES, record.array(), 0, length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position + RECORD_HEADER_BYTES + length, 0);
+        // The length goes last: until it is set, readers see the end of the journal here
+        buffer.putInt(position, length);
+
+        segment.addOffset(position);
+        segment.position = position + RECORD_HEADER_BYTES + length;
+        for (long key : eventKeys) {
+            keys.add(key);
+        }
+    }
+
+    private void roll() throws IOException {
+        Segment sealed = segment;
+        seal(sealed);
+        previousKeys = keys;
+        keys = new KeySet();
+        segment = createSegment(sealed.firstSequence + sealed.count);
+
+        List<Long> starts = segmentStarts(directory);
+        for (int i = 0; i < starts.size() - maxSegments; i++) {
+            Files.deleteIfExists(segmentPath(directory, starts.get(i)));
+            Files.deleteIfExists(indexPath(directory, starts.get(i)));
+        }
+    }
+
+    private void seal(Segment sealed) throws IOException {
+        sealed.buffer.force();
+        ByteBuffer index = ByteBuffer.allocate(4 + sealed.count * 4);
+        index.putInt(sealed.count);
+        index.asIntBuffer().put(sealed.offsets, 0, sealed.count);
+        Path path = indexPath(directory, sealed.firstSequence);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (index.hasRemaining()) {
+                channel.write(index);
+            }
+        }
+        sealed.channel.close();
+    }
+
+    private Segment createSegment(long firstSequence) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(directory, firstSequence),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        return new Segment(firstSequence, channel, buffer);
+    }
+
+    // Maps the last segment for appending after its last intact record; its index is rebuilt by the scan
+    private Segment recoverSegment(long firstSequence) throws IOException {
+        Files.deleteIfExists(indexPath(directory, firstSequence));
+        FileChannel channel = FileChannel.open(segmentPath(directory, firstSequence),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentBytes, channel.size()));
+        if (buffer.getLong(0) == 0) {
+            // Created just before a crash
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+        }
+        checkHeader(buffer, firstSequence);
+        Segment recovered = new Segment(firstSequence, channel, buffer);
+        int length;
+        while ((length = validLength(buffer, recovered.position, crc)) >= 0) {
+            addKeys(buffer, recovered.position, keys);
+            recovered.addOffset(recovered.position);
+            recovered.position += RECORD_HEADER_BYTES + length;
+        }
+        // Cut off a torn record so readers stop here until the next append
+        if (recovered.position + 4 <= buffer.limit()) {
+            buffer.putInt(recovered.position, 0);
+        }
+        return recovered;
+    }
+
+    private void readKeys(long firstSequence, KeySet into) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(directory, firstSequence), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buffer, firstSequence);
+            int position = SEGMENT_HEADER_BYTES;
+            int length;
+            while ((length = validLength(buffer, position, crc)) >= 0) {
+                addKeys(buffer, position, into);
+                position += RECORD_HEADER_BYTES + length;
+            }
+        }
+    }
+
+    private static void addKeys(ByteBuffer buffer, int position, KeySet into) {
+        int count = buffer.getInt(position + RECORD_HEADER_BYTES);
+        for (int i = 0; i < count; i++) {
+            into.add(buffer.getLong(position + RECORD_HEADER_BYTES + 4 + i * 8));
+        }
+    }
+
+    // Payload length of an intact record at the position, or -1 at the end marker or a torn or corrupt record
+    private static int validLength(ByteBuffer buffer, int position, CRC32 crc) {
+        if (position > buffer.limit() - RECORD_HEADER_BYTES) {
+            return -1;
+        }
+        int length = buffer.getInt(position);
+        if (length < 4 || length > buffer.limit() - position - RECORD_HEADER_BYTES) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(buffer.slice(position + RECORD_HEADER_BYTES, length));
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+            return -1;
+        }
+        int keyCount = buffer.getInt(position + RECORD_HEADER_BYTES);
+        return keyCount >= 0 && keyCount <= (length - 4) / 8 ? length : -1;
+    }
+
+    private static void checkHeader(ByteBuffer buffer, long firstSequence) throws IOException {
+        if (buffer.limit() < SEGMENT_HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported journal segment " + firstSequence);
+        }
+    }
+
+    // Record offsets of a sealed segment, or null if it has no index
+    private static int[] readIndex(Path directory, long firstSequence) throws IOException {
+        Path path = indexPath(directory, firstSequence);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(path));
+        int count = index.getInt();
+        if (count < 0 || count > index.remaining() / 4) {
+            return null;
+        }
+        int[] offsets = new int[count];
+        index.asIntBuffer().get(offsets);
+        return offsets;
+    }
+
+    private static List<Long> segmentStarts(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.matches("\\d+\\" + SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+    }
+
+    private static Path indexPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d", firstSequence) + INDEX_SUFFIX);
+    }
+}
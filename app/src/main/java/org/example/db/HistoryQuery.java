@@ -0,0 +1,19 @@
+package org.example.db;
+
+import org.example.model.Conclusion;
+
+/**
+ * Filter over the stored run history. Null filters match every run.
+ *
+ * @param repository {@code owner/repo}
+ * @param since      earliest last update of a run, in epoch millis
+ * @param limit      maximum number of runs returned, newest first
+ */
+public record HistoryQuery(
+        String repository,
+        String workflowName,
+        String branch,
+        Conclusion conclusion,
+        long since,
+        int limit
+) {}
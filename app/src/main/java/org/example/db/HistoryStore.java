@@ -0,0 +1,268 @@
+package org.example.db;
+
+import org.example.events.ChangeEvent;
+import org.example.events.ChangeEvent.JobStatusChanged;
+import org.example.events.ChangeEvent.RunCompleted;
+import org.example.events.ChangeEvent.StepStatusChanged;
+import org.example.events.EventSink;
+import org.example.events.FailureSummary;
+import org.example.events.JobInfo;
+import org.example.events.RunInfo;
+import org.example.events.StepInfo;
+import org.example.model.Conclusion;
+import org.example.model.Status;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the history of runs, jobs and steps in the {@code history_*} tables so it can be queried after
+ * it was printed. As an {@link EventSink} it runs on the dispatcher's thread, never on the poll loop:
+ * the rows of a drained batch are collapsed to the latest state per run, job and step and written with
+ * multi-row inserts in one transaction. A stored row is only replaced by a row updated at the same time or
+ * later, so a late event can't roll it back. A batch that fails to commit is retried with the next one.
+ */
+public class HistoryStore implements EventSink {
+    // 12 columns per run row keeps a full insert under SQLite's default limit of 999 parameters
+    private static final int ROWS_PER_INSERT = 64;
+
+    private static final Table RUNS = new Table("history_runs", 3, "repo, run_id, run_attempt, workflow_id, workflow_name,"
+            + " name, head_branch, head_sha, status, conclusion, html_url, updated_at");
+    private static final Table JOBS = new Table("history_jobs", 2,
+            "repo, job_id, run_id, run_attempt, name, status, conclusion, updated_at");
+    private static final Table STEPS = new Table("history_steps", 3,
+            "repo, job_id, number, name, status, conclusion, updated_at");
+
+    private record RunKey(String repository, long runId, int runAttempt) {}
+
+    private record JobKey(String repository, long jobId) {}
+
+    private record JobRow(RunInfo run, JobInfo job) {}
+
+    private record StepKey(String repository, long jobId, int number) {}
+
+    private interface RowBinder<K, V> {
+        // Binds one row starting at parameter index and returns the index after it
+        int bind(PreparedStatement statement, int index, K key, V row) throws SQLException;
+    }
+
+    // Upserts of 1 to ROWS_PER_INSERT rows, built on first use. The first keyColumns columns are the primary key.
+    private static final class Table {
+        private final String name;
+        private final String columns;
+        private final String row;
+        private final String onConflict;
+        private final String[] inserts = new String[ROWS_PER_INSERT + 1];
+
+        Table(String name, int keyColumns, String columns) {
+            String[] names = columns.split(",\\s*");
+            this.name = name;
+            this.columns = columns;
+            this.row = "(" + "?, ".repeat(names.length - 1) + "?)";
+
+            StringBuilder update = new StringBuilder(" ON CONFLICT (")
+                    .append(String.join(", ", Arrays.copyOf(names, keyColumns))).append(") DO UPDATE SET ");
+            for (int i = keyColumns; i < names.length; i++) {
+                update.append(i > keyColumns ? ", " : "").append(names[i]).append(" = excluded.").append(names[i]);
+            }
+            this.onConflict = update.append(" WHERE excluded.updated_at >= ").append(name).append(".updated_at").toString();
+        }
+
+        String insert(int rows) {
+            String sql = inserts[rows];
+            if (sql == null) {
+                StringBuilder builder = new StringBuilder("INSERT INTO ").append(name)
+                        .append(" (").append(columns).append(") VALUES ").append(row);
+                for (int i = 1; i < rows; i++) {
+                    builder.append(", ").append(row);
+                }
+                sql = builder.append(onConflict).toString();
+                inserts[rows] = sql;
+            }
+            return sql;
+        }
+    }
+
+    private final Map<RunKey, RunInfo> runs = new LinkedHashMap<>();
+    private final Map<JobKey, JobRow> jobs = new LinkedHashMap<>();
+    private final Map<StepKey, StepInfo> steps = new LinkedHashMap<>();
+
+    @Override
+    public void accept(ChangeEvent event) {
+        String repository = event.repository();
+        RunInfo run = event.run();
+        runs.merge(new RunKey(repository, run.id(), run.runAttempt()), run,
+                (stored, latest) -> latest.timestamp() >= stored.timestamp() ? latest : stored);
+
+        if (event instanceof JobStatusChanged changed) {
+            addJob(repository, run, changed.job());
+            for (StepInfo step : changed.steps()) {
+                addStep(repository, changed.job(), step);
+            }
+        } else if (event instanceof StepStatusChanged changed) {
+            addJob(repository, run, changed.job());
+            addStep(repository, changed.job(), changed.step());
+        } else if (event instanceof RunCompleted completed && completed.failures() != null) {
+            for (FailureSummary.FailedJob failed : completed.failures().jobs()) {
+                addJob(repository, run, failed.job());
+                for (StepInfo step : failed.failedSteps()) {
+                    addStep(repository, failed.job(), step);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void endOfBatch() throws SQLException {
+        if (runs.isEmpty()) {
+            return;
+        }
+        Database.inTransaction(conn -> {
+            insert(conn, RUNS, runs, HistoryStore::bindRun);
+            insert(conn, JOBS, jobs, HistoryStore::bindJob);
+            insert(conn, STEPS, steps, HistoryStore::bindStep);
+            return null;
+        });
+        runs.clear();
+        jobs.clear();
+        steps.clear();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        endOfBatch();
+    }
+
+    /**
+     * Runs matching the query, most recently updated first. Only sees batches that were committed.
+     */
+    public List<RunInfo> findRuns(HistoryQuery query) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT run_id, run_attempt, workflow_id, workflow_name, name, head_branch, head_sha, status, conclusion,
+                   html_url, updated_at
+            FROM history_runs WHERE repo = ? AND updated_at >= ?""");
+        if (query.workflowName() != null) {
+            sql.append(" AND workflow_name = ?");
+        }
+        if (query.branch() != null) {
+            sql.append(" AND head_branch = ?");
+        }
+        if (query.conclusion() != null) {
+            sql.append(" AND conclusion = ?");
+        }
+        sql.append(" ORDER BY updated_at DESC LIMIT ?");
+
+        try {
+            return Database.withConnection(conn -> {
+                PreparedStatement ps = Database.prepare(conn, sql.toString());
+                int index = 1;
+                ps.setString(index++, query.repository());
+                ps.setLong(index++, query.since());
+                if (query.workflowName() != null) {
+                    ps.setString(index++, query.workflowName());
+                }
+                if (query.branch() != null) {
+                    ps.setString(index++, query.branch());
+                }
+                if (query.conclusion() != null) {
+                    ps.setString(index++, query.conclusion().name());
+                }
+                ps.setInt(index, query.limit());
+
+                List<RunInfo> found = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String status = rs.getString("status");
+                        String conclusion = rs.getString("conclusion");
+                        found.add(new RunInfo(rs.getLong("run_id"), rs.getLong("workflow_id"),
+                                rs.getString("workflow_name"), rs.getString("name"), rs.getString("head_branch"),
+                                rs.getString("head_sha"), status == null ? null : Status.valueOf(status),
+                                conclusion == null ? null : Conclusion.valueOf(conclusion), rs.getInt("run_attempt"),
+                                rs.getString("html_url"), rs.getLong("updated_at")));
+                    }
+                }
+                return found;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error querying run history of " + query.repository(), e);
+        }
+    }
+
+    private void addJob(String repository, RunInfo run, JobInfo job) {
+        jobs.merge(new JobKey(repository, job.id()), new JobRow(run, job),
+                (stored, latest) -> latest.job().timestamp() >= stored.job().timestamp() ? latest : stored);
+    }
+
+    private void addStep(String repository, JobInfo job, StepInfo step) {
+        steps.merge(new StepKey(repository, job.id(), step.number()), step,
+                (stored, latest) -> latest.timestamp() >= stored.timestamp() ? latest : stored);
+    }
+
+    private static <K, V> void insert(Connection conn, Table table, Map<K, V> rows, RowBinder<K, V> binder)
+            throws SQLException {
+        Iterator<Map.Entry<K, V>> iterator = rows.entrySet().iterator();
+        int remaining = rows.size();
+        while (remaining > 0) {
+            int count = Math.min(remaining, ROWS_PER_INSERT);
+            PreparedStatement insert = Database.prepare(conn, table.insert(count));
+            int index = 1;
+            for (int i = 0; i < count; i++) {
+                Map.Entry<K, V> entry = iterator.next();
+                index = binder.bind(insert, index, entry.getKey(), entry.getValue());
+            }
+            insert.executeUpdate();
+            remaining -= count;
+        }
+    }
+
+    private static int bindRun(PreparedStatement ps, int index, RunKey key, RunInfo run) throws SQLException {
+        ps.setString(index++, key.repository());
+        ps.setLong(index++, run.id());
+        ps.setInt(index++, run.runAttempt());
+        ps.setLong(index++, run.workflowId());
+        ps.setString(index++, run.workflowName());
+        ps.setString(index++, run.name());
+        ps.setString(index++, run.headBranch());
+        ps.setString(index++, run.headSha());
+        ps.setString(index++, name(run.status()));
+        ps.setString(index++, name(run.conclusion()));
+        ps.setString(index++, run.htmlUrl());
+        ps.setLong(index++, run.timestamp());
+        return index;
+    }
+
+    private static int bindJob(PreparedStatement ps, int index, JobKey key, JobRow row) throws SQLException {
+        ps.setString(index++, key.repository());
+        ps.setLong(index++, row.job().id());
+        ps.setLong(index++, row.run().id());
+        ps.setInt(index++, row.run().runAttempt());
+        ps.setString(index++, row.job().name());
+        ps.setString(index++, name(row.job().status()));
+        ps.setString(index++, name(row.job().conclusion()));
+        ps.setLong(index++, row.job().timestamp());
+        return index;
+    }
+
+    private static int bindStep(PreparedStatement ps, int index, StepKey key, StepInfo step) throws SQLException {
+        ps.setString(index++, key.repository());
+        ps.setLong(index++, key.jobId());
+        ps.setInt(index++, step.number());
+        ps.setString(index++, step.name());
+        ps.setString(index++, name(step.status()));
+        ps.setString(index++, name(step.conclusion()));
+        ps.setLong(index++, step.timestamp());
+        return index;
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+}
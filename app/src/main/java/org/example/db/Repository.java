@@ -1,42 +1,126 @@
 package org.example.db;
 
-import java.sql.Connection;
+import org.example.model.Workflow;
+
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Stored state of the connected repositories. The per-poll writes (timestamps, watched runs and the
+ * tracking snapshot) are write-behind: a write equal to the last one for that repository is dropped, and
+ * the rest are buffered and committed together in one transaction per flush interval. Reads of that
+ * state, {@link #flush()} and {@link #close()} write the buffer out first.
+ */
 public class Repository {
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
 
-    public boolean exists(String repo, String owner) {
-        String sql = "SELECT 1 FROM connected_repos WHERE repo = ?";
+    private static final String INSERT_WORKFLOW =
+            "INSERT OR REPLACE INTO workflows (repo, workflow_id, name, fetched_at) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_TIMESTAMPS =
+            "UPDATE connected_repos SET last_not_completed_workflow_run_timestamp = ?, last_logged_item_timestamp = ? WHERE repo = ?";
+    private static final String DELETE_WATCHED_RUNS = "DELETE FROM watched_runs WHERE repo = ?";
+    private static final String INSERT_WATCHED_RUN = "INSERT INTO watched_runs (repo, run_id) VALUES (?, ?)";
+    private static final String INSERT_SNAPSHOT =
+            "INSERT OR REPLACE INTO tracking_snapshots (repo, taken_at, data) VALUES (?, ?, ?)";
+
+    private record Timestamps(String lastNotCompletedWorkflowRun, String lastLoggedItem) {}
+
+    private record Snapshot(long takenAt, byte[] data) {}
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    private final long flushIntervalMillis;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "repository-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-            ps.setString(1, repo + "/" + owner);
-            ResultSet rs = ps.executeQuery();
-            return rs.next();
+    // Last value written or buffered per repository key, to drop writes that change nothing
+    private final Map<String, Timestamps> writtenTimestamps = new HashMap<>();
+    private final Map<String, List<Long>> writtenWatchedRuns = new HashMap<>();
+    private final Map<String, byte[]> writtenSnapshots = new HashMap<>();
+    private Map<String, Timestamps> pendingTimestamps = new LinkedHashMap<>();
+    private Map<String, List<Long>> pendingWatchedRuns = new LinkedHashMap<>();
+    private Map<String, Snapshot> pendingSnapshots = new LinkedHashMap<>();
+    private boolean flushScheduled;
+    // Held from taking the buffer until its transaction ends, so a read that flushes first waits for a
+    // concurrent flush to commit instead of reading the rows it is about to replace
+    private final Object flushLock = new Object();
 
+    public Repository() {
+        this(DEFAULT_FLUSH_INTERVAL);
+    }
+
+    public Repository(Duration flushInterval) {
+        this.flushIntervalMillis = flushInterval.toMillis();
+    }
+
+    public boolean exists(String repo, String owner) {
+        String sql = "SELECT 1 FROM connected_repos WHERE repo = ?";
+
+        try {
+            return Database.withConnection(conn -> {
+                PreparedStatement ps = Database.prepare(conn, sql);
+                ps.setString(1, repo + "/" + owner);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next();
+                }
+            });
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Returns every connected repository as {@code owner/repo}.
+     */
+    public List<String> getConnectedRepos() {
+        String sql = "SELECT repo FROM connected_repos ORDER BY repo";
+
+        try {
+            return Database.withConnection(conn -> {
+                List<String> repos = new ArrayList<>();
+                try (ResultSet rs = Database.prepare(conn, sql).executeQuery()) {
+                    while (rs.next()) {
+                        // Stored as repo/owner
+                        String[] parts = rs.getString("repo").split("/", 2);
+                        repos.add(parts[1] + "/" + parts[0]);
+                    }
+                }
+                return repos;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching connected repos", e);
+        }
+    }
+
     public void add(String repo, String owner) {
         String sql = """
             INSERT INTO connected_repos (repo, last_not_completed_workflow_run_timestamp, last_logged_item_timestamp)
             VALUES (?, ?, ?)
         """;
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, repo + "/" + owner);
-            ps.setString(2, OffsetDateTime.now().toString());
-            ps.setString(3, OffsetDateTime.MIN.toString());
-            ps.executeUpdate();
-
+        try {
+            Database.withConnection(conn -> {
+                PreparedStatement ps = Database.prepare(conn, sql);
+                ps.setString(1, repo + "/" + owner);
+                ps.setString(2, OffsetDateTime.now().toString());
+                ps.setString(3, OffsetDateTime.MIN.toString());
+                return ps.executeUpdate();
+            });
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException(e);
@@ -46,19 +130,23 @@ public class Repository {
     public RepoMetadata getConnectedAt(String repo, String owner) {
         String sql = "SELECT last_not_completed_workflow_run_timestamp, last_logged_item_timestamp FROM connected_repos WHERE repo = ?";
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, repo + "/" + owner);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return new RepoMetadata(
-                            rs.getString("last_not_completed_workflow_run_timestamp"),
-                            rs.getString("last_logged_item_timestamp")
-                    );
+        try {
+            flush();
+            RepoMetadata metadata = Database.withConnection(conn -> {
+                PreparedStatement ps = Database.prepare(conn, sql);
+                ps.setString(1, repo + "/" + owner);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next()
+                            ? new RepoMetadata(
+                                    rs.getString("last_not_completed_workflow_run_timestamp"),
+                                    rs.getString("last_logged_item_timestamp"))
+                            : null;
                 }
+            });
+            if (metadata == null) {
+                throw new RuntimeException("Repo not found: " + repo);
             }
-            throw new RuntimeException("Repo not found: " + repo);
+            return metadata;
 
         } catch (Exception e) {
             throw new RuntimeException("Error fetching timestamp for repo: " + repo, e);
@@ -66,19 +154,238 @@ public class Repository {
     }
 
     public void updateTimestamp(String repo, String owner, OffsetDateTime lastNotCompletedWorkflowRunTimestamp, OffsetDateTime lastPolled) {
-        String sql = "UPDATE connected_repos SET last_not_completed_workflow_run_timestamp = ?, last_logged_item_timestamp = ? WHERE repo = ?";
+        String key = repo + "/" + owner;
+        Timestamps timestamps = new Timestamps(lastNotCompletedWorkflowRunTimestamp.toString(), lastPolled.toString());
+        synchronized (this) {
+            if (timestamps.equals(writtenTimestamps.put(key, timestamps))) {
+                return;
+            }
+            pendingTimestamps.put(key, timestamps);
+            scheduleFlush();
+        }
+    }
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    public List<Long> getWatchedRuns(String repo, String owner) {
+        String sql = "SELECT run_id FROM watched_runs WHERE repo = ? ORDER BY run_id";
 
-            ps.setString(1, lastNotCompletedWorkflowRunTimestamp.toString());
-            ps.setString(2, lastPolled.toString());
-            ps.setString(3, repo + "/" + owner);
+        try {
+            flush();
+            return Database.withConnection(conn -> {
+                PreparedStatement ps = Database.prepare(conn, sql);
+                ps.setString(1, repo + "/" + owner);
+                List<Long> runIds = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        runIds.add(rs.getLong("run_id"));
+                    }
+                }
+                return runIds;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching watched runs for repo: " + repo, e);
+        }
+    }
 
-            ps.executeUpdate();
+    public void setWatchedRuns(String repo, String owner, Collection<Long> runIds) {
+        String key = repo + "/" + owner;
+        List<Long> watched = List.copyOf(runIds);
+        synchronized (this) {
+            if (watched.equals(writtenWatchedRuns.put(key, watched))) {
+                return;
+            }
+            pendingWatchedRuns.put(key, watched);
+            scheduleFlush();
+        }
+    }
 
+    /**
+     * The tracking snapshot stored for the repository, or null if there is none.
+     */
+    public byte[] getSnapshot(String repo, String owner) {
+        String sql = "SELECT data FROM tracking_snapshots WHERE repo = ?";
+
+        try {
+            flush();
+            return Database.withConnection(conn -> {
+                PreparedStatement ps = Database.prepare(conn, sql);
+                ps.setString(1, repo + "/" + owner);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getBytes("data") : null;
+                }
+            });
         } catch (Exception e) {
-            throw new RuntimeException("Error updating timestamp for repo: " + repo, e);
+            throw new RuntimeException("Error fetching tracking snapshot for repo: " + repo, e);
+        }
+    }
+
+    /**
+     * Replaces the stored tracking snapshot of the repository; only the latest one per flush is written.
+     */
+    public void saveSnapshot(String repo, String owner, byte[] data) {
+        String key = repo + "/" + owner;
+        synchronized (this) {
+            if (Arrays.equals(data, writtenSnapshots.put(key, data))) {
+                return;
+            }
+            pendingSnapshots.put(key, new Snapshot(System.currentTimeMillis(), data));
+            scheduleFlush();
         }
     }
+
+    public List<StoredWorkflow> getWorkflows(String repo, String owner) {
+        String sql = "SELECT workflow_id, name, fetched_at FROM workflows WHERE repo = ?";
+
+        try {
+            return Database.withConnection(conn -> {
+                PreparedStatement ps = Database.prepare(conn, sql);
+                ps.setString(1, repo + "/" + owner);
+                List<StoredWorkflow> workflows = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Workflow workflow = new Workflow();
+                        workflow.setId(rs.getLong("workflow_id"));
+                        workflow.setName(rs.getString("name"));
+                        workflows.add(new StoredWorkflow(workflow, rs.getLong("fetched_at")));
+                    }
+                }
+                return workflows;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching workflows for repo: " + repo, e);
+        }
+    }
+
+    /**
+     * Replaces the stored workflows of a repository with a freshly fetched listing.
+     */
+    public void setWorkflows(String repo, String owner, Collection<Workflow> workflows, long fetchedAt) {
+        String key = repo + "/" + owner;
+
+        try {
+            Database.inTransaction(conn -> {
+                PreparedStatement delete = Database.prepare(conn, "DELETE FROM workflows WHERE repo = ?");
+                delete.setString(1, key);
+                delete.executeUpdate();
+
+                PreparedStatement insert = Database.prepare(conn, INSERT_WORKFLOW);
+                for (Workflow workflow : workflows) {
+                    bindWorkflow(insert, key, workflow, fetchedAt);
+                    insert.addBatch();
+                }
+                return insert.executeBatch();
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error updating workflows for repo: " + repo, e);
+        }
+    }
+
+    public void saveWorkflow(String repo, String owner, Workflow workflow, long fetchedAt) {
+        try {
+            Database.withConnection(conn -> {
+                PreparedStatement ps = Database.prepare(conn, INSERT_WORKFLOW);
+                bindWorkflow(ps, repo + "/" + owner, workflow, fetchedAt);
+                return ps.executeUpdate();
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error saving workflow for repo: " + repo, e);
+        }
+    }
+
+    /**
+     * Commits the buffered writes of every repository in one transaction.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, Timestamps> timestamps;
+            Map<String, List<Long>> watchedRuns;
+            Map<String, Snapshot> snapshots;
+            synchronized (this) {
+                flushScheduled = false;
+                if (pendingTimestamps.isEmpty() && pendingWatchedRuns.isEmpty() && pendingSnapshots.isEmpty()) {
+                    return;
+                }
+                timestamps = pendingTimestamps;
+                watchedRuns = pendingWatchedRuns;
+                snapshots = pendingSnapshots;
+                pendingTimestamps = new LinkedHashMap<>();
+                pendingWatchedRuns = new LinkedHashMap<>();
+                pendingSnapshots = new LinkedHashMap<>();
+            }
+
+            try {
+                Database.inTransaction(conn -> {
+                    PreparedStatement update = Database.prepare(conn, UPDATE_TIMESTAMPS);
+                    for (Map.Entry<String, Timestamps> entry : timestamps.entrySet()) {
+                        update.setString(1, entry.getValue().lastNotCompletedWorkflowRun());
+                        update.setString(2, entry.getValue().lastLoggedItem());
+                        update.setString(3, entry.getKey());
+                        update.addBatch();
+                    }
+                    update.executeBatch();
+
+                    PreparedStatement delete = Database.prepare(conn, DELETE_WATCHED_RUNS);
+                    PreparedStatement insert = Database.prepare(conn, INSERT_WATCHED_RUN);
+                    for (Map.Entry<String, List<Long>> entry : watchedRuns.entrySet()) {
+                        delete.setString(1, entry.getKey());
+                        delete.executeUpdate();
+                        for (Long runId : entry.getValue()) {
+                            insert.setString(1, entry.getKey());
+                            insert.setLong(2, runId);
+                            insert.addBatch();
+                        }
+                    }
+                    insert.executeBatch();
+
+                    PreparedStatement snapshot = Database.prepare(conn, INSERT_SNAPSHOT);
+                    for (Map.Entry<String, Snapshot> entry : snapshots.entrySet()) {
+                        snapshot.setString(1, entry.getKey());
+                        snapshot.setLong(2, entry.getValue().takenAt());
+                        snapshot.setBytes(3, entry.getValue().data());
+                        snapshot.addBatch();
+                    }
+                    return snapshot.executeBatch();
+                });
+            } catch (SQLException e) {
+                // Keep the writes for the next flush unless a newer value replaced them meanwhile
+                synchronized (this) {
+                    timestamps.forEach(pendingTimestamps::putIfAbsent);
+                    watchedRuns.forEach(pendingWatchedRuns::putIfAbsent);
+                    snapshots.forEach(pendingSnapshots::putIfAbsent);
+                    scheduleFlush();
+                }
+                throw new RuntimeException("Error writing repository state", e);
+            }
+        }
+    }
+
+    /**
+     * Writes out the buffer and stops the background flushes.
+     */
+    public void close() {
+        flusher.shutdown();
+        flush();
+    }
+
+    // Caller holds the monitor
+    private void scheduleFlush() {
+        if (!flushScheduled && !flusher.isShutdown()) {
+            flushScheduled = true;
+            flusher.schedule(this::flushInBackground, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() + ": " + e.getCause());
+        }
+    }
+
+    private static void bindWorkflow(PreparedStatement ps, String key, Workflow workflow, long fetchedAt) throws SQLException {
+        ps.setString(1, key);
+        ps.setLong(2, workflow.getId());
+        ps.setString(3, workflow.getName());
+        ps.setLong(4, fetchedAt);
+    }
 }
@@ -0,0 +1,5 @@
+package org.example.db;
+
+import org.example.model.Workflow;
+
+public record StoredWorkflow(Workflow workflow, long fetchedAt) {}
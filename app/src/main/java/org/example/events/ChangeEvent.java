@@ -0,0 +1,68 @@
+package org.example.events;
+
+import java.util.List;
+
+/**
+ * A change detected in the workflow runs of one repository. Detection publishes events to an
+ * {@link EventDispatcher}; how they are shown or stored is up to the {@link EventSink}s.
+ */
+public sealed interface ChangeEvent {
+
+    /**
+     * {@code owner/repo} the change happened in.
+     */
+    String repository();
+
+    RunInfo run();
+
+    /**
+     * Latest time the event reports; detection keeps the highest one as the watermark of what was logged.
+     */
+    long timestamp();
+
+    record RunQueued(String repository, RunInfo run) implements ChangeEvent {
+        @Override
+        public long timestamp() {
+            return run.timestamp();
+        }
+    }
+
+    record RunStarted(String repository, RunInfo run) implements ChangeEvent {
+        @Override
+        public long timestamp() {
+            return run.timestamp();
+        }
+    }
+
+    /**
+     * @param failures what failed, or null unless the run concluded with a failure or a timeout
+     */
+    record RunCompleted(String repository, RunInfo run, FailureSummary failures) implements ChangeEvent {
+        @Override
+        public long timestamp() {
+            return failures == null ? run.timestamp() : Math.max(run.timestamp(), failures.timestamp());
+        }
+    }
+
+    /**
+     * A job appeared or changed status.
+     *
+     * @param steps steps worth reporting along with the job, in order
+     */
+    record JobStatusChanged(String repository, RunInfo run, JobInfo job, List<StepInfo> steps) implements ChangeEvent {
+        @Override
+        public long timestamp() {
+            return Math.max(run.timestamp(), job.timestamp());
+        }
+    }
+
+    /**
+     * A step appeared or changed status within a job.
+     */
+    record StepStatusChanged(String repository, RunInfo run, JobInfo job, StepInfo step) implements ChangeEvent {
+        @Override
+        public long timestamp() {
+            return Math.max(run.timestamp(), Math.max(job.timestamp(), step.timestamp()));
+        }
+    }
+}
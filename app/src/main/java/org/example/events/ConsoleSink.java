@@ -0,0 +1,176 @@
+package org.example.events;
+
+import org.example.events.ChangeEvent.JobStatusChanged;
+import org.example.events.ChangeEvent.RunCompleted;
+import org.example.events.ChangeEvent.RunQueued;
+import org.example.events.ChangeEvent.RunStarted;
+import org.example.events.ChangeEvent.StepStatusChanged;
+import org.example.model.Conclusion;
+import org.example.model.Status;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prints change events as the indented run / job / step lines of the console log. Job and step
+ * changes repeat the run header whenever the run they belong to is not the one printed last.
+ * <p>
+ * Runs on the dispatcher's sink thread: lines are assembled in one reusable builder with cached
+ * timestamps and status labels, and reach the stream in a buffered write per drained batch.
+ */
+public class ConsoleSink implements EventSink {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String NEW_LINE = System.lineSeparator();
+
+    private final Writer writer;
+    private final boolean showRepository;
+    private final TimestampCache timestamps = new TimestampCache(ZoneId.systemDefault());
+    private final Map<Enum<?>, String> labels = new HashMap<>();
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] chars = new char[256];
+
+    // What the last lines were about, so consecutive changes of one run share its header
+    private String lastRepository;
+    private RunInfo lastRun;
+    private JobInfo lastJob;
+
+    /**
+     * @param showRepository whether run headers name the repository, for processes watching several
+     */
+    public ConsoleSink(PrintStream out, boolean showRepository) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, out.charset()), BUFFER_SIZE);
+        this.showRepository = showRepository;
+    }
+
+    @Override
+    public void accept(ChangeEvent event) throws IOException {
+        if (event instanceof RunQueued || event instanceof RunStarted) {
+            printRun(event.repository(), event.run());
+        } else if (event instanceof RunCompleted completed) {
+            printRun(completed.repository(), completed.run());
+            printCompletion(completed);
+        } else if (event instanceof JobStatusChanged changed) {
+            printRunIfNeeded(changed.repository(), changed.run());
+            printJob(changed.job());
+            for (StepInfo step : changed.steps()) {
+                printStep(step);
+            }
+        } else if (event instanceof StepStatusChanged changed) {
+            printRunIfNeeded(changed.repository(), changed.run());
+            if (!changed.job().equals(lastJob)) {
+                printJob(changed.job());
+            }
+            printStep(changed.step());
+        }
+    }
+
+    @Override
+    public void dropped(long count) throws IOException {
+        line.setLength(0);
+        line.append("[Output fell behind, ").append(count).append(" change(s) not printed]");
+        writeLine();
+    }
+
+    @Override
+    public void endOfBatch() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void printRunIfNeeded(String repository, RunInfo run) throws IOException {
+        if (!run.equals(lastRun) || !repository.equals(lastRepository)) {
+            printRun(repository, run);
+        }
+    }
+
+    private void printRun(String repository, RunInfo run) throws IOException {
+        lastRepository = repository;
+        lastRun = run;
+        lastJob = null;
+
+        line.setLength(0);
+        if (showRepository) {
+            line.append('[').append(repository).append("] ");
+        }
+        line.append("[Workflow] ").append(run.workflowName());
+        writeLine();
+
+        line.setLength(0);
+        timestamps.appendTo(line, run.timestamp());
+        line.append(" [RUN ").append(label(run.status() == Status.COMPLETED ? run.conclusion() : run.status()))
+                .append("] ").append(run.name())
+                .append(" | Branch: ").append(run.headBranch())
+                .append(" | Commit: ").append(run.headSha());
+        writeLine();
+    }
+
+    private void printCompletion(RunCompleted completed) throws IOException {
+        if (completed.failures() != null) {
+            line.setLength(0);
+            line.append("   FAILURE SUMMARY:");
+            writeLine();
+            for (FailureSummary.FailedJob failed : completed.failures().jobs()) {
+                printJob(failed.job());
+                for (StepInfo step : failed.failedSteps()) {
+                    printStep(step);
+                }
+                for (String excerptLine : failed.logExcerpt()) {
+                    line.setLength(0);
+                    line.append("      | ").append(excerptLine);
+                    writeLine();
+                }
+            }
+        } else if (Conclusion.ACTION_REQUIRED.equals(completed.run().conclusion())) {
+            line.setLength(0);
+            line.append("   -> Action Required: ").append(completed.run().htmlUrl());
+            writeLine();
+        }
+    }
+
+    private void printJob(JobInfo job) throws IOException {
+        lastJob = job;
+        line.setLength(0);
+        line.append("  ");
+        timestamps.appendTo(line, job.timestamp());
+        line.append(" [Job ").append(label(job.status() == Status.COMPLETED ? job.conclusion() : job.status()))
+                .append("] ").append(job.name());
+        writeLine();
+    }
+
+    private void printStep(StepInfo step) throws IOException {
+        if (step.status() != Status.COMPLETED && step.status() != Status.IN_PROGRESS) {
+            return;
+        }
+        line.setLength(0);
+        line.append("    ");
+        timestamps.appendTo(line, step.timestamp());
+        line.append(" [Step ").append(label(step.status() == Status.COMPLETED ? step.conclusion() : step.status()))
+                .append("] ").append(step.name());
+        writeLine();
+    }
+
+    // Upper-cased display name of a status or conclusion, computed once per constant
+    private String label(Enum<?> value) {
+        return value == null ? "NULL" : labels.computeIfAbsent(value, v -> v.toString().toUpperCase());
+    }
+
+    private void writeLine() throws IOException {
+        line.append(NEW_LINE);
+        int length = line.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        line.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+    }
+}
@@ -0,0 +1,218 @@
+package org.example.events;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans change events out to sinks. Every sink gets its own bounded queue and thread, so a slow sink
+ * delays neither detection nor the other sinks until its queue fills up; what happens then is up to
+ * the {@link OverflowPolicy}.
+ */
+public class EventDispatcher implements AutoCloseable {
+
+    public enum OverflowPolicy {
+        /** Publishing waits for room, slowing detection down to the pace of the slowest sink. */
+        BLOCK,
+        /** Events that don't fit are dropped; the sink is told how many it missed. */
+        DROP
+    }
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final int MAX_BATCH = 256;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+    private static final long IDLE_CHECK_MILLIS = 200;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final OverflowPolicy overflowPolicy;
+    private volatile boolean closed;
+
+    public EventDispatcher(List<EventSink> sinks) {
+        this(sinks, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    public EventDispatcher(List<EventSink> sinks, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.overflowPolicy = overflowPolicy;
+        for (EventSink sink : sinks) {
+            Worker worker = new Worker(sink, new ArrayBlockingQueue<>(capacity));
+            Thread thread = new Thread(worker, "event-sink-" + sink.getClass().getSimpleName());
+            thread.setDaemon(true);
+            worker.thread = thread;
+            workers.add(worker);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queues the event for every sink. Events published after {@link #close()} are dropped.
+     */
+    public void publish(ChangeEvent event) throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        for (Worker worker : workers) {
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                worker.put(event);
+            } else {
+                worker.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Waits until every sink has handled the events published so far.
+     */
+    public void flush() throws InterruptedException {
+        for (Worker worker : workers) {
+            worker.awaitHandled(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Lets the sinks drain their queues for a bounded time, then stops and closes them.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT.toNanos();
+        try {
+            for (Worker worker : workers) {
+                worker.awaitHandled(deadline);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Not interrupted: a sink writing through an interruptible channel would lose its file
+        for (Worker worker : workers) {
+            worker.stopping = true;
+            try {
+                worker.thread.join(CLOSE_TIMEOUT.toMillis());
+                worker.sink.close();
+            } catch (Exception e) {
+                System.err.println("Closing event sink failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Worker implements Runnable {
+        private final EventSink sink;
+        private final BlockingQueue<ChangeEvent> queue;
+        private Thread thread;
+        private volatile boolean stopping;
+        private long published;
+        private long handled;
+        // Dropped since the sink was last told
+        private final AtomicLong dropped = new AtomicLong();
+
+        Worker(EventSink sink, BlockingQueue<ChangeEvent> queue) {
+            this.sink = sink;
+            this.queue = queue;
+        }
+
+        void put(ChangeEvent event) throws InterruptedException {
+            synchronized (this) {
+                published++;
+            }
+            queue.put(event);
+        }
+
+        void offer(ChangeEvent event) {
+            if (queue.offer(event)) {
+                synchronized (this) {
+                    published++;
+                }
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+
+        synchronized void awaitHandled(long deadline) throws InterruptedException {
+            long target = published;
+            while (handled < target) {
+                long remaining = deadline == Long.MAX_VALUE ? 0 : deadline - System.nanoTime();
+                if (deadline != Long.MAX_VALUE && remaining <= 0) {
+                    return;
+                }
+                wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+            }
+        }
+
+        @Override
+        public void run() {
+            List<ChangeEvent> batch = new ArrayList<>(MAX_BATCH);
+            while (true) {
+                ChangeEvent first;
+                try {
+                    first = queue.poll(IDLE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (first == null) {
+                    if (reportDropped()) {
+                        endBatch();
+                    }
+                    idle();
+                    if (stopping) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                reportDropped();
+                for (ChangeEvent event : batch) {
+                    try {
+                        sink.accept(event);
+                    } catch (Exception e) {
+                        System.err.println("Event sink failed on " + event.getClass().getSimpleName() + ": " + e.getMessage());
+                    }
+                }
+                endBatch();
+                synchronized (this) {
+                    handled += batch.size();
+                    notifyAll();
+                }
+                batch.clear();
+            }
+        }
+
+        private boolean reportDropped() {
+            long count = dropped.getAndSet(0);
+            if (count == 0) {
+                return false;
+            }
+            try {
+                sink.dropped(count);
+            } catch (Exception e) {
+                System.err.println("Event sink failed to report dropped events: " + e.getMessage());
+            }
+            return true;
+        }
+
+        private void idle() {
+            try {
+                sink.idle();
+            } catch (Exception e) {
+                System.err.println("Event sink failed while idle: " + e.getMessage());
+            }
+        }
+
+        private void endBatch() {
+            try {
+                sink.endOfBatch();
+            } catch (Exception e) {
+                System.err.println("Event sink failed to flush: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.events;
+
+/**
+ * Consumer of change events. Each sink of an {@link EventDispatcher} is called from its own thread,
+ * one event at a time in publishing order, so implementations need no synchronization.
+ */
+public interface EventSink {
+
+    void accept(ChangeEvent event) throws Exception;
+
+    /**
+     * Tells the sink that {@code count} events were dropped before reaching it because its queue was full.
+     */
+    default void dropped(long count) throws Exception {
+    }
+
+    /**
+     * Called once the queue is drained, e.g. to flush buffered output.
+     */
+    default void endOfBatch() throws Exception {
+    }
+
+    /**
+     * Called whenever no event has arrived for a short while, e.g. for time-based housekeeping.
+     */
+    default void idle() throws Exception {
+    }
+
+    default void close() throws Exception {
+    }
+}
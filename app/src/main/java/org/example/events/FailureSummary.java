@@ -0,0 +1,19 @@
+package org.example.events;
+
+import java.util.List;
+
+/**
+ * What failed in a run that concluded with a failure or a timeout.
+ */
+public record FailureSummary(List<FailedJob> jobs) {
+
+    /**
+     * @param failedSteps steps that concluded with anything but success
+     * @param logExcerpt  last log lines of the failing step, empty unless failure logs are enabled
+     */
+    public record FailedJob(JobInfo job, List<StepInfo> failedSteps, List<String> logExcerpt) {}
+
+    public long timestamp() {
+        return jobs.stream().mapToLong(failed -> failed.job().timestamp()).max().orElse(Long.MIN_VALUE);
+    }
+}
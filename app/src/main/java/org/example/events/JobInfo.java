@@ -0,0 +1,21 @@
+package org.example.events;
+
+import org.example.model.Conclusion;
+import org.example.model.EpochMillis;
+import org.example.model.Status;
+import org.example.model.WorkflowJob;
+
+/**
+ * Immutable snapshot of a job as reported by a {@link ChangeEvent}.
+ *
+ * @param timestamp completion of the job, else its start, else its creation
+ */
+public record JobInfo(long id, String name, Status status, Conclusion conclusion, long timestamp) {
+    public static JobInfo of(WorkflowJob job) {
+        long timestamp = job.getCompletedAt();
+        if (!EpochMillis.isSet(timestamp)) {
+            timestamp = EpochMillis.isSet(job.getStartedAt()) ? job.getStartedAt() : job.getCreatedAt();
+        }
+        return new JobInfo(job.getId(), job.getName(), job.getStatus(), job.getConclusion(), timestamp);
+    }
+}
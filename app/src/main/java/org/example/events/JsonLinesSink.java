@@ -0,0 +1,355 @@
+package org.example.events;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.events.ChangeEvent.JobStatusChanged;
+import org.example.events.ChangeEvent.RunCompleted;
+import org.example.events.ChangeEvent.RunQueued;
+import org.example.events.ChangeEvent.RunStarted;
+import org.example.events.ChangeEvent.StepStatusChanged;
+import org.example.model.EpochMillis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes every change event as one JSON object per line to {@code <directory>/<owner>/<repo>/current.jsonl}.
+ * Lines are encoded into a reusable buffer and written to the file channel once per drained batch;
+ * {@code fsync} happens at most once per sync interval. A file that reaches the size limit or the
+ * maximum age, checked after each batch and while idle, is renamed to a timestamped segment and
+ * compressed on a background thread.
+ */
+public class JsonLinesSink implements EventSink {
+    public static final Path DEFAULT_DIRECTORY = Path.of("data", "events");
+    public static final long DEFAULT_MAX_FILE_BYTES = 64L << 20;
+    public static final Duration DEFAULT_MAX_FILE_AGE = Duration.ofHours(24);
+    private static final Duration SYNC_INTERVAL = Duration.ofSeconds(1);
+    private static final String CURRENT_FILE = "current.jsonl";
+    private static final DateTimeFormatter SEGMENT_NAME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final long maxFileAgeMillis;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final LineBuffer line = new LineBuffer();
+    private final Map<String, Segment> segments = new HashMap<>();
+    private final Map<Enum<?>, String> values = new HashMap<>();
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "jsonl-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long lastSyncAt;
+
+    // Exposes its array so a line is copied into the pending buffer without another allocation
+    private static final class LineBuffer extends ByteArrayOutputStream {
+        LineBuffer() {
+            super(1024);
+        }
+
+        void copyTo(ByteBuffer target) {
+            target.put(buf, 0, count);
+        }
+    }
+
+    // The open file of one repository and the lines of the current batch not yet written to it
+    private static final class Segment {
+        final Path directory;
+        FileChannel channel;
+        long size;
+        long openedAt;
+        ByteBuffer pending = ByteBuffer.allocateDirect(64 * 1024);
+        boolean unsynced;
+
+        Segment(Path directory) {
+            this.directory = directory;
+        }
+    }
+
+    public JsonLinesSink() {
+        this(DEFAULT_DIRECTORY, DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_FILE_AGE);
+    }
+
+    public JsonLinesSink(Path directory, long maxFileBytes, Duration maxFileAge) {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFileAgeMillis = maxFileAge.toMillis();
+    }
+
+    @Override
+    public void accept(ChangeEvent event) throws IOException {
+        line.reset();
+        try (JsonGenerator json = jsonFactory.createGenerator(line, JsonEncoding.UTF8)) {
+            writeEvent(json, event);
+        }
+        line.write('\n');
+
+        Segment segment = segment(event.repository());
+        if (segment.pending.remaining() < line.size()) {
+            writePending(segment);
+            if (segment.pending.capacity() < line.size()) {
+                segment.pending = ByteBuffer.allocateDirect(Integer.highestOneBit(line.size()) << 1);
+            }
+        }
+        line.copyTo(segment.pending);
+    }
+
+    @Override
+    public void endOfBatch() throws IOException {
+        for (Segment segment : segments.values()) {
+            writePending(segment);
+        }
+        rotateOrSync();
+    }
+
+    // Without events endOfBatch is not called, so an idle repository's file is rotated by age from here
+    @Override
+    public void idle() throws IOException {
+        rotateOrSync();
+    }
+
+    private void rotateOrSync() throws IOException {
+        long now = System.currentTimeMillis();
+        boolean sync = now - lastSyncAt >= SYNC_INTERVAL.toMillis();
+        for (Segment segment : segments.values()) {
+            if (segment.size >= maxFileBytes || now - segment.openedAt >= maxFileAgeMillis) {
+                rotate(segment, now);
+            } else if (sync && segment.unsynced) {
+                segment.channel.force(false);
+                segment.unsynced = false;
+            }
+        }
+        if (sync) {
+            lastSyncAt = now;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            writePending(segment);
+            segment.channel.force(false);
+            segment.channel.close();
+        }
+        segments.clear();
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Segment segment(String repository) throws IOException {
+        Segment segment = segments.get(repository);
+        if (segment == null) {
+            segment = new Segment(directory.resolve(repository));
+            Files.createDirectories(segment.directory);
+            compressLeftovers(segment.directory);
+            open(segment, System.currentTimeMillis());
+            segments.put(repository, segment);
+        }
+        return segment;
+    }
+
+    private void open(Segment segment, long now) throws IOException {
+        Path file = segment.directory.resolve(CURRENT_FILE);
+        segment.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment.size = segment.channel.size();
+        segment.openedAt = segment.size == 0 ? now : startedAt(file);
+    }
+
+    // A file left by the previous process keeps its age; the earlier timestamp also covers
+    // file systems that report the last modification as creation time
+    private static long startedAt(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return Math.min(attributes.creationTime().toMillis(), attributes.lastModifiedTime().toMillis());
+    }
+
+    private void writePending(Segment segment) throws IOException {
+        ByteBuffer pending = segment.pending;
+        if (pending.position() == 0) {
+            return;
+        }
+        pending.flip();
+        while (pending.hasRemaining()) {
+            segment.size += segment.channel.write(pending);
+        }
+        pending.clear();
+        segment.unsynced = true;
+    }
+
+    private void rotate(Segment segment, long now) throws IOException {
+        segment.channel.force(false);
+        segment.channel.close();
+        segment.unsynced = false;
+        if (segment.size > 0) {
+            Path rotated = segmentPath(segment.directory, now);
+            Files.move(segment.directory.resolve(CURRENT_FILE), rotated, StandardCopyOption.ATOMIC_MOVE);
+            compressor.submit(() -> compress(rotated));
+        }
+        open(segment, now);
+    }
+
+    // Two rotations within the same millisecond get consecutive names instead of overwriting each other
+    private static Path segmentPath(Path repositoryDirectory, long now) {
+        for (long at = now; ; at++) {
+            String name = SEGMENT_NAME.format(Instant.ofEpochMilli(at)) + ".jsonl";
+            if (!Files.exists(repositoryDirectory.resolve(name))
+                    && !Files.exists(repositoryDirectory.resolve(name + ".gz"))) {
+                return repositoryDirectory.resolve(name);
+            }
+        }
+    }
+
+    // Segments rotated but not yet compressed when the previous process stopped
+    private void compressLeftovers(Path repositoryDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(repositoryDirectory)) {
+            files.filter(p -> p.getFileName().toString().endsWith(".jsonl"))
+                    .filter(p -> !p.getFileName().toString().equals(CURRENT_FILE))
+                    .forEach(p -> compressor.submit(() -> compress(p)));
+        }
+    }
+
+    private static void compress(Path segment) {
+        Path target = segment.resolveSibling(segment.getFileName() + ".gz");
+        Path partial = segment.resolveSibling(segment.getFileName() + ".gz.part");
+        try {
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+                in.transferTo(out);
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(segment);
+        } catch (IOException e) {
+            System.err.println("Compressing " + segment + " failed: " + e.getMessage());
+        }
+    }
+
+    private void writeEvent(JsonGenerator json, ChangeEvent event) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("type", type(event));
+        json.writeStringField("repository", event.repository());
+        writeTime(json, "at", event.timestamp());
+        json.writeFieldName("run");
+        writeRun(json, event.run());
+
+        if (event instanceof JobStatusChanged changed) {
+            json.writeFieldName("job");
+            writeJob(json, changed.job());
+            json.writeFieldName("steps");
+            writeSteps(json, changed.steps());
+        } else if (event instanceof StepStatusChanged changed) {
+            json.writeFieldName("job");
+            writeJob(json, changed.job());
+            json.writeFieldName("step");
+            writeStep(json, changed.step());
+        } else if (event instanceof RunCompleted completed && completed.failures() != null) {
+            json.writeArrayFieldStart("failures");
+            for (FailureSummary.FailedJob failed : completed.failures().jobs()) {
+                json.writeStartObject();
+                json.writeFieldName("job");
+                writeJob(json, failed.job());
+                json.writeFieldName("failed_steps");
+                writeSteps(json, failed.failedSteps());
+                json.writeArrayFieldStart("log_excerpt");
+                for (String excerptLine : failed.logExcerpt()) {
+                    json.writeString(excerptLine);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    private static String type(ChangeEvent event) {
+        if (event instanceof RunQueued) return "run_queued";
+        if (event instanceof RunStarted) return "run_started";
+        if (event instanceof RunCompleted) return "run_completed";
+        if (event instanceof JobStatusChanged) return "job_status_changed";
+        return "step_status_changed";
+    }
+
+    private void writeRun(JsonGenerator json, RunInfo run) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", run.id());
+        json.writeNumberField("workflow_id", run.workflowId());
+        json.writeStringField("workflow", run.workflowName());
+        json.writeStringField("name", run.name());
+        json.writeStringField("head_branch", run.headBranch());
+        json.writeStringField("head_sha", run.headSha());
+        json.writeStringField("status", value(run.status()));
+        json.writeStringField("conclusion", value(run.conclusion()));
+        json.writeNumberField("run_attempt", run.runAttempt());
+        json.writeStringField("html_url", run.htmlUrl());
+        writeTime(json, "updated_at", run.timestamp());
+        json.writeEndObject();
+    }
+
+    private void writeJob(JsonGenerator json, JobInfo job) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", job.id());
+        json.writeStringField("name", job.name());
+        json.writeStringField("status", value(job.status()));
+        json.writeStringField("conclusion", value(job.conclusion()));
+        writeTime(json, "updated_at", job.timestamp());
+        json.writeEndObject();
+    }
+
+    private void writeSteps(JsonGenerator json, List<StepInfo> steps) throws IOException {
+        json.writeStartArray();
+        for (StepInfo step : steps) {
+            writeStep(json, step);
+        }
+        json.writeEndArray();
+    }
+
+    private void writeStep(JsonGenerator json, StepInfo step) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("number", step.number());
+        json.writeStringField("name", step.name());
+        json.writeStringField("status", value(step.status()));
+        json.writeStringField("conclusion", value(step.conclusion()));
+        writeTime(json, "updated_at", step.timestamp());
+        json.writeEndObject();
+    }
+
+    private static void writeTime(JsonGenerator json, String field, long epochMillis) throws IOException {
+        if (EpochMillis.isSet(epochMillis)) {
+            json.writeStringField(field, Instant.ofEpochMilli(epochMillis).toString());
+        } else {
+            json.writeNullField(field);
+        }
+    }
+
+    // The API spelling of a status or conclusion, e.g. "in_progress"
+    private String value(Enum<?> constant) {
+        return constant == null ? null : values.computeIfAbsent(constant, c -> c.name().toLowerCase());
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.events;
+
+import org.example.model.Conclusion;
+import org.example.model.EpochMillis;
+import org.example.model.Status;
+import org.example.model.WorkflowRun;
+
+/**
+ * Immutable snapshot of a workflow run as reported by a {@link ChangeEvent}.
+ *
+ * @param timestamp last update of the run, or its creation if it was never updated
+ */
+public record RunInfo(
+        long id,
+        long workflowId,
+        String workflowName,
+        String name,
+        String headBranch,
+        String headSha,
+        Status status,
+        Conclusion conclusion,
+        int runAttempt,
+        String htmlUrl,
+        long timestamp
+) {
+    public static RunInfo of(WorkflowRun run, String workflowName) {
+        long timestamp = EpochMillis.isSet(run.getUpdatedAt()) ? run.getUpdatedAt() : run.getCreatedAt();
+        return new RunInfo(run.getId(), run.getWorkflowId(), workflowName, run.getName(), run.getHeadBranch(),
+                run.getHeadSha(), run.getStatus(), run.getConclusion(), run.getRunAttempt(), run.getHtmlUrl(), timestamp);
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.events;
+
+import org.example.model.Conclusion;
+import org.example.model.EpochMillis;
+import org.example.model.JobStep;
+import org.example.model.Status;
+
+/**
+ * Immutable snapshot of a job step as reported by a {@link ChangeEvent}.
+ *
+ * @param timestamp completion of the step, else its start
+ */
+public record StepInfo(int number, String name, Status status, Conclusion conclusion, long timestamp) {
+    public static StepInfo of(JobStep step) {
+        long timestamp = EpochMillis.isSet(step.getCompletedAt()) ? step.getCompletedAt() : step.getStartedAt();
+        return new StepInfo(step.getNumber(), step.getName(), step.getStatus(), step.getConclusion(), timestamp);
+    }
+}
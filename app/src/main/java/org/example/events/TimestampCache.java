@@ -0,0 +1,68 @@
+package org.example.events;
+
+import org.example.model.EpochMillis;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Renders epoch millis as {@code yyyy-MM-dd HH:mm:ss} in a fixed zone, remembering the characters of
+ * recently rendered seconds. Lines of one burst share a handful of seconds, so most timestamps are
+ * copied instead of formatted. Not thread-safe; each sink owns one.
+ */
+final class TimestampCache {
+    static final int LENGTH = 19;
+    private static final int SLOTS = 256;
+    private static final String UNKNOWN = "????-??-?? ??:??:??";
+
+    private final ZoneId zoneId;
+    private final long[] seconds = new long[SLOTS];
+    private final char[][] rendered = new char[SLOTS][];
+
+    TimestampCache(ZoneId zoneId) {
+        this.zoneId = zoneId;
+    }
+
+    void appendTo(StringBuilder target, long epochMillis) {
+        if (!EpochMillis.isSet(epochMillis)) {
+            target.append(UNKNOWN);
+            return;
+        }
+        long second = Math.floorDiv(epochMillis, 1000);
+        int slot = (int) (second & (SLOTS - 1));
+        char[] chars = rendered[slot];
+        if (chars == null || seconds[slot] != second) {
+            chars = render(second);
+            rendered[slot] = chars;
+            seconds[slot] = second;
+        }
+        target.append(chars);
+    }
+
+    private char[] render(long second) {
+        ZoneOffset offset = zoneId.getRules().getOffset(Instant.ofEpochSecond(second));
+        LocalDateTime time = LocalDateTime.ofEpochSecond(second, 0, offset);
+        char[] chars = new char[LENGTH];
+        digits(chars, 0, time.getYear(), 4);
+        chars[4] = '-';
+        digits(chars, 5, time.getMonthValue(), 2);
+        chars[7] = '-';
+        digits(chars, 8, time.getDayOfMonth(), 2);
+        chars[10] = ' ';
+        digits(chars, 11, time.getHour(), 2);
+        chars[13] = ':';
+        digits(chars, 14, time.getMinute(), 2);
+        chars[16] = ':';
+        digits(chars, 17, time.getSecond(), 2);
+        return chars;
+    }
+
+    private static void digits(char[] chars, int at, int value, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
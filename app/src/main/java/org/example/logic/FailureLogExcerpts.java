@@ -0,0 +1,193 @@
+package org.example.logic;
+
+import org.example.api.ApiDataRetriever;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The tail of the failing step of failed jobs, read from their logs. Logs are streamed to
+ * {@code data/logs/<jobId>.log} and scanned backwards from the end, so even multi-hundred-MB
+ * logs never pass through the heap. Downloads run on virtual threads behind a concurrency limit
+ * and a deadline; a log that can't be fetched in time just yields no excerpt.
+ */
+public class FailureLogExcerpts {
+    public static final Path DEFAULT_DIRECTORY = Path.of("data", "logs");
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+    private static final int MAX_CACHED_EXCERPTS = 256;
+    private static final int MAX_LOG_FILES = 200;
+    private static final int MAX_LINE_LENGTH = 500;
+    private static final byte[] ERROR_MARKER = "##[error]".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STEP_HEADER = "##[group]Run ".getBytes(StandardCharsets.US_ASCII);
+
+    private final ApiDataRetriever api;
+    private final Path directory;
+    private final int maxLines;
+    private final Semaphore downloads;
+    private final Duration timeout;
+    private final Map<Long, List<String>> excerpts = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, List<String>> eldest) {
+                    return size() > MAX_CACHED_EXCERPTS;
+                }
+            });
+
+    public FailureLogExcerpts(ApiDataRetriever api, int maxLines) {
+        this(api, maxLines, DEFAULT_DIRECTORY, DEFAULT_CONCURRENCY, DEFAULT_TIMEOUT);
+    }
+
+    public FailureLogExcerpts(ApiDataRetriever api, int maxLines, Path directory, int concurrency, Duration timeout) {
+        if (maxLines < 1) {
+            throw new IllegalArgumentException("maxLines must be positive");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        this.api = api;
+        this.maxLines = maxLines;
+        this.directory = directory;
+        this.downloads = new Semaphore(concurrency);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Excerpts of the given jobs keyed by job id; jobs whose log is gone or failed to download are absent.
+     */
+    public Map<Long, List<String>> excerptsFor(Collection<Long> jobIds) throws InterruptedException {
+        Map<Long, List<String>> result = new LinkedHashMap<>();
+        Map<Long, Future<List<String>>> futures = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (Long jobId : jobIds) {
+                    List<String> cached = excerpts.get(jobId);
+                    if (cached != null) {
+                        result.put(jobId, cached);
+                    } else {
+                        futures.put(jobId, executor.submit(() -> load(jobId)));
+                    }
+                }
+
+                for (Map.Entry<Long, Future<List<String>>> entry : futures.entrySet()) {
+                    long remaining = deadline - System.nanoTime();
+                    try {
+                        List<String> excerpt = entry.getValue().get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                        if (excerpt != null) {
+                            excerpts.put(entry.getKey(), excerpt);
+                            result.put(entry.getKey(), excerpt);
+                        }
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        // Best effort: the summary is printed without this excerpt
+                    }
+                }
+                return result;
+            } finally {
+                futures.values().forEach(f -> f.cancel(true));
+            }
+        }
+    }
+
+    private List<String> load(long jobId) throws Exception {
+        Path file = directory.resolve(jobId + ".log");
+        if (!Files.exists(file)) {
+            downloads.acquire();
+            try {
+                Files.createDirectories(directory);
+                if (!api.downloadJobLog(jobId, file)) {
+                    return null;
+                }
+            } finally {
+                downloads.release();
+            }
+            pruneLogFiles();
+        }
+        return extract(file, maxLines);
+    }
+
+    /**
+     * The last {@code maxLines} lines up to and including the last error annotation, stopping early at the
+     * header of the step that produced it. Steps after the error are post-job cleanup, so without an error
+     * annotation the plain end of the log is the best guess.
+     */
+    static List<String> extract(Path file, int maxLines) throws IOException {
+        ReverseLineReader reader = new ReverseLineReader(file);
+        boolean anchored = false;
+        while (reader.previous()) {
+            if (reader.contains(ERROR_MARKER)) {
+                anchored = true;
+                break;
+            }
+        }
+        if (!anchored) {
+            reader = new ReverseLineReader(file);
+            if (!reader.previous()) {
+                return List.of();
+            }
+        }
+
+        Deque<String> lines = new ArrayDeque<>(maxLines);
+        do {
+            lines.addFirst(clean(reader.line()));
+        } while (lines.size() < maxLines && !reader.contains(STEP_HEADER) && reader.previous());
+        return List.copyOf(lines);
+    }
+
+    // Drops the timestamp GitHub puts in front of every line, e.g. "2024-01-15T10:00:00.1234567Z "
+    private static String clean(String line) {
+        if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line = line.substring(1);
+        }
+        int space = line.indexOf(' ');
+        if (space > 19 && space < 40 && line.charAt(space - 1) == 'Z' && line.charAt(10) == 'T') {
+            line = line.substring(space + 1);
+        }
+        return line.length() > MAX_LINE_LENGTH ? line.substring(0, MAX_LINE_LENGTH) + "..." : line;
+    }
+
+    // Keeps the log directory bounded by deleting the least recently downloaded files
+    private synchronized void pruneLogFiles() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(".log")).toList();
+        }
+        if (files.size() <= MAX_LOG_FILES) {
+            return;
+        }
+        List<Path> oldestFirst = files.stream()
+                .sorted(Comparator.comparingLong(FailureLogExcerpts::lastModified))
+                .toList();
+        for (Path file : oldestFirst.subList(0, files.size() - MAX_LOG_FILES)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.logic;
+
+import org.example.api.ApiDataRetriever;
+import org.example.model.WorkflowJob;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * Fans out the job-list requests of one poll on virtual threads, bounded by a concurrency limit
+ * and a deadline for the whole batch.
+ */
+public class JobFetcher {
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final Duration DEFAULT_POLL_TIMEOUT = Duration.ofSeconds(25);
+
+    private final ApiDataRetriever api;
+    private final int maxConcurrency;
+    private final Duration pollTimeout;
+
+    public JobFetcher(ApiDataRetriever api) {
+        this(api, DEFAULT_CONCURRENCY, DEFAULT_POLL_TIMEOUT);
+    }
+
+    public JobFetcher(ApiDataRetriever api, int maxConcurrency, Duration pollTimeout) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.api = api;
+        this.maxConcurrency = maxConcurrency;
+        this.pollTimeout = pollTimeout;
+    }
+
+    /**
+     * Returns the jobs of every given run, keyed by run id in the iteration order of {@code runIds}.
+     * Fails as a whole if any request fails or the deadline passes, so callers never see a partial poll.
+     */
+    public Map<Long, List<WorkflowJob>> fetchAll(Collection<Long> runIds) throws Exception {
+        return fetchAll(runIds, runId -> null);
+    }
+
+    /**
+     * Like {@link #fetchAll(Collection)}, but for runs with a fingerprint filter only the jobs whose JSON
+     * changed are returned (see {@link ApiDataRetriever#getJobsForWorkflowRun(long, LongPredicate)}).
+     *
+     * @param unchangedJobs filter of a run, or null to return all of its jobs
+     */
+    public Map<Long, List<WorkflowJob>> fetchAll(Collection<Long> runIds, LongFunction<LongPredicate> unchangedJobs)
+            throws Exception {
+        Map<Long, List<WorkflowJob>> jobsByRun = new LinkedHashMap<>();
+        if (runIds.isEmpty()) {
+            return jobsByRun;
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        Map<Long, Future<List<WorkflowJob>>> futures = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + pollTimeout.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Cancel inside the executor scope so close() does not wait for requests we gave up on
+            try {
+                for (Long runId : runIds) {
+                    LongPredicate unchanged = unchangedJobs.apply(runId);
+                    futures.put(runId, executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            return unchanged == null
+                                    ? api.getJobsForWorkflowRun(runId)
+                                    : api.getJobsForWorkflowRun(runId, unchanged);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+
+                for (Map.Entry<Long, Future<List<WorkflowJob>>> entry : futures.entrySet()) {
+                    long remaining = deadline - System.nanoTime();
+                    try {
+                        jobsByRun.put(entry.getKey(), entry.getValue().get(Math.max(0, remaining), TimeUnit.NANOSECONDS));
+                    } catch (TimeoutException e) {
+                        throw new TimeoutException("Fetching jobs for " + runIds.size() + " runs exceeded " + pollTimeout);
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof Exception cause) {
+                            throw cause;
+                        }
+                        throw e;
+                    }
+                }
+                return jobsByRun;
+            } finally {
+                futures.values().forEach(f -> f.cancel(true));
+            }
+        }
+    }
+}
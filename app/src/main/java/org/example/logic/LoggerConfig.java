@@ -0,0 +1,81 @@
+package org.example.logic;
+
+import org.example.api.TransportConfig;
+import org.example.events.EventDispatcher.OverflowPolicy;
+
+import java.time.Duration;
+
+/**
+ * Tuning knobs of a {@link WorkflowLogger}.
+ *
+ * @param jobConcurrency   maximum number of job-list requests in flight during one poll
+ * @param jobsTimeout      deadline for fetching all job lists of one poll
+ * @param stuckRunAge      age after which an unfinished run moves to the individually polled watch list
+ * @param showRepository   whether output lines name the repository, for processes watching several
+ * @param minPollInterval  shortest delay between two polls, however much budget is spare
+ * @param maxPollInterval  longest delay between two polls while budget remains
+ * @param jobsMaxStaleness longest time the cached jobs of an unchanged in-progress run are trusted without a re-fetch
+ * @param failureLogLines  log lines of the failing step printed under each failed job, 0 to not download logs
+ * @param outputOverflow   what happens to changes while the output queue is full
+ * @param transport        timeouts, compression and hedging of the HTTP transport
+ */
+public record LoggerConfig(
+        int jobConcurrency,
+        Duration jobsTimeout,
+        Duration stuckRunAge,
+        boolean showRepository,
+        Duration minPollInterval,
+        Duration maxPollInterval,
+        Duration jobsMaxStaleness,
+        int failureLogLines,
+        OverflowPolicy outputOverflow,
+        TransportConfig transport
+) {
+    public static LoggerConfig defaults() {
+        return new LoggerConfig(JobFetcher.DEFAULT_CONCURRENCY, JobFetcher.DEFAULT_POLL_TIMEOUT, Duration.ofHours(6), false,
+                PollScheduler.MIN_INTERVAL, PollScheduler.MAX_INTERVAL, Duration.ofMinutes(5), 0,
+                OverflowPolicy.BLOCK, TransportConfig.defaults());
+    }
+
+    public LoggerConfig withStuckRunAge(Duration stuckRunAge) {
+        return new LoggerConfig(jobConcurrency, jobsTimeout, stuckRunAge, showRepository, minPollInterval, maxPollInterval, jobsMaxStaleness,
+                failureLogLines, outputOverflow, transport);
+    }
+
+    public LoggerConfig withShowRepository(boolean showRepository) {
+        return new LoggerConfig(jobConcurrency, jobsTimeout, stuckRunAge, showRepository, minPollInterval, maxPollInterval, jobsMaxStaleness,
+                failureLogLines, outputOverflow, transport);
+    }
+
+    public LoggerConfig withPollIntervals(Duration minPollInterval, Duration maxPollInterval) {
+        return new LoggerConfig(jobConcurrency, jobsTimeout, stuckRunAge, showRepository, minPollInterval, maxPollInterval, jobsMaxStaleness,
+                failureLogLines, outputOverflow, transport);
+    }
+
+    public LoggerConfig withJobsMaxStaleness(Duration jobsMaxStaleness) {
+        return new LoggerConfig(jobConcurrency, jobsTimeout, stuckRunAge, showRepository, minPollInterval, maxPollInterval, jobsMaxStaleness,
+                failureLogLines, outputOverflow, transport);
+    }
+
+    public LoggerConfig withFailureLogLines(int failureLogLines) {
+        return new LoggerConfig(jobConcurrency, jobsTimeout, stuckRunAge, showRepository, minPollInterval, maxPollInterval, jobsMaxStaleness,
+                failureLogLines, outputOverflow, transport);
+    }
+
+    public LoggerConfig withOutputOverflow(OverflowPolicy outputOverflow) {
+        return new LoggerConfig(jobConcurrency, jobsTimeout, stuckRunAge, showRepository, minPollInterval, maxPollInterval, jobsMaxStaleness,
+                failureLogLines, outputOverflow, transport);
+    }
+
+    public LoggerConfig withTransport(TransportConfig transport) {
+        return new LoggerConfig(jobConcurrency, jobsTimeout, stuckRunAge, showRepository, minPollInterval, maxPollInterval, jobsMaxStaleness,
+                failureLogLines, outputOverflow, transport);
+    }
+
+    /**
+     * Polling only reconciles what webhook deliveries missed, so it can run rarely.
+     */
+    public LoggerConfig forWebhooks() {
+        return withPollIntervals(PollScheduler.RECONCILE_MIN_INTERVAL, PollScheduler.RECONCILE_MAX_INTERVAL);
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.logic;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to objects, so ids are neither boxed
+ * nor wrapped in an entry object. Linear probing with backward-shift deletion, no tombstones.
+ */
+final class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    LongObjectMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(long key) {
+        return values[indexOf(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        return (V) values[indexOf(key)];
+    }
+
+    /**
+     * @return the previous value, or null
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        int index = indexOf(key);
+        V previous = (V) values[index];
+        values[index] = value;
+        if (previous == null) {
+            keys[index] = key;
+            if (++size > (mask + 1) * 3 / 4) {
+                rehash((mask + 1) * 2);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * @return the removed value, or null
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int index = indexOf(key);
+        V previous = (V) values[index];
+        if (previous != null) {
+            delete(index);
+        }
+        return previous;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Removes every entry whose key does not match.
+     */
+    void retainKeys(LongPredicate keep) {
+        int index = 0;
+        while (index <= mask) {
+            // A deletion shifts a later entry into this slot, which then has to be looked at again
+            if (values[index] != null && !keep.test(keys[index])) {
+                delete(index);
+            } else {
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the keys, safe to iterate while the map changes.
+     */
+    long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        for (int i = 0; i <= mask; i++) {
+            if (values[i] != null) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    // Slot holding the key, or the empty slot where it would go
+    private int indexOf(long key) {
+        int index = hash(key) & mask;
+        while (values[index] != null && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void delete(int index) {
+        values[index] = null;
+        size--;
+        // Moves later entries of the same probe sequence back so lookups never stop at the hole early
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                values[next] = null;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int needed = Math.max(MIN_CAPACITY, expectedSize * 4 / 3 + 1);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    // Run and job ids are sequential, so their bits are mixed before masking
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
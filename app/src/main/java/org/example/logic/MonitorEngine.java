@@ -0,0 +1,229 @@
+package org.example.logic;
+
+import org.example.api.ApiDataRetriever;
+import org.example.api.HttpTransport;
+import org.example.api.RateLimitTracker;
+import org.example.api.ResponseCache;
+import org.example.db.CompletedJobCache;
+import org.example.db.EventJournal;
+import org.example.db.Repository;
+import org.example.events.ConsoleSink;
+import org.example.events.EventDispatcher;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Watches many repositories from one process: one {@link WorkflowLogger} per repository, all sharing
+ * a single HTTP transport, one rate-limit budget per token (split fairly between repositories) and
+ * one scheduler thread that dispatches polls onto virtual threads. Changes of all repositories go
+ * through one event dispatcher, so their console lines never interleave mid-block. The cache of parsed
+ * pages is shared too, so its size doesn't grow with the number of repositories.
+ */
+public class MonitorEngine {
+
+    public record RepositoryRef(String owner, String repo) {
+        /**
+         * Accepts {@code owner/repo} or a github.com URL.
+         */
+        public static RepositoryRef parse(String input) {
+            // Remove protocol and trailing slashes for consistent splitting
+            String path = input.trim()
+                    .replace("https://", "")
+                    .replace("http://", "")
+                    .replace("github.com/", "");
+
+            if (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+
+            String[] parts = path.split("/");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Invalid GitHub URL. Expected format: owner/repo or github.com/owner/repo");
+            }
+            return new RepositoryRef(parts[0], parts[1]);
+        }
+
+        @Override
+        public String toString() {
+            return owner + "/" + repo;
+        }
+    }
+
+    // Connecting costs a burst of requests per repository; hundreds at once would trip the secondary rate limit
+    static final int CONNECT_CONCURRENCY = 4;
+    private static final int RESPONSE_CACHE_SIZE = 2048;
+
+    private record Monitor(RepositoryRef ref, WorkflowLogger logger, PollScheduler pollScheduler) {}
+
+    private final Repository repository;
+    private final PrintStream out;
+    private final LoggerConfig config;
+    private final CompletedJobCache completedJobs;
+    private final Function<RepositoryRef, ApiDataRetriever> retrievers;
+    private final EventDispatcher events;
+    private final EventJournal journal;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "poll-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService pollers = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Monitor> monitors = new CopyOnWriteArrayList<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean running = true;
+
+    public MonitorEngine(String token, Repository repository, PrintStream out, LoggerConfig config) {
+        this(token, repository, out, config, new EventDispatcher(List.of(new ConsoleSink(out, true)),
+                EventDispatcher.DEFAULT_CAPACITY, config.outputOverflow()));
+    }
+
+    public MonitorEngine(String token, Repository repository, PrintStream out, LoggerConfig config, EventDispatcher events) {
+        this(token, repository, out, config, events, null);
+    }
+
+    /**
+     * @param events  dispatcher shared by the loggers of all repositories; closed when the engine stops
+     * @param journal journal shared by the loggers of all repositories, or null; closed when the engine stops
+     */
+    public MonitorEngine(String token, Repository repository, PrintStream out, LoggerConfig config, EventDispatcher events,
+                         EventJournal journal) {
+        this(repository, out, config, events, journal, CompletedJobCache.shared(), retrievers(token, config));
+    }
+
+    /**
+     * @param retrievers creates the API client of a repository
+     */
+    MonitorEngine(Repository repository, PrintStream out, LoggerConfig config, EventDispatcher events, EventJournal journal,
+                  CompletedJobCache completedJobs, Function<RepositoryRef, ApiDataRetriever> retrievers) {
+        this.repository = repository;
+        this.out = out;
+        this.config = config.withShowRepository(true);
+        this.completedJobs = completedJobs;
+        this.retrievers = retrievers;
+        this.events = events;
+        this.journal = journal;
+    }
+
+    // One transport, rate-limit budget and page cache for every repository of the token
+    private static Function<RepositoryRef, ApiDataRetriever> retrievers(String token, LoggerConfig config) {
+        HttpTransport transport = new HttpTransport(config.transport());
+        RateLimitTracker rateLimit = new RateLimitTracker();
+        ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_SIZE);
+        return ref -> new ApiDataRetriever(ref.repo(), ref.owner(), token, rateLimit, transport, responseCache);
+    }
+
+    /**
+     * Connects the repositories, {@link #CONNECT_CONCURRENCY} at a time, and starts polling them in the given
+     * order; repositories that fail to connect are skipped.
+     */
+    public void start(List<RepositoryRef> repositories) throws InterruptedException {
+        Semaphore connectPermits = new Semaphore(CONNECT_CONCURRENCY);
+        Monitor[] connected = new Monitor[repositories.size()];
+        CountDownLatch done = new CountDownLatch(repositories.size());
+        for (int i = 0; i < repositories.size(); i++) {
+            int index = i;
+            RepositoryRef ref = repositories.get(i);
+            pollers.submit(() -> {
+                try {
+                    connectPermits.acquire();
+                    try {
+                        ApiDataRetriever api = retrievers.apply(ref);
+                        WorkflowLogger logger = new WorkflowLogger(api, repository, out, config, completedJobs, events, journal);
+                        logger.connect();
+                        PollScheduler pollScheduler = new PollScheduler(api.getRateLimit(), api::getChargedRequests,
+                                monitors::size, config.minPollInterval(), config.maxPollInterval());
+                        connected[index] = new Monitor(ref, logger, pollScheduler);
+                    } finally {
+                        connectPermits.release();
+                    }
+                } catch (Exception e) {
+                    out.println("[" + ref + "] Failed to start: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        for (Monitor monitor : connected) {
+            if (monitor != null) {
+                monitors.add(monitor);
+            }
+        }
+
+        // Stagger the first polls so the repositories don't all hit the API at once
+        long stepMillis = PollScheduler.DEFAULT_INTERVAL.toMillis() / Math.max(1, monitors.size());
+        for (int i = 0; i < monitors.size(); i++) {
+            schedulePoll(monitors.get(i), Duration.ofMillis(i * stepMillis));
+        }
+        out.println("Watching " + monitors.size() + " of " + repositories.size() + " repositories (Press Ctrl+C to stop)...");
+    }
+
+    private void schedulePoll(Monitor monitor, Duration delay) {
+        if (!running) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> pollers.submit(() -> {
+                if (!running) {
+                    return;
+                }
+                monitor.logger().pollOnce();
+                schedulePoll(monitor, monitor.pollScheduler().nextDelay(Instant.now()));
+            }), delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Looks up the logger of a watched repository by its {@code owner/repo} name, or null if it isn't watched.
+     */
+    public WorkflowLogger findLogger(String fullName) {
+        for (Monitor monitor : monitors) {
+            if (monitor.ref().toString().equalsIgnoreCase(fullName)) {
+                return monitor.logger();
+            }
+        }
+        return null;
+    }
+
+    public void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        stopped.await();
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.shutdownNow();
+        pollers.shutdown();
+        try {
+            pollers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        repository.flush();
+        events.close();
+        if (journal != null) {
+            journal.close();
+        }
+        stopped.countDown();
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.logic;
+
+import org.example.api.RateLimitTracker;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Picks the delay before the next poll so that the remaining rate-limit quota is spread evenly
+ * until the reset time: polls faster when budget is spare, backs off with jitter before it runs out.
+ * Pollers sharing one token each get an equal share of the quota.
+ */
+public class PollScheduler {
+    static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(30);
+    static final Duration MIN_INTERVAL = Duration.ofSeconds(5);
+    static final Duration MAX_INTERVAL = Duration.ofMinutes(5);
+    // Bounds used when webhook deliveries carry the changes and polls only catch missed ones
+    static final Duration RECONCILE_MIN_INTERVAL = Duration.ofMinutes(5);
+    static final Duration RECONCILE_MAX_INTERVAL = Duration.ofMinutes(15);
+
+    // Share of the quota we never spend, so other tools using the same token keep working
+    private static final double RESERVE_FRACTION = 0.1;
+    private static final double JITTER_FRACTION = 0.1;
+    // Weight of the latest poll in the moving average of requests per poll
+    private static final double COST_SMOOTHING = 0.3;
+
+    private final RateLimitTracker rateLimit;
+    private final LongSupplier chargedRequests;
+    private final IntSupplier shares;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private double requestsPerPoll = 1;
+    private long lastChargedRequests;
+
+    /**
+     * @param chargedRequests requests charged by this poller, e.g. {@code ApiDataRetriever::getChargedRequests}
+     */
+    public PollScheduler(RateLimitTracker rateLimit, LongSupplier chargedRequests) {
+        this(rateLimit, chargedRequests, () -> 1, MIN_INTERVAL, MAX_INTERVAL);
+    }
+
+    public PollScheduler(RateLimitTracker rateLimit, LongSupplier chargedRequests, Duration minInterval,
+                         Duration maxInterval) {
+        this(rateLimit, chargedRequests, () -> 1, minInterval, maxInterval);
+    }
+
+    /**
+     * @param rateLimit       quota of the token, possibly shared with other pollers
+     * @param chargedRequests requests charged by this poller only
+     * @param shares          number of pollers splitting the quota fairly
+     */
+    public PollScheduler(RateLimitTracker rateLimit, LongSupplier chargedRequests, IntSupplier shares,
+                         Duration minInterval, Duration maxInterval) {
+        this.rateLimit = rateLimit;
+        this.chargedRequests = chargedRequests;
+        this.shares = shares;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.lastChargedRequests = chargedRequests.getAsLong();
+    }
+
+    /**
+     * Called after each poll; returns how long to sleep before the next one.
+     */
+    public Duration nextDelay(Instant now) {
+        long charged = chargedRequests.getAsLong();
+        long pollCost = charged - lastChargedRequests;
+        lastChargedRequests = charged;
+        requestsPerPoll = COST_SMOOTHING * Math.max(1, pollCost) + (1 - COST_SMOOTHING) * requestsPerPoll;
+
+        return withJitter(computeDelay(rateLimit.snapshot(), now));
+    }
+
+    Duration computeDelay(RateLimitTracker.Snapshot quota, Instant now) {
+        if (quota.blockedUntil() != null && quota.blockedUntil().isAfter(now)) {
+            return Duration.between(now, quota.blockedUntil());
+        }
+        if (!quota.isKnown()) {
+            return clamp(DEFAULT_INTERVAL);
+        }
+
+        Duration untilReset = Duration.between(now, quota.resetAt());
+        if (untilReset.isNegative() || untilReset.isZero()) {
+            return minInterval;
+        }
+
+        double usable = (quota.remaining() - quota.limit() * RESERVE_FRACTION) / Math.max(1, shares.getAsInt());
+        if (usable < requestsPerPoll) {
+            // Out of budget for this window: wait for the reset
+            return untilReset;
+        }
+
+        long intervalMillis = (long) (untilReset.toMillis() * requestsPerPoll / usable);
+        return clamp(Duration.ofMillis(intervalMillis));
+    }
+
+    private Duration clamp(Duration interval) {
+        if (interval.compareTo(minInterval) < 0) return minInterval;
+        if (interval.compareTo(maxInterval) > 0) return maxInterval;
+        return interval;
+    }
+
+    private Duration withJitter(Duration delay) {
+        long millis = delay.toMillis();
+        long jitter = (long) (millis * JITTER_FRACTION * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(millis + jitter);
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.logic;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Walks the lines of a file from the end towards the start over a memory-mapped window of its tail,
+ * so only the lines actually asked for are decoded. Lines ending before the window are not visited.
+ */
+final class ReverseLineReader {
+    static final long DEFAULT_WINDOW = 256L << 20;
+
+    private final MappedByteBuffer buffer;
+    // Whether the window starts in the middle of the file, making its first line partial
+    private final boolean clipped;
+    // Exclusive end of the next line to visit, or -1 when there is none
+    private int cursor;
+    private int lineStart;
+    private int lineEnd;
+
+    ReverseLineReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW);
+    }
+
+    ReverseLineReader(Path file, long window) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long from = Math.max(0, size - Math.min(window, Integer.MAX_VALUE));
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, size - from);
+            this.clipped = from > 0;
+        }
+        int end = buffer.limit();
+        // A trailing newline does not start another (empty) line
+        if (end > 0 && buffer.get(end - 1) == '\n') {
+            end--;
+        }
+        this.cursor = buffer.limit() == 0 ? -1 : end;
+    }
+
+    /**
+     * Moves to the line before the current one; false once the start of the window is reached.
+     */
+    boolean previous() {
+        if (cursor < 0) {
+            return false;
+        }
+        int start = cursor;
+        while (start > 0 && buffer.get(start - 1) != '\n') {
+            start--;
+        }
+        if (start == 0 && clipped) {
+            cursor = -1;
+            return false;
+        }
+        this.lineStart = start;
+        this.lineEnd = cursor;
+        this.cursor = start - 1;
+        return true;
+    }
+
+    boolean contains(byte[] needle) {
+        int last = lineEnd - needle.length;
+        for (int i = lineStart; i <= last; i++) {
+            int j = 0;
+            while (j < needle.length && buffer.get(i + j) == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String line() {
+        int end = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+        byte[] bytes = new byte[end - lineStart];
+        buffer.get(lineStart, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
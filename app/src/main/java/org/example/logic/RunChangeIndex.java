@@ -0,0 +1,77 @@
+package org.example.logic;
+
+import org.example.model.Status;
+import org.example.model.WorkflowRun;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * Remembers the run-level state each in-progress run had when its jobs were last fetched, so a poll
+ * only re-fetches the job list of runs that changed. GitHub bumps a run's {@code updated_at} when its
+ * jobs progress; the staleness bound covers updates that don't.
+ */
+final class RunChangeIndex {
+
+    private record Key(int runAttempt, long updatedAt, Status status) {
+        static Key of(WorkflowRun run) {
+            return new Key(run.getRunAttempt(), run.getUpdatedAt(), run.getStatus());
+        }
+    }
+
+    private record Entry(Key key, long jobsFetchedAt) {}
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final long maxStalenessMillis;
+
+    RunChangeIndex(Duration maxStaleness) {
+        this.maxStalenessMillis = maxStaleness.toMillis();
+    }
+
+    boolean needsJobs(WorkflowRun run, long now) {
+        Entry entry = entries.get(run.getId());
+        return entry == null
+                || !entry.key().equals(Key.of(run))
+                || now - entry.jobsFetchedAt() >= maxStalenessMillis;
+    }
+
+    void recordJobsFetched(WorkflowRun run, long now) {
+        entries.put(run.getId(), new Entry(Key.of(run), now));
+    }
+
+    void retainAll(LongPredicate tracked) {
+        entries.keySet().removeIf(runId -> !tracked.test(runId));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(entries.size());
+        for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+            Key key = entry.getValue().key();
+            out.writeLong(entry.getKey());
+            out.writeInt(key.runAttempt());
+            out.writeLong(key.updatedAt());
+            out.writeByte(TrackingSnapshot.ordinal(key.status()));
+            out.writeLong(entry.getValue().jobsFetchedAt());
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        int count = TrackingSnapshot.readCount(in);
+        for (int i = 0; i < count; i++) {
+            long runId = in.readLong();
+            Key key = new Key(in.readInt(), in.readLong(), TrackingSnapshot.fromOrdinal(STATUSES, in.readByte()));
+            entries.put(runId, new Entry(key, in.readLong()));
+        }
+    }
+}
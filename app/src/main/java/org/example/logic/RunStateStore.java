@@ -0,0 +1,289 @@
+package org.example.logic;
+
+import org.example.events.RunInfo;
+import org.example.model.Conclusion;
+import org.example.model.JobStep;
+import org.example.model.Status;
+import org.example.model.WorkflowJob;
+import org.example.model.WorkflowRun;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.example.logic.TrackingSnapshot.fromOrdinal;
+import static org.example.logic.TrackingSnapshot.ordinal;
+import static org.example.logic.TrackingSnapshot.readCount;
+import static org.example.logic.TrackingSnapshot.readString;
+import static org.example.logic.TrackingSnapshot.writeString;
+
+/**
+ * What change detection remembers about the in-progress runs of one repository: per job only its status,
+ * its conclusion and one byte per step, instead of the parsed jobs themselves. Runs are keyed by id and
+ * belong to one attempt; a re-attempt replaces the state of the previous one.
+ */
+final class RunStateStore {
+    private static final Status[] STATUSES = Status.values();
+    private static final Conclusion[] CONCLUSIONS = Conclusion.values();
+    // Step bytes hold status + 1 in the low 3 bits and conclusion + 1 above, with 0 for "no such step"
+    private static final int STATUS_BITS = 3;
+    private static final int STATUS_MASK = (1 << STATUS_BITS) - 1;
+    private static final byte[] NO_STEPS = new byte[0];
+
+    static final class RunState {
+        private final int runAttempt;
+        private final LongObjectMap<JobState> jobs = new LongObjectMap<>();
+        // Jobs by the fingerprint of the JSON they were last seen with
+        private final LongObjectMap<JobState> fingerprints = new LongObjectMap<>();
+        // Header of the run as last seen, for job changes that arrive without their run
+        private RunInfo run;
+
+        RunState(int runAttempt, RunInfo run) {
+            this.runAttempt = runAttempt;
+            this.run = run;
+        }
+
+        RunInfo run() {
+            return run;
+        }
+
+        void setRun(RunInfo run) {
+            this.run = run;
+        }
+
+        JobState job(long jobId) {
+            return jobs.get(jobId);
+        }
+
+        /**
+         * Whether a job was last seen with exactly this JSON, so fetching it again would show no change.
+         */
+        boolean isKnownFingerprint(long fingerprint) {
+            return fingerprint != 0 && fingerprints.containsKey(fingerprint);
+        }
+
+        void update(WorkflowJob job) {
+            JobState state = jobs.get(job.getId());
+            if (state == null) {
+                state = new JobState(job);
+                jobs.put(job.getId(), state);
+            } else {
+                if (state.fingerprint != 0) {
+                    fingerprints.remove(state.fingerprint);
+                }
+                state.update(job);
+            }
+            if (state.fingerprint != 0) {
+                fingerprints.put(state.fingerprint, state);
+            }
+        }
+    }
+
+    static final class JobState {
+        private byte status;
+        private byte conclusion;
+        // 0 when the job came without one, e.g. from a webhook delivery
+        private long fingerprint;
+        // Indexed by step number
+        private byte[] steps = NO_STEPS;
+
+        private JobState(WorkflowJob job) {
+            update(job);
+        }
+
+        private JobState(byte status, byte conclusion, long fingerprint, byte[] steps) {
+            this.status = status;
+            this.conclusion = conclusion;
+            this.fingerprint = fingerprint;
+            this.steps = steps;
+        }
+
+        Status status() {
+            return status == 0 ? null : STATUSES[status - 1];
+        }
+
+        Conclusion conclusion() {
+            return conclusion == 0 ? null : CONCLUSIONS[conclusion - 1];
+        }
+
+        /**
+         * Whether the step is new or its status differs from the one recorded.
+         */
+        boolean stepChanged(JobStep step) {
+            int number = step.getNumber();
+            if (number < 0 || number >= steps.length || steps[number] == 0) {
+                return true;
+            }
+            return (steps[number] & STATUS_MASK) != encode(step.getStatus());
+        }
+
+        private void update(WorkflowJob job) {
+            this.status = (byte) encode(job.getStatus());
+            this.conclusion = (byte) encode(job.getConclusion());
+            this.fingerprint = job.getFingerprint();
+
+            List<JobStep> sortedSteps = job.getSortedSteps();
+            int maxNumber = sortedSteps.isEmpty() ? -1 : sortedSteps.get(sortedSteps.size() - 1).getNumber();
+            byte[] packed = maxNumber < 0 ? NO_STEPS : new byte[maxNumber + 1];
+            for (JobStep step : sortedSteps) {
+                if (step.getNumber() >= 0) {
+                    packed[step.getNumber()] = (byte) (encode(step.getStatus()) | encode(step.getConclusion()) << STATUS_BITS);
+                }
+            }
+            this.steps = packed;
+        }
+    }
+
+    private final LongObjectMap<RunState> runs = new LongObjectMap<>();
+
+    /**
+     * State of the run's attempt, or null when that attempt is not tracked.
+     */
+    RunState get(WorkflowRun run) {
+        RunState state = runs.get(run.getId());
+        return state != null && state.runAttempt == run.getRunAttempt() ? state : null;
+    }
+
+    /**
+     * State of whichever attempt of the run is tracked, or null.
+     */
+    RunState get(long runId) {
+        return runs.get(runId);
+    }
+
+    boolean contains(long runId) {
+        return runs.containsKey(runId);
+    }
+
+    /**
+     * Starts tracking the run with no jobs, dropping the state of any earlier attempt.
+     */
+    RunState start(WorkflowRun run, RunInfo info) {
+        RunState state = new RunState(run.getRunAttempt(), info);
+        runs.put(run.getId(), state);
+        return state;
+    }
+
+    void evict(long runId) {
+        runs.remove(runId);
+    }
+
+    /**
+     * Drops the state of a different attempt of the run than the given one.
+     */
+    void evictOtherAttempts(WorkflowRun run) {
+        RunState state = runs.get(run.getId());
+        if (state != null && state.runAttempt != run.getRunAttempt()) {
+            runs.remove(run.getId());
+        }
+    }
+
+    /**
+     * Keeps only the tracked attempts that the given runs still list as in progress.
+     */
+    void retainInProgress(List<WorkflowRun> current) {
+        LongObjectMap<RunState> kept = new LongObjectMap<>(runs.size());
+        for (WorkflowRun run : current) {
+            RunState state = run.getStatus() == Status.IN_PROGRESS ? get(run) : null;
+            if (state != null) {
+                kept.put(run.getId(), state);
+            }
+        }
+        runs.retainKeys(kept::containsKey);
+    }
+
+    long[] runIds() {
+        return runs.keys();
+    }
+
+    int size() {
+        return runs.size();
+    }
+
+    void clear() {
+        runs.clear();
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(runs.size());
+        for (long runId : runs.keys()) {
+            RunState state = runs.get(runId);
+            out.writeLong(runId);
+            out.writeInt(state.runAttempt);
+            writeRunInfo(out, state.run);
+            out.writeInt(state.jobs.size());
+            for (long jobId : state.jobs.keys()) {
+                JobState job = state.jobs.get(jobId);
+                out.writeLong(jobId);
+                out.writeByte(job.status);
+                out.writeByte(job.conclusion);
+                out.writeLong(job.fingerprint);
+                out.writeInt(job.steps.length);
+                out.write(job.steps);
+            }
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        int runCount = readCount(in);
+        for (int i = 0; i < runCount; i++) {
+            long runId = in.readLong();
+            RunState state = new RunState(in.readInt(), readRunInfo(in));
+            int jobCount = readCount(in);
+            for (int j = 0; j < jobCount; j++) {
+                long jobId = in.readLong();
+                byte status = readCode(in, STATUSES.length);
+                byte conclusion = readCode(in, CONCLUSIONS.length);
+                long fingerprint = in.readLong();
+                byte[] steps = new byte[readCount(in)];
+                in.readFully(steps);
+                JobState job = new JobState(status, conclusion, fingerprint, steps.length == 0 ? NO_STEPS : steps);
+                state.jobs.put(jobId, job);
+                if (fingerprint != 0) {
+                    state.fingerprints.put(fingerprint, job);
+                }
+            }
+            runs.put(runId, state);
+        }
+    }
+
+    private static void writeRunInfo(DataOutputStream out, RunInfo run) throws IOException {
+        out.writeBoolean(run != null);
+        if (run == null) {
+            return;
+        }
+        out.writeLong(run.id());
+        out.writeLong(run.workflowId());
+        writeString(out, run.workflowName());
+        writeString(out, run.name());
+        writeString(out, run.headBranch());
+        writeString(out, run.headSha());
+        out.writeByte(ordinal(run.status()));
+        out.writeByte(ordinal(run.conclusion()));
+        out.writeInt(run.runAttempt());
+        writeString(out, run.htmlUrl());
+        out.writeLong(run.timestamp());
+    }
+
+    private static RunInfo readRunInfo(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new RunInfo(in.readLong(), in.readLong(), readString(in), readString(in), readString(in),
+                readString(in), fromOrdinal(STATUSES, in.readByte()), fromOrdinal(CONCLUSIONS, in.readByte()),
+                in.readInt(), readString(in), in.readLong());
+    }
+
+    private static byte readCode(DataInputStream in, int valueCount) throws IOException {
+        byte code = in.readByte();
+        if (code < 0 || code > valueCount) {
+            throw new IOException("Unknown state code " + code);
+        }
+        return code;
+    }
+
+    private static int encode(Enum<?> value) {
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.logic;
+
+import org.example.model.StringPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Compact binary form of what a {@link WorkflowLogger} tracks between polls: the created-at watermark,
+ * the queued, waiting and completed run ids, the per-run job state and the run change index. Stored at the end
+ * of every poll so a restart continues from it instead of re-fetching every run and job.
+ */
+final class TrackingSnapshot {
+    private static final int MAGIC = 0x47545331; // "GTS1"
+    // Enums are stored by ordinal; bump when Status or Conclusion change
+    private static final int FORMAT_VERSION = 2;
+
+    private TrackingSnapshot() {
+    }
+
+    static byte[] encode(long createdWatermark, Collection<Long> queuedRunIds, Collection<Long> waitingRunIds,
+                         Collection<Long> completedRunIds, RunStateStore runs, RunChangeIndex changes)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(createdWatermark);
+        writeIds(out, queuedRunIds);
+        writeIds(out, waitingRunIds);
+        writeIds(out, completedRunIds);
+        runs.writeTo(out);
+        changes.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restores a snapshot into the given (empty) state and returns its created-at watermark.
+     *
+     * @throws IOException if the snapshot is truncated, corrupt or of another format version
+     */
+    static long decode(byte[] snapshot, Collection<Long> queuedRunIds, Collection<Long> waitingRunIds,
+                       Collection<Long> completedRunIds, RunStateStore runs, RunChangeIndex changes)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format");
+            }
+            long createdWatermark = in.readLong();
+            readIds(in, queuedRunIds);
+            readIds(in, waitingRunIds);
+            readIds(in, completedRunIds);
+            runs.readFrom(in);
+            changes.readFrom(in);
+            if (in.available() > 0) {
+                throw new IOException("Trailing bytes after snapshot");
+            }
+            return createdWatermark;
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, Collection<Long> ids) throws IOException {
+        out.writeInt(ids.size());
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    private static void readIds(DataInputStream in, Collection<Long> ids) throws IOException {
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+            ids.add(in.readLong());
+        }
+    }
+
+    static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available()) {
+            throw new IOException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? StringPool.SHARED.intern(in.readUTF()) : null;
+    }
+
+    static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    static <E extends Enum<E>> E fromOrdinal(E[] values, byte ordinal) throws IOException {
+        if (ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Unknown enum ordinal " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.logic;
+
+import org.example.api.ApiDataRetriever;
+import org.example.db.Repository;
+import org.example.db.StoredWorkflow;
+import org.example.model.Workflow;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Workflows of one repository by id, persisted in the database so a restart needs no listing call.
+ * Unknown ids are looked up one by one; once the stored entries are older than the maximum age the
+ * whole listing is refreshed on a background thread while the stored names keep being served.
+ */
+public class WorkflowCatalog {
+    static final Duration DEFAULT_MAX_AGE = Duration.ofHours(24);
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(5);
+
+    private final ApiDataRetriever api;
+    private final Repository repo;
+    private final Duration maxAge;
+    private final Map<Long, Workflow> workflows = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long nextRefreshAt = Long.MAX_VALUE;
+
+    public WorkflowCatalog(ApiDataRetriever api, Repository repo) {
+        this(api, repo, DEFAULT_MAX_AGE);
+    }
+
+    public WorkflowCatalog(ApiDataRetriever api, Repository repo, Duration maxAge) {
+        this.api = api;
+        this.repo = repo;
+        this.maxAge = maxAge;
+        for (StoredWorkflow stored : repo.getWorkflows(api.repo, api.owner)) {
+            workflows.put(stored.workflow().getId(), stored.workflow());
+            scheduleRefresh(stored.fetchedAt());
+        }
+    }
+
+    /**
+     * Never returns null: a workflow the API can't resolve gets a placeholder named after its id.
+     */
+    public Workflow get(long workflowId) {
+        refreshIfStale();
+        Workflow workflow = workflows.get(workflowId);
+        if (workflow != null) {
+            return workflow;
+        }
+
+        try {
+            workflow = api.getWorkflow(workflowId);
+        } catch (Exception e) {
+            // Not remembered, so the next run of this workflow tries again
+            return placeholder(workflowId);
+        }
+        if (workflow == null) {
+            // Deleted workflow: remember the placeholder for this process only
+            workflow = placeholder(workflowId);
+            workflows.put(workflowId, workflow);
+            return workflow;
+        }
+
+        long fetchedAt = System.currentTimeMillis();
+        workflows.put(workflowId, workflow);
+        repo.saveWorkflow(api.repo, api.owner, workflow, fetchedAt);
+        scheduleRefresh(fetchedAt);
+        return workflow;
+    }
+
+    private void refreshIfStale() {
+        if (System.currentTimeMillis() < nextRefreshAt || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.startVirtualThread(() -> {
+            try {
+                long fetchedAt = System.currentTimeMillis();
+                List<Workflow> listing = api.getWorkflows();
+                listing.forEach(workflow -> workflows.put(workflow.getId(), workflow));
+                repo.setWorkflows(api.repo, api.owner, listing, fetchedAt);
+                nextRefreshAt = fetchedAt + maxAge.toMillis();
+            } catch (Exception e) {
+                // Keep serving what we have
+                nextRefreshAt = System.currentTimeMillis() + RETRY_DELAY.toMillis();
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    // The listing is due once its oldest entry reaches the maximum age
+    private void scheduleRefresh(long fetchedAt) {
+        nextRefreshAt = Math.min(nextRefreshAt, fetchedAt + maxAge.toMillis());
+    }
+
+    private static Workflow placeholder(long workflowId) {
+        Workflow workflow = new Workflow();
+        workflow.setId(workflowId);
+        workflow.setName("Workflow " + workflowId);
+        return workflow;
+    }
+}
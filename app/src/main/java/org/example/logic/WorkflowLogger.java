@@ -1,40 +1,119 @@
 package org.example.logic;
 
 import org.example.api.ApiDataRetriever;
+import org.example.api.RateLimitExceededException;
+import org.example.db.CompletedJobCache;
+import org.example.db.EventJournal;
+import org.example.db.RepoMetadata;
 import org.example.db.Repository;
+import org.example.events.ChangeEvent;
+import org.example.events.ChangeEvent.JobStatusChanged;
+import org.example.events.ChangeEvent.RunCompleted;
+import org.example.events.ChangeEvent.RunQueued;
+import org.example.events.ChangeEvent.RunStarted;
+import org.example.events.ChangeEvent.StepStatusChanged;
+import org.example.events.ConsoleSink;
+import org.example.events.EventDispatcher;
+import org.example.events.FailureSummary;
+import org.example.events.JobInfo;
+import org.example.events.RunInfo;
+import org.example.events.StepInfo;
 import org.example.model.*;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Detects changes in the workflow runs of one repository and publishes them as {@link ChangeEvent}s;
+ * printing and storing them is left to the sinks of the {@link EventDispatcher}.
+ */
 public class WorkflowLogger {
+    private static final List<Status> ACTIVE_STATUSES = List.of(Status.QUEUED, Status.IN_PROGRESS);
+    // Runs show up in the API with a small delay, so each window overlaps the previous poll
+    private static final Duration WATERMARK_OVERLAP = Duration.ofMinutes(2);
     private volatile boolean running = true;
-    private static final long POLL_INTERVAL_MS = 30_000;
     private final ApiDataRetriever api;
-    private final Map<Long, Workflow> existingWorkflows = new HashMap<>();
+    private final WorkflowCatalog workflows;
     private final Set<Long> queuedWorkflowRuns = new HashSet<>();
+    // Runs waiting for an approval or a runner; no status query lists them, so they are looked up until they move on
+    private final Set<Long> waitingWorkflowRuns = new HashSet<>();
     private final Set<Long> completedWorkflowRunIds = new HashSet<>();
-    private final Map<WorkflowRun, Map<Long, WorkflowJob>> activeWorkflowRuns = new HashMap<>();
+    private final RunStateStore activeWorkflowRuns = new RunStateStore();
     private final Repository repo;
     private final PrintStream out;
-
-    private OffsetDateTime oldestNotCompletedJobTimestamp;
-    private OffsetDateTime lastLoggedTimestamp;
+    private final EventDispatcher events;
+    private final String repositoryName;
+    private final JobFetcher jobFetcher;
+    private final RunChangeIndex runChangeIndex;
+    private final CompletedJobCache completedJobs;
+    // Null unless failure summaries include log excerpts
+    private final FailureLogExcerpts failureLogs;
+    private final LoggerConfig config;
+    // Null unless changes are journaled; the journal then also decides what was logged before a restart
+    private final EventJournal journal;
+    // Unfinished runs older than the stuck-run age, polled one by one so they don't pin the restart window
+    private final Set<Long> watchedRunIds = new LinkedHashSet<>();
+
+    // Epoch millis like the model timestamps; converted to zoned times only when printed
+    private long oldestNotCompletedJobTimestamp;
+    // Lower bound of the created>= query; moves forward every poll independently of unfinished runs
+    private long createdWatermark;
+    private long lastLoggedTimestamp;
     private final DateTimeFormatter logTimeFormat =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private final ZoneId zoneId = ZoneId.systemDefault();
 
     public WorkflowLogger(ApiDataRetriever api, Repository repo, PrintStream out) {
+        this(api, repo, out, LoggerConfig.defaults());
+    }
+
+    public WorkflowLogger(ApiDataRetriever api, Repository repo, PrintStream out, LoggerConfig config) {
+        this(api, repo, out, config, CompletedJobCache.shared());
+    }
+
+    public WorkflowLogger(ApiDataRetriever api, Repository repo, PrintStream out, LoggerConfig config,
+                          CompletedJobCache completedJobs) {
+        this(api, repo, out, config, completedJobs,
+                new EventDispatcher(List.of(new ConsoleSink(out, config.showRepository())),
+                        EventDispatcher.DEFAULT_CAPACITY, config.outputOverflow()));
+    }
+
+    /**
+     * @param out    receives operational messages such as poll errors; changes go to {@code events}
+     * @param events dispatcher of detected changes, possibly shared with the loggers of other repositories
+     */
+    public WorkflowLogger(ApiDataRetriever api, Repository repo, PrintStream out, LoggerConfig config,
+                          CompletedJobCache completedJobs, EventDispatcher events) {
+        this(api, repo, out, config, completedJobs, events, null);
+    }
+
+    /**
+     * @param journal where every change is appended before it is dispatched, possibly shared with the loggers
+     *                of other repositories; a change it already holds is not dispatched again
+     */
+    public WorkflowLogger(ApiDataRetriever api, Repository repo, PrintStream out, LoggerConfig config,
+                          CompletedJobCache completedJobs, EventDispatcher events, EventJournal journal) {
         this.api = api;
         this.repo = repo;
         this.out = out;
-        initWorkflows();
+        this.events = events;
+        this.repositoryName = api.owner + "/" + api.repo;
+        this.config = config;
+        this.jobFetcher = new JobFetcher(api, config.jobConcurrency(), config.jobsTimeout());
+        this.runChangeIndex = new RunChangeIndex(config.jobsMaxStaleness());
+        this.completedJobs = completedJobs;
+        this.failureLogs = config.failureLogLines() > 0 ? new FailureLogExcerpts(api, config.failureLogLines()) : null;
+        this.workflows = new WorkflowCatalog(api, repo);
+        this.journal = journal;
     }
 
     public void registerShutdownHook() {
@@ -43,40 +122,114 @@ public class WorkflowLogger {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             this.running = false;
             mainThread.interrupt();
+            events.close();
+            if (journal != null) {
+                journal.close();
+            }
+            repo.flush();
         }));
     }
 
+    /**
+     * Waits until the sinks have handled every change detected so far.
+     */
+    public void flush() throws InterruptedException {
+        events.flush();
+    }
+
+    /**
+     * Resumes from the stored state of a known repository, or registers a new one.
+     */
+    public void connect() throws Exception {
+        if (repo.exists(api.repo, api.owner)) {
+            RepoMetadata metadata = repo.getConnectedAt(api.repo, api.owner);
+            if (!resumeFromSnapshot(metadata)) {
+                handleExistingRepository(metadata.lastNotCompletedWorkflowRunTimestamp(), metadata.lastLoggedItemTimestamp());
+            }
+        } else {
+            repo.add(api.repo, api.owner);
+            handleNewRepository();
+        }
+    }
+
     public void handleNewRepository() throws Exception {
-        List<WorkflowRun> workflowRuns = api.getWorkflowRunsFrom(OffsetDateTime.now().minus(Duration.ofDays(3)).toString());
+        Instant startedAt = Instant.now();
+        List<WorkflowRun> workflowRuns = api.getWorkflowRunsFrom(startedAt.minus(Duration.ofDays(3)).toString());
+        this.createdWatermark = startedAt.minus(WATERMARK_OVERLAP).toEpochMilli();
         updateLocalCache(workflowRuns);
         this.oldestNotCompletedJobTimestamp = getOldestActiveRunTimestamp(workflowRuns);
-        updateTimestamp(OffsetDateTime.MIN);
+        updateTimestamp(EpochMillis.NONE);
+    }
+
+    /**
+     * Restores the tracking state stored by the last poll and reconciles it with one regular incremental
+     * poll, instead of re-fetching every run and job since the oldest unfinished run. Returns false,
+     * leaving the state empty, when there is no usable snapshot.
+     */
+    private boolean resumeFromSnapshot(RepoMetadata metadata) throws Exception {
+        byte[] snapshot = repo.getSnapshot(api.repo, api.owner);
+        if (snapshot == null) {
+            return false;
+        }
+        try {
+            this.createdWatermark = TrackingSnapshot.decode(snapshot, queuedWorkflowRuns, waitingWorkflowRuns,
+                    completedWorkflowRunIds, activeWorkflowRuns, runChangeIndex);
+        } catch (IOException e) {
+            out.println(repositoryPrefix() + "Ignoring stored tracking state: " + e.getMessage());
+            this.queuedWorkflowRuns.clear();
+            this.waitingWorkflowRuns.clear();
+            this.completedWorkflowRunIds.clear();
+            this.activeWorkflowRuns.clear();
+            this.runChangeIndex.clear();
+            return false;
+        }
+        this.watchedRunIds.addAll(repo.getWatchedRuns(api.repo, api.owner));
+        this.lastLoggedTimestamp = fromStoredTimestamp(metadata.lastLoggedItemTimestamp());
+        this.oldestNotCompletedJobTimestamp = fromStoredTimestamp(metadata.lastNotCompletedWorkflowRunTimestamp());
+        checkForChanges();
+        return true;
     }
 
     public void handleExistingRepository(String oldestNotCompletedJobTimestamp, String lastLoggedItem) throws Exception {
-        List<WorkflowRun> workflowsSinceLast = api.getWorkflowRunsFrom(oldestNotCompletedJobTimestamp);
-        this.lastLoggedTimestamp = OffsetDateTime.parse(lastLoggedItem);
+        Instant startedAt = Instant.now();
+        Map<Long, WorkflowRun> runs = new LinkedHashMap<>();
+        for (WorkflowRun run : api.getWorkflowRunsFrom(oldestNotCompletedJobTimestamp)) {
+            runs.put(run.getId(), run);
+        }
+        this.watchedRunIds.addAll(repo.getWatchedRuns(api.repo, api.owner));
+        lookUpMissingRuns(runs, this.watchedRunIds);
+        List<WorkflowRun> workflowsSinceLast = new ArrayList<>(runs.values());
+        updateWatchList(workflowsSinceLast, startedAt);
+
+        this.createdWatermark = startedAt.minus(WATERMARK_OVERLAP).toEpochMilli();
+        this.lastLoggedTimestamp = fromStoredTimestamp(lastLoggedItem);
         this.oldestNotCompletedJobTimestamp = getOldestActiveRunTimestamp(workflowsSinceLast);
-        OffsetDateTime lastLoggedTimestamp = this.lastLoggedTimestamp;
+        // A journal drops the changes it already holds, so everything since the oldest unfinished run is
+        // published again; the timestamp watermark only serves when there is no journal or it was just created
+        long loggedBefore = journal != null && !journal.isEmpty() ? EpochMillis.NONE : this.lastLoggedTimestamp;
+        Map<Long, List<WorkflowJob>> jobsByRun = fetchJobs(workflowsSinceLast.stream()
+                .filter(r -> r.getStatus() == Status.COMPLETED || r.getStatus() == Status.IN_PROGRESS)
+                .toList());
         for (WorkflowRun workflowRun : workflowsSinceLast) {
             List<WorkflowJob> jobs;
             switch (workflowRun.getStatus()) {
                 case Status.COMPLETED:
-                    jobs = api.getJobsForWorkflowRun(workflowRun.getId());
-                    logWorkflowRunIfNeeded(workflowRun, lastLoggedTimestamp, jobs);
+                    jobs = jobsByRun.get(workflowRun.getId());
+                    logWorkflowRunIfNeeded(workflowRun, loggedBefore, jobs);
                     updateLastLoggedTimestampWorkflowRun(workflowRun);
                     this.completedWorkflowRunIds.add(workflowRun.getId());
                     break;
                 case Status.IN_PROGRESS:
-                    logWorkflowRunIfNeeded(workflowRun, lastLoggedTimestamp, null);
+                    logWorkflowRunIfNeeded(workflowRun, loggedBefore, null);
                     updateLastLoggedTimestampWorkflowRun(workflowRun);
 
-                    jobs = api.getJobsForWorkflowRun(workflowRun.getId());
-                    activeWorkflowRuns.put(workflowRun, new HashMap<>());
+                    jobs = jobsByRun.get(workflowRun.getId());
+                    RunStateStore.RunState state = activeWorkflowRuns.start(workflowRun, runInfo(workflowRun));
+                    runChangeIndex.recordJobsFetched(workflowRun, startedAt.toEpochMilli());
 
                     for (WorkflowJob job : jobs) {
-                        activeWorkflowRuns.get(workflowRun).put(job.getId(), job);
-                        logJobIfNeeded(job, lastLoggedTimestamp);
+                        state.update(job);
+                        logJobIfNeeded(workflowRun, job, loggedBefore);
 
                         updateLastLoggedTimestampJob(job);
                     }
@@ -84,13 +237,14 @@ public class WorkflowLogger {
                 case Status.QUEUED:
                     this.queuedWorkflowRuns.add(workflowRun.getId());
                     updateLastLoggedTimestampWorkflowRun(workflowRun);
-                    logWorkflowRunIfNeeded(workflowRun, lastLoggedTimestamp, null);
+                    logWorkflowRunIfNeeded(workflowRun, loggedBefore, null);
                     break;
                 default:
+                    this.waitingWorkflowRuns.add(workflowRun.getId());
                     break;
             }
         }
-        updateTimestamp(lastLoggedTimestamp);
+        updateTimestamp(this.lastLoggedTimestamp);
     }
 
     public void startPolling() throws Exception {
@@ -99,17 +253,14 @@ public class WorkflowLogger {
 
     private void pollingMode() throws Exception {
         out.println("Started polling for changes (Press Ctrl+C to stop)...");
+        PollScheduler scheduler = new PollScheduler(api.getRateLimit(), api::getChargedRequests,
+                config.minPollInterval(), config.maxPollInterval());
         while (running) {
-            try {
-                checkForChanges();
-            } catch (Exception e) {
-                out.println("Error during poll: " + e.getMessage());
-                e.printStackTrace();
-            }
+            pollOnce();
 
-            // Sleep to preserve rate limit
+            // Sleep according to the remaining rate-limit budget
             try {
-                Thread.sleep(POLL_INTERVAL_MS);
+                Thread.sleep(scheduler.nextDelay(Instant.now()).toMillis());
             } catch (InterruptedException e) {
                 if (!running) {
                     break;
@@ -119,54 +270,238 @@ public class WorkflowLogger {
         }
     }
 
-    protected void checkForChanges() throws Exception {
-        OffsetDateTime oldest = this.oldestNotCompletedJobTimestamp;
-        List<WorkflowRun> workflowRuns = api.getWorkflowRunsFrom(oldest.toString());
-        workflowRuns.sort(Comparator.comparing(workflowRun -> workflowRun.getUpdatedAt() == null
-                ? workflowRun.getCreatedAt() : workflowRun.getUpdatedAt()));
+    /**
+     * Runs a single poll, reporting (not propagating) any failure so the caller can keep scheduling.
+     */
+    public void pollOnce() {
+        try {
+            checkForChanges();
+        } catch (RateLimitExceededException e) {
+            out.println(repositoryPrefix() + "Rate limit reached, pausing polling until "
+                    + e.getRetryAt().atZone(zoneId).format(logTimeFormat));
+        } catch (Exception e) {
+            out.println(repositoryPrefix() + "Error during poll: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    protected synchronized void checkForChanges() throws Exception {
+        Instant pollStartedAt = Instant.now();
+        List<WorkflowRun> workflowRuns = fetchRunsToInspect();
+        updateWatchList(workflowRuns, pollStartedAt);
+        workflowRuns.sort(Comparator.comparingLong(workflowRun -> EpochMillis.isSet(workflowRun.getUpdatedAt())
+                ? workflowRun.getUpdatedAt() : workflowRun.getCreatedAt()));
         this.oldestNotCompletedJobTimestamp = getOldestActiveRunTimestamp(workflowRuns);
 
+        // Fetch the jobs of every run we need to inspect concurrently, then diff and print in order.
+        // Tracked in-progress runs whose run-level state is unchanged keep their cached jobs.
+        long now = pollStartedAt.toEpochMilli();
+        List<WorkflowRun> runsNeedingJobs = workflowRuns.stream()
+                .filter(r -> (r.getStatus() == Status.COMPLETED && !completedWorkflowRunIds.contains(r.getId()))
+                        || (r.getStatus() == Status.IN_PROGRESS && needsJobRefresh(r, now)))
+                .toList();
+        Map<Long, List<WorkflowJob>> jobsByRun = fetchJobs(runsNeedingJobs);
+        runsNeedingJobs.forEach(r -> runChangeIndex.recordJobsFetched(r, now));
+
         for (WorkflowRun run : workflowRuns) {
-            switch (run.getStatus()) {
-                case Status.COMPLETED:
-                    if (!completedWorkflowRunIds.contains(run.getId())) {
-                        List<WorkflowJob> jobs = api.getJobsForWorkflowRun(run.getId());
+            inspectRun(run, jobsByRun.get(run.getId()));
+        }
+        // Only a poll that got this far has seen every run created before it started
+        this.createdWatermark = pollStartedAt.minus(WATERMARK_OVERLAP).toEpochMilli();
+        updateTimestamp(this.lastLoggedTimestamp);
+        updateLocalCache(workflowRuns);
+        saveSnapshot();
+    }
+
+    /**
+     * Diffs one run against the tracked state and prints what changed. Shared by polls and webhook deliveries.
+     */
+    private void inspectRun(WorkflowRun run, List<WorkflowJob> jobs) throws Exception {
+        switch (run.getStatus()) {
+            case Status.COMPLETED:
+                if (!completedWorkflowRunIds.contains(run.getId())) {
+                    checkForJobUpdatesForWorkflowRun(run, jobs);
+                    publishCompletedWorkflow(run, jobs);
+                    activeWorkflowRuns.evict(run.getId());
+                }
+                break;
+            case Status.IN_PROGRESS:
+                if (activeWorkflowRuns.get(run) != null) {
+                    // No jobs means the run is unchanged since they were last fetched
+                    if (jobs != null) {
                         checkForJobUpdatesForWorkflowRun(run, jobs);
-                        printCompletedWorkflow(run, jobs);
                     }
-                    break;
-                case Status.IN_PROGRESS:
-                    if (activeWorkflowRuns.containsKey(run)) {
-                    checkForJobUpdatesForWorkflowRun(run, null);
                 } else {
-                    // New Run Detected
-                    printWorkflowRun(run);
-                    activeWorkflowRuns.put(run, new HashMap<>());
+                    // New Run Detected (or a new attempt, which replaces the state of the previous one)
+                    RunInfo runInfo = runInfo(run);
+                    publish(new RunStarted(repositoryName, runInfo));
+                    RunStateStore.RunState state = activeWorkflowRuns.start(run, runInfo);
 
                     // Initialize jobs for the new run
-                    List<WorkflowJob> initialJobs = api.getJobsForWorkflowRun(run.getId());
-                    for (WorkflowJob job : initialJobs) {
-                        activeWorkflowRuns.get(run).put(job.getId(), job);
-                        printWorkflowJob(job, true, true);
+                    for (WorkflowJob job : jobs) {
+                        state.update(job);
+                        publish(new JobStatusChanged(repositoryName, runInfo, JobInfo.of(job), stepInfos(job.getSortedSteps())));
                     }
                 }
-                    break;
-                case Status.QUEUED:
-                    if (!queuedWorkflowRuns.contains(run.getId())) {
-                        printWorkflowRun(run);
-                    }
-                default:
-                    break;
-            }
+                break;
+            case Status.QUEUED:
+                if (!queuedWorkflowRuns.contains(run.getId())) {
+                    publish(new RunQueued(repositoryName, runInfo(run)));
+                }
+            default:
+                break;
         }
+    }
+
+    /**
+     * Applies a {@code workflow_run} webhook delivery through the same detection path as a poll.
+     */
+    public synchronized void onWorkflowRunEvent(WorkflowRun run) throws Exception {
+        long now = System.currentTimeMillis();
+        boolean needsJobs = (run.getStatus() == Status.COMPLETED && !completedWorkflowRunIds.contains(run.getId()))
+                || (run.getStatus() == Status.IN_PROGRESS && needsJobRefresh(run, now));
+        List<WorkflowJob> jobs = null;
+        if (needsJobs) {
+            jobs = fetchJobs(List.of(run)).get(run.getId());
+            runChangeIndex.recordJobsFetched(run, now);
+        }
+        inspectRun(run, jobs);
+        trackRun(run);
         updateTimestamp(this.lastLoggedTimestamp);
-        updateLocalCache(workflowRuns);
+    }
+
+    /**
+     * Applies a {@code workflow_job} webhook delivery. Jobs of runs not tracked as in progress are left
+     * to the run's own delivery or the next reconciliation poll, which fetch the whole job list anyway.
+     */
+    public synchronized void onWorkflowJobEvent(WorkflowJob job) throws Exception {
+        RunStateStore.RunState state = activeWorkflowRuns.get(job.getRunId());
+        if (state == null) {
+            return;
+        }
+        checkForJobUpdates(state, state.run(), List.of(job));
+        updateTimestamp(this.lastLoggedTimestamp);
+    }
+
+    /**
+     * Job lists of the given runs; completed attempts come from the durable cache and are fetched at most once.
+     * For runs already tracked as in progress the lists hold only the jobs that changed.
+     */
+    private Map<Long, List<WorkflowJob>> fetchJobs(List<WorkflowRun> runs) throws Exception {
+        Map<Long, List<WorkflowJob>> jobsByRun = new HashMap<>();
+        List<WorkflowRun> missing = new ArrayList<>();
+        for (WorkflowRun run : runs) {
+            List<WorkflowJob> cached = run.getStatus() == Status.COMPLETED
+                    ? completedJobs.get(run.getId(), run.getRunAttempt())
+                    : null;
+            if (cached != null) {
+                jobsByRun.put(run.getId(), cached);
+            } else {
+                missing.add(run);
+            }
+        }
+
+        // Tracked in-progress runs only need the jobs whose JSON changed since the last fetch
+        LongObjectMap<RunStateStore.RunState> tracked = new LongObjectMap<>();
+        for (WorkflowRun run : missing) {
+            RunStateStore.RunState state = run.getStatus() == Status.IN_PROGRESS ? activeWorkflowRuns.get(run) : null;
+            if (state != null) {
+                tracked.put(run.getId(), state);
+            }
+        }
+        jobsByRun.putAll(jobFetcher.fetchAll(missing.stream().map(WorkflowRun::getId).toList(), runId -> {
+            RunStateStore.RunState state = tracked.get(runId);
+            return state == null ? null : state::isKnownFingerprint;
+        }));
+        for (WorkflowRun run : missing) {
+            if (run.getStatus() == Status.COMPLETED) {
+                completedJobs.put(run.getId(), run.getRunAttempt(), jobsByRun.get(run.getId()));
+            }
+        }
+        return jobsByRun;
+    }
+
+    private boolean needsJobRefresh(WorkflowRun run, long now) {
+        return activeWorkflowRuns.get(run) == null || runChangeIndex.needsJobs(run, now);
+    }
+
+    // Incremental counterpart of updateLocalCache for a single run
+    private void trackRun(WorkflowRun run) {
+        this.queuedWorkflowRuns.remove(run.getId());
+        this.waitingWorkflowRuns.remove(run.getId());
+        this.activeWorkflowRuns.evictOtherAttempts(run);
+        if (run.getStatus() == Status.QUEUED) {
+            this.queuedWorkflowRuns.add(run.getId());
+        } else if (isWaiting(run.getStatus())) {
+            this.waitingWorkflowRuns.add(run.getId());
+        } else if (run.getStatus() == Status.COMPLETED) {
+            this.activeWorkflowRuns.evict(run.getId());
+            this.completedWorkflowRunIds.add(run.getId());
+        }
+    }
+
+    /**
+     * Plans the run queries of one poll so the payload scales with activity rather than history:
+     * queued and in-progress runs via the status filter, anything created since the watermark
+     * (catches runs that started and finished between polls), and an individual lookup for
+     * tracked, waiting and watched runs that no list covers, e.g. because they changed state.
+     */
+    private List<WorkflowRun> fetchRunsToInspect() throws Exception {
+        Map<Long, WorkflowRun> runs = new LinkedHashMap<>();
+        for (WorkflowRun run : api.getWorkflowRunsFrom(Instant.ofEpochMilli(this.createdWatermark).toString())) {
+            runs.put(run.getId(), run);
+        }
+        for (Status status : ACTIVE_STATUSES) {
+            for (WorkflowRun run : api.getWorkflowRunsWithStatus(status)) {
+                runs.put(run.getId(), run);
+            }
+        }
+
+        Set<Long> tracked = new LinkedHashSet<>(this.queuedWorkflowRuns);
+        tracked.addAll(this.waitingWorkflowRuns);
+        for (long runId : this.activeWorkflowRuns.runIds()) {
+            tracked.add(runId);
+        }
+        tracked.addAll(this.watchedRunIds);
+        lookUpMissingRuns(runs, tracked);
+        return new ArrayList<>(runs.values());
+    }
+
+    private void lookUpMissingRuns(Map<Long, WorkflowRun> runs, Collection<Long> runIds) throws Exception {
+        for (Long runId : runIds) {
+            if (runs.containsKey(runId)) {
+                continue;
+            }
+            WorkflowRun run = api.getWorkflowRun(runId);
+            if (run != null) {
+                runs.put(runId, run);
+            }
+        }
+    }
+
+    /**
+     * Moves unfinished runs older than the stuck-run age onto the watch list and drops watched runs
+     * that finished or disappeared. Persists the list only when it changed.
+     */
+    private void updateWatchList(List<WorkflowRun> runs, Instant now) {
+        long stuckBefore = now.minus(config.stuckRunAge()).toEpochMilli();
+        Set<Long> watched = new LinkedHashSet<>();
+        for (WorkflowRun run : runs) {
+            if (run.getStatus() != Status.COMPLETED
+                    && EpochMillis.isSet(run.getCreatedAt()) && run.getCreatedAt() < stuckBefore) {
+                watched.add(run.getId());
+            }
+        }
+        if (!watched.equals(this.watchedRunIds)) {
+            this.watchedRunIds.clear();
+            this.watchedRunIds.addAll(watched);
+            this.repo.setWatchedRuns(api.repo, api.owner, watched);
+        }
     }
 
     private void updateLocalCache(List<WorkflowRun> runs) {
-        this.activeWorkflowRuns.keySet().retainAll(runs.stream()
-                .filter(r -> r.getStatus() == Status.IN_PROGRESS)
-                .collect(Collectors.toSet()));
+        this.activeWorkflowRuns.retainInProgress(runs);
+        this.runChangeIndex.retainAll(this.activeWorkflowRuns::contains);
 
         this.completedWorkflowRunIds.clear();
         this.completedWorkflowRunIds.addAll(runs.stream()
@@ -177,243 +512,211 @@ public class WorkflowLogger {
         this.queuedWorkflowRuns.addAll(runs.stream()
                 .filter(r -> r.getStatus() == Status.QUEUED)
                 .map(WorkflowRun::getId).collect(Collectors.toSet()));
+
+        this.waitingWorkflowRuns.clear();
+        this.waitingWorkflowRuns.addAll(runs.stream()
+                .filter(r -> isWaiting(r.getStatus()))
+                .map(WorkflowRun::getId).collect(Collectors.toSet()));
+    }
+
+    private static boolean isWaiting(Status status) {
+        return status == Status.WAITING || status == Status.REQUESTED || status == Status.PENDING;
+    }
+
+    private void saveSnapshot() {
+        try {
+            repo.saveSnapshot(api.repo, api.owner, TrackingSnapshot.encode(createdWatermark, queuedWorkflowRuns,
+                    waitingWorkflowRuns, completedWorkflowRunIds, activeWorkflowRuns, runChangeIndex));
+        } catch (IOException e) {
+            out.println(repositoryPrefix() + "Could not store tracking state: " + e.getMessage());
+        }
     }
 
     private void checkForJobUpdatesForWorkflowRun(WorkflowRun workflowRun, List<WorkflowJob> currentJobs) throws Exception {
         if (currentJobs == null)
             currentJobs = api.getJobsForWorkflowRun(workflowRun.getId());
-        Map<Long, WorkflowJob> cachedJobs = this.activeWorkflowRuns.getOrDefault(workflowRun, new HashMap<>());
-        boolean runWasPrinted = false;
+        RunStateStore.RunState state = this.activeWorkflowRuns.get(workflowRun);
+        RunInfo runInfo = runInfo(workflowRun);
+        if (state == null) {
+            // Not tracked (e.g. a run first seen completed): every job is new, and nothing needs to be kept
+            state = new RunStateStore.RunState(workflowRun.getRunAttempt(), runInfo);
+        } else {
+            state.setRun(runInfo);
+        }
+        checkForJobUpdates(state, runInfo, currentJobs);
+    }
 
+    private void checkForJobUpdates(RunStateStore.RunState state, RunInfo runInfo, List<WorkflowJob> currentJobs) {
         for (WorkflowJob currentJob : currentJobs) {
-            WorkflowJob lastKnownJob = cachedJobs.get(currentJob.getId());
-            boolean jobWasPrinted = false;
-
-            if (lastKnownJob == null) {
-                if (!runWasPrinted) {
-                    printWorkflowRun(workflowRun);
-                    runWasPrinted = true;
-                }
-                printWorkflowJob(currentJob, false, false);
-                cachedJobs.put(currentJob.getId(), currentJob);
-                continue;
-            }
-
-            if (currentJob.getStatus() != lastKnownJob.getStatus()) {
-                if (!runWasPrinted) {
-                    printWorkflowRun(workflowRun);
-                    runWasPrinted = true;
+            RunStateStore.JobState lastKnownJob = state.job(currentJob.getId());
+            boolean jobChanged = lastKnownJob == null || currentJob.getStatus() != lastKnownJob.status();
+            List<StepInfo> changedSteps = new ArrayList<>();
+
+            if (lastKnownJob != null) {
+                // We iterate the CURRENT steps. This ensures we catch new steps added by the runner.
+                for (JobStep currentStep : currentJob.getSortedSteps()) {
+                    // A step is brand new (composite action expanded) or changed status
+                    if (lastKnownJob.stepChanged(currentStep)) {
+                        changedSteps.add(StepInfo.of(currentStep));
+                    }
                 }
-                printWorkflowJob(currentJob, false, false);
-                jobWasPrinted = true;
-                cachedJobs.put(currentJob.getId(), currentJob);
             }
 
-            Map<Integer, JobStep> oldStepMap = lastKnownJob.getSortedSteps().stream()
-                    .collect(Collectors.toMap(JobStep::getNumber, Function.identity()));
-
-            // We iterate the CURRENT steps. This ensures we catch new steps added by the runner.
-            for (JobStep currentStep : currentJob.getSortedSteps()) {
-                JobStep oldStep = oldStepMap.get(currentStep.getNumber());
-
-                // Scenario A: Step is brand new (Composite action expanded)
-                if (oldStep == null) {
-                    if (!jobWasPrinted) {
-                        if (!runWasPrinted) {
-                            printWorkflowRun(workflowRun);
-                            runWasPrinted = true;
-                        }
-                        printWorkflowJob(currentJob, false, false);
-                        jobWasPrinted = true;
-                    }
-                    this.lastLoggedTimestamp = updateLastLoggedTimestampStep(currentStep);
-                    printWorkflowJobStep(currentStep);
+            if (jobChanged || !changedSteps.isEmpty()) {
+                JobInfo jobInfo = JobInfo.of(currentJob);
+                if (jobChanged) {
+                    publish(new JobStatusChanged(repositoryName, runInfo, jobInfo, List.of()));
                 }
-                // Scenario B: Step existed, check if status changed
-                else if (oldStep.getStatus() != currentStep.getStatus()) {
-                    if (!jobWasPrinted) {
-                        if (!runWasPrinted) {
-                            printWorkflowRun(workflowRun);
-                            runWasPrinted = true;
-                        }
-                        printWorkflowJob(currentJob, false, false);
-                        jobWasPrinted = true;
-                    }
-                    this.lastLoggedTimestamp = updateLastLoggedTimestampStep(currentStep);
-                    printWorkflowJobStep(currentStep);
+                for (StepInfo step : changedSteps) {
+                    publish(new StepStatusChanged(repositoryName, runInfo, jobInfo, step));
                 }
             }
 
-            // Update the cache with the fresh job object
-            cachedJobs.put(currentJob.getId(), currentJob);
+            // Only the statuses are kept, not the job object
+            state.update(currentJob);
         }
     }
 
-    private OffsetDateTime updateLastLoggedTimestampStep(JobStep currentStep) {
-        if (currentStep.getCompletedAt() != null && currentStep.getCompletedAt().isAfter(this.lastLoggedTimestamp))
-            return currentStep.getCompletedAt();
-        else if (currentStep.getStartedAt() != null && currentStep.getStartedAt().isAfter(this.lastLoggedTimestamp))
-            return currentStep.getStartedAt();
-        return this.lastLoggedTimestamp;
+    private RunInfo runInfo(WorkflowRun run) {
+        return RunInfo.of(run, workflows.get(run.getWorkflowId()).getName());
     }
 
-    private void printWorkflowRun(WorkflowRun workflowRun) {
-        Workflow associatedWorkflow = existingWorkflows.get(workflowRun.getWorkflowId());
-        updateLastLoggedTimestampWorkflowRun(workflowRun);
-
-        // 1. Determine the relevant timestamp
-        OffsetDateTime timestamp = (workflowRun.getUpdatedAt() != null)
-                ? workflowRun.getUpdatedAt()
-                : workflowRun.getCreatedAt();
-
-        // 2. Determine the status/conclusion display string
-        String statusDisplay = (workflowRun.getStatus() == Status.COMPLETED)
-                ? workflowRun.getConclusion().toString()
-                : workflowRun.getStatus().toString();
-
-        // 3. Use String.format for a clean, scannable template
-        String header = String.format("[Workflow] %s", associatedWorkflow.getName());
-
-        String details = String.format(
-                "%s [RUN %s] %s | Branch: %s | Commit: %s",
-                timestamp.atZoneSameInstant(zoneId).format(logTimeFormat),
-                statusDisplay.toUpperCase(),
-                workflowRun.getName(),
-                workflowRun.getHeadBranch(),
-                workflowRun.getHeadSha()
-        );
+    private static List<StepInfo> stepInfos(List<JobStep> steps) {
+        return steps.stream().map(StepInfo::of).toList();
+    }
 
-        out.println(header);
-        out.println(details);
+    /**
+     * Journals a change and hands what the journal didn't hold yet to the sinks, and moves the watermark
+     * of what was logged past it.
+     */
+    private void publish(ChangeEvent event) {
+        this.lastLoggedTimestamp = Math.max(this.lastLoggedTimestamp, event.timestamp());
+        List<ChangeEvent> unlogged = List.of(event);
+        if (journal != null) {
+            try {
+                unlogged = journal.append(event);
+            } catch (UncheckedIOException e) {
+                out.println(repositoryPrefix() + "Could not journal change: " + e.getMessage());
+            }
+        }
+        try {
+            for (ChangeEvent change : unlogged) {
+                events.publish(change);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    private void printCompletedWorkflow(WorkflowRun run, List<WorkflowJob> jobs) {
-        printWorkflowRun(run);
+    private String repositoryPrefix() {
+        return config.showRepository() ? "[" + repositoryName + "] " : "";
+    }
 
+    private void publishCompletedWorkflow(WorkflowRun run, List<WorkflowJob> jobs) {
+        RunInfo info = runInfo(run);
+        // Completion keys don't depend on the failures, so a run logged before a restart isn't fetched again
+        if (journal != null && journal.contains(new RunCompleted(repositoryName, info, null))) {
+            this.lastLoggedTimestamp = Math.max(this.lastLoggedTimestamp, info.timestamp());
+            return;
+        }
+        FailureSummary failures = null;
         Conclusion conclusion = run.getConclusion();
         if (Conclusion.FAILURE.equals(conclusion) || Conclusion.TIMED_OUT.equals(conclusion)) {
-            out.println("   FAILURE SUMMARY:");
-            jobs.stream()
+            List<WorkflowJob> failedJobs = jobs.stream()
                     .filter(j -> List.of(Conclusion.FAILURE, Conclusion.TIMED_OUT, Conclusion.STARTUP_FAILURE)
                             .contains(j.getConclusion()))
-                    .forEach(job -> printWorkflowJob(job, true, false));
-        } else if (Conclusion.ACTION_REQUIRED.equals(conclusion)) {
-            out.println("   -> Action Required: " + run.getHtmlUrl());
+                    .toList();
+            Map<Long, List<String>> excerpts = fetchLogExcerpts(failedJobs);
+            failures = new FailureSummary(failedJobs.stream()
+                    .map(job -> new FailureSummary.FailedJob(JobInfo.of(job), failedSteps(job),
+                            excerpts.getOrDefault(job.getId(), List.of())))
+                    .toList());
         }
+        publish(new RunCompleted(repositoryName, info, failures));
     }
 
-    private void printWorkflowJob(WorkflowJob job, boolean printSteps, boolean printSuccessfulSteps) {
-        // 1. Determine timestamp: priority is Completed -> Started -> Created
-        OffsetDateTime timestamp = job.getCompletedAt();
-        if (timestamp == null) timestamp = (job.getStartedAt() != null) ? job.getStartedAt() : job.getCreatedAt();
-
-        // 2. Determine display status
-        String statusDisplay = ((job.getStatus() == Status.COMPLETED) ? job.getConclusion() : job.getStatus()).toString();
-
-        // 3. Print Job line (indented for hierarchy)
-        out.println(String.format(
-                "  %s [Job %s] %s",
-                timestamp.atZoneSameInstant(zoneId).format(logTimeFormat),
-                statusDisplay.toUpperCase(),
-                job.getName()
-        ));
-        updateLastLoggedTimestampJob(job);
-
-        if (printSteps) {
-            List<JobStep> steps = job.getSortedSteps();
-
-            // Filter out successful steps if requested
-            if (!printSuccessfulSteps) {
-                steps = steps.stream()
-                        .filter(s -> s.getConclusion() != null && !Conclusion.SUCCESS.equals(s.getConclusion()))
-                        .toList();
-            }
-
-            steps.forEach(this::printWorkflowJobStep);
-        }
+    private static List<StepInfo> failedSteps(WorkflowJob job) {
+        return stepInfos(job.getSortedSteps().stream()
+                .filter(s -> s.getConclusion() != null && !Conclusion.SUCCESS.equals(s.getConclusion()))
+                .toList());
     }
 
-    private void printWorkflowJobStep(JobStep step) {
-        if (step.getStatus() != Status.COMPLETED && step.getStatus() != Status.IN_PROGRESS) {
-            return;
+    private Map<Long, List<String>> fetchLogExcerpts(List<WorkflowJob> failedJobs) {
+        if (failureLogs == null || failedJobs.isEmpty()) {
+            return Map.of();
         }
-
-        OffsetDateTime timestamp = (step.getCompletedAt() == null) ? step.getStartedAt() : step.getCompletedAt();
-        String statusDisplay = ((step.getStatus() == Status.COMPLETED) ? step.getConclusion() : step.getStatus()).toString();
-
-        // 4. Print Step line (further indented)
-        out.println(String.format(
-                "    %s [Step %s] %s",
-                timestamp.atZoneSameInstant(zoneId).format(logTimeFormat),
-                statusDisplay.toUpperCase(),
-                step.getName()
-        ));
-        updateLastLoggedTimestampStep(step);
-    }
-    private void initWorkflows() {
         try {
-            List<Workflow> workflows = api.getWorkflows();
-            for (Workflow workflow : workflows) {
-                existingWorkflows.put(workflow.getId(), workflow);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            return failureLogs.excerptsFor(failedJobs.stream().map(WorkflowJob::getId).toList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Map.of();
         }
     }
 
-    private void logWorkflowRunIfNeeded(WorkflowRun workflowRun, OffsetDateTime lastLoggedTimestamp, List<WorkflowJob> jobs) {
-        if (workflowRun.getUpdatedAt() != null && workflowRun.getUpdatedAt().isAfter(lastLoggedTimestamp)) {
+    private void logWorkflowRunIfNeeded(WorkflowRun workflowRun, long lastLoggedTimestamp, List<WorkflowJob> jobs) {
+        if (workflowRun.getUpdatedAt() > lastLoggedTimestamp || workflowRun.getCreatedAt() > lastLoggedTimestamp) {
             if (jobs != null) {
-                printCompletedWorkflow(workflowRun, jobs);
+                publishCompletedWorkflow(workflowRun, jobs);
+            } else if (workflowRun.getStatus() == Status.QUEUED) {
+                publish(new RunQueued(repositoryName, runInfo(workflowRun)));
             } else {
-                printWorkflowRun(workflowRun);
-            }
-        }  else if (workflowRun.getCreatedAt() != null && workflowRun.getCreatedAt().isAfter(lastLoggedTimestamp)) {
-            if (jobs != null) {
-                printCompletedWorkflow(workflowRun, jobs);
-            } else {
-                printWorkflowRun(workflowRun);
+                publish(new RunStarted(repositoryName, runInfo(workflowRun)));
             }
         }
     }
 
     private void updateLastLoggedTimestampWorkflowRun(WorkflowRun workflowRun) {
-        if (workflowRun.getUpdatedAt() != null && workflowRun.getUpdatedAt().isAfter(this.lastLoggedTimestamp)) {
+        if (workflowRun.getUpdatedAt() > this.lastLoggedTimestamp) {
             this.lastLoggedTimestamp = workflowRun.getUpdatedAt();
-        } else if (workflowRun.getCreatedAt() != null && workflowRun.getCreatedAt().isAfter(this.lastLoggedTimestamp)) {
+        } else if (workflowRun.getCreatedAt() > this.lastLoggedTimestamp) {
             this.lastLoggedTimestamp = workflowRun.getCreatedAt();
         }
     }
 
     private void updateLastLoggedTimestampJob(WorkflowJob job) {
-        if (job.getCompletedAt() != null && job.getCompletedAt().isAfter(this.lastLoggedTimestamp))
+        if (job.getCompletedAt() > this.lastLoggedTimestamp)
             this.lastLoggedTimestamp = job.getCompletedAt();
-        else if (job.getStartedAt() != null && job.getStartedAt().isAfter(this.lastLoggedTimestamp))
+        else if (job.getStartedAt() > this.lastLoggedTimestamp)
             this.lastLoggedTimestamp = job.getStartedAt();
-        else if (job.getCreatedAt() != null && job.getCreatedAt().isAfter(this.lastLoggedTimestamp))
+        else if (job.getCreatedAt() > this.lastLoggedTimestamp)
             this.lastLoggedTimestamp = job.getCreatedAt();
     }
 
-    private void logJobIfNeeded(WorkflowJob job, OffsetDateTime lastLoggedTimestamp) {
-        if (job.getCompletedAt() != null && job.getCompletedAt().isAfter(lastLoggedTimestamp))
-            printWorkflowJob(job, true, true);
-        else if (job.getStartedAt() != null && job.getStartedAt().isAfter(lastLoggedTimestamp))
-            printWorkflowJob(job, true, false);
-        else if (job.getCreatedAt() != null && job.getCreatedAt().isAfter(lastLoggedTimestamp))
-            printWorkflowJob(job, false, false);
+    private void logJobIfNeeded(WorkflowRun workflowRun, WorkflowJob job, long lastLoggedTimestamp) {
+        List<StepInfo> steps;
+        if (job.getCompletedAt() > lastLoggedTimestamp)
+            steps = stepInfos(job.getSortedSteps());
+        else if (job.getStartedAt() > lastLoggedTimestamp)
+            steps = failedSteps(job);
+        else if (job.getCreatedAt() > lastLoggedTimestamp)
+            steps = List.of();
+        else
+            return;
+        publish(new JobStatusChanged(repositoryName, runInfo(workflowRun), JobInfo.of(job), steps));
     }
 
-    private void updateTimestamp(OffsetDateTime lastLoggedTimestamp) {
+    private void updateTimestamp(long lastLoggedTimestamp) {
         this.lastLoggedTimestamp = lastLoggedTimestamp;
-        this.repo.updateTimestamp(api.repo, api.owner, this.oldestNotCompletedJobTimestamp, this.lastLoggedTimestamp);
+        this.repo.updateTimestamp(api.repo, api.owner,
+                toStoredTimestamp(this.oldestNotCompletedJobTimestamp), toStoredTimestamp(this.lastLoggedTimestamp));
+    }
+
+    // The database keeps ISO strings, with OffsetDateTime.MIN for "nothing logged yet"
+    private static OffsetDateTime toStoredTimestamp(long millis) {
+        return EpochMillis.isSet(millis) ? Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC) : OffsetDateTime.MIN;
+    }
+
+    private static long fromStoredTimestamp(String timestamp) {
+        OffsetDateTime parsed = OffsetDateTime.parse(timestamp);
+        return parsed.equals(OffsetDateTime.MIN) ? EpochMillis.NONE : parsed.toInstant().toEpochMilli();
     }
 
-    private OffsetDateTime getOldestActiveRunTimestamp(List<WorkflowRun> workflowRuns) {
-        OffsetDateTime time = workflowRuns.stream()
-                .filter(r -> r.getStatus() != Status.COMPLETED)
-                .map(WorkflowRun::getCreatedAt)
-                .min(Comparator.naturalOrder())
-                .orElse(this.oldestNotCompletedJobTimestamp);
-        return time == null ? OffsetDateTime.now() : time;
+    private long getOldestActiveRunTimestamp(List<WorkflowRun> workflowRuns) {
+        return workflowRuns.stream()
+                .filter(r -> r.getStatus() != Status.COMPLETED && !watchedRunIds.contains(r.getId()))
+                .mapToLong(WorkflowRun::getCreatedAt)
+                .filter(EpochMillis::isSet)
+                .min()
+                .orElse(this.createdWatermark);
     }
 }
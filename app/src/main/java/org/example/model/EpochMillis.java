@@ -0,0 +1,110 @@
+package org.example.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Model timestamps are UTC epoch milliseconds. {@link #NONE} marks an absent value and orders before every real instant,
+ * so "is after" checks need no separate null test.
+ */
+public final class EpochMillis {
+    public static final long NONE = Long.MIN_VALUE;
+
+    private EpochMillis() {}
+
+    public static boolean isSet(long millis) {
+        return millis != NONE;
+    }
+
+    public static long parse(String text) {
+        return parse(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * Parses an ISO-8601 offset date-time as GitHub sends it ({@code 2020-01-22T19:33:08Z},
+     * {@code 2020-01-20T09:42:40.000-08:00}) straight from the parser's buffer; anything else goes through java.time.
+     */
+    public static long parse(char[] chars, int offset, int length) {
+        long millis = parseFast(chars, offset, length);
+        if (millis != NONE) {
+            return millis;
+        }
+        return OffsetDateTime.parse(new String(chars, offset, length)).toInstant().toEpochMilli();
+    }
+
+    // Returns NONE when the text isn't in the expected shape
+    private static long parseFast(char[] c, int start, int length) {
+        int end = start + length;
+        if (length < 20 || c[start + 4] != '-' || c[start + 7] != '-' || (c[start + 10] != 'T' && c[start + 10] != 't')
+                || c[start + 13] != ':' || c[start + 16] != ':') {
+            return NONE;
+        }
+        int year = number(c, start, 4);
+        int month = number(c, start + 5, 2);
+        int day = number(c, start + 8, 2);
+        int hour = number(c, start + 11, 2);
+        int minute = number(c, start + 14, 2);
+        int second = number(c, start + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return NONE;
+        }
+
+        int i = start + 19;
+        int millis = 0;
+        if (c[i] == '.') {
+            int digits = 0;
+            i++;
+            while (i < end && c[i] >= '0' && c[i] <= '9') {
+                if (digits < 3) {
+                    millis = millis * 10 + (c[i] - '0');
+                }
+                digits++;
+                i++;
+            }
+            if (digits == 0) {
+                return NONE;
+            }
+            for (; digits < 3; digits++) {
+                millis *= 10;
+            }
+        }
+
+        int offsetSeconds;
+        if (i == end - 1 && (c[i] == 'Z' || c[i] == 'z')) {
+            offsetSeconds = 0;
+        } else if (i == end - 6 && (c[i] == '+' || c[i] == '-') && c[i + 3] == ':') {
+            int offsetHours = number(c, i + 1, 2);
+            int offsetMinutes = number(c, i + 4, 2);
+            if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+                return NONE;
+            }
+            offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (c[i] == '-' ? -1 : 1);
+        } else {
+            return NONE;
+        }
+
+        long epochSecond = epochDay(year, month, day) * 86_400 + hour * 3600 + minute * 60 + second - offsetSeconds;
+        return epochSecond * 1000 + millis;
+    }
+
+    private static int number(char[] c, int from, int digits) {
+        int value = 0;
+        for (int i = from; i < from + digits; i++) {
+            if (c[i] < '0' || c[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (c[i] - '0');
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 of a proleptic Gregorian date
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
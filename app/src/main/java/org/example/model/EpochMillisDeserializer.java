@@ -0,0 +1,41 @@
+package org.example.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads an ISO-8601 timestamp into epoch milliseconds without building java.time objects; null becomes {@link EpochMillis#NONE}.
+ */
+public class EpochMillisDeserializer extends StdDeserializer<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    public EpochMillisDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+            return p.getLongValue();
+        }
+        if (!p.hasToken(JsonToken.VALUE_STRING)) {
+            return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+        }
+        try {
+            return EpochMillis.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        } catch (DateTimeParseException e) {
+            throw ctxt.weirdStringException(p.getText(), Long.class, e.getMessage());
+        }
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext ctxt) {
+        return EpochMillis.NONE;
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads a string through the {@link StringPool#SHARED shared pool}, for fields whose values repeat across polls.
+ */
+public class InternedStringDeserializer extends StdDeserializer<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    public InternedStringDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_STRING)) {
+            return StringPool.SHARED.intern(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        }
+        return StringDeserializer.instance.deserialize(p, ctxt);
+    }
+}
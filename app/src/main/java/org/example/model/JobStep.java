@@ -1,19 +1,29 @@
 package org.example.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.time.OffsetDateTime;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 public class JobStep {
+    @JsonView(Views.Poll.class)
+    @JsonDeserialize(using = InternedStringDeserializer.class)
     private String name;
+    @JsonView(Views.Poll.class)
     private Status status;
+    @JsonView(Views.Poll.class)
     private Conclusion conclusion;
+    @JsonView(Views.Poll.class)
     private int number;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("started_at")
-    private OffsetDateTime startedAt;
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long startedAt = EpochMillis.NONE;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("completed_at")
-    private OffsetDateTime completedAt;
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long completedAt = EpochMillis.NONE;
 
     // Getters and setters
     public String getName() { return name; }
@@ -28,9 +38,9 @@ public class JobStep {
     public int getNumber() { return number; }
     public void setNumber(int number) { this.number = number; }
 
-    public OffsetDateTime getStartedAt() { return startedAt; }
-    public void setStartedAt(OffsetDateTime startedAt) { this.startedAt = startedAt; }
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
 
-    public OffsetDateTime getCompletedAt() { return completedAt; }
-    public void setCompletedAt(OffsetDateTime completedAt) { this.completedAt = completedAt; }
+    public long getCompletedAt() { return completedAt; }
+    public void setCompletedAt(long completedAt) { this.completedAt = completedAt; }
 }
@@ -23,6 +23,13 @@ public enum Status {
     @JsonProperty("pending")
     PENDING;
 
+    /**
+     * Value used by the GitHub API, e.g. for the {@code status} query filter.
+     */
+    public String getApiValue() {
+        return name().toLowerCase();
+    }
+
     public String toString() {
         String[] split = super.toString().split("_");
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,55 @@
+package org.example.model;
+
+/**
+ * Bounded, lock-free cache of recently seen strings, used while parsing to share the values that repeat
+ * on every poll (run, job and step names, branches) instead of holding a fresh copy per object.
+ * <p>
+ * Each hash maps to a single slot and a newcomer replaces the old occupant, so memory stays fixed and
+ * a lookup that hits never allocates.
+ */
+public final class StringPool {
+    public static final StringPool SHARED = new StringPool(4096);
+    // Longer values (commit messages, titles) rarely repeat and would only evict the useful ones
+    private static final int MAX_LENGTH = 128;
+
+    private final String[] slots;
+    private final int mask;
+
+    public StringPool(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new String[size];
+        this.mask = size - 1;
+    }
+
+    public String intern(String value) {
+        return value == null ? null : intern(value.toCharArray(), 0, value.length());
+    }
+
+    public String intern(char[] chars, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int index = (hash ^ (hash >>> 16)) & mask;
+
+        String cached = slots[index];
+        if (cached != null && cached.length() == length && matches(cached, chars, offset)) {
+            return cached;
+        }
+        String value = new String(chars, offset, length);
+        slots[index] = value;
+        return value;
+    }
+
+    private static boolean matches(String cached, char[] chars, int offset) {
+        for (int i = 0; i < cached.length(); i++) {
+            if (cached.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
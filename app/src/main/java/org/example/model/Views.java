@@ -0,0 +1,13 @@
+package org.example.model;
+
+/**
+ * Jackson views selecting which model fields get bound.
+ */
+public final class Views {
+    /**
+     * Fields the logger reads while polling; everything else in a payload is skipped without being materialized.
+     */
+    public interface Poll {}
+
+    private Views() {}
+}
@@ -1,11 +1,14 @@
 package org.example.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonView;
 
 public class Workflow {
+    @JsonView(Views.Poll.class)
     private long id;
     @JsonProperty("node_id")
     private String nodeId;
+    @JsonView(Views.Poll.class)
     private String name;
     private String path;
     private String state; // e.g., "active"
@@ -1,7 +1,9 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.time.OffsetDateTime;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -11,8 +13,10 @@ import java.util.List;
  */
 public class WorkflowJob {
 
+    @JsonView(Views.Poll.class)
     private long id;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("run_id")
     private long runId;
 
@@ -30,19 +34,30 @@ public class WorkflowJob {
     @JsonProperty("html_url")
     private String htmlUrl;
 
+    @JsonView(Views.Poll.class)
     private Status status;
+    @JsonView(Views.Poll.class)
     private Conclusion conclusion;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("created_at")
-    private OffsetDateTime createdAt;
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long createdAt = EpochMillis.NONE;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("started_at")
-    private OffsetDateTime startedAt;
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long startedAt = EpochMillis.NONE;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("completed_at")
-    private OffsetDateTime completedAt;
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long completedAt = EpochMillis.NONE;
 
+    @JsonView(Views.Poll.class)
+    @JsonDeserialize(using = InternedStringDeserializer.class)
     private String name;
+    @JsonView(Views.Poll.class)
     private List<JobStep> steps;
 
     @JsonProperty("check_run_url")
@@ -68,6 +83,10 @@ public class WorkflowJob {
     @JsonProperty("head_branch")
     private String headBranch;
 
+    // XXH64 of the job's raw JSON when it was fetched with fingerprinting, otherwise 0
+    @JsonIgnore
+    private long fingerprint;
+
     // --- Identity & Equality ---
 
     @Override
@@ -97,6 +116,9 @@ public class WorkflowJob {
 
     public void setSteps(List<JobStep> steps) { this.steps = steps; }
 
+    public long getFingerprint() { return fingerprint; }
+    public void setFingerprint(long fingerprint) { this.fingerprint = fingerprint; }
+
     public long getId() { return id; }
     public void setId(long id) { this.id = id; }
 
@@ -124,14 +146,14 @@ public class WorkflowJob {
     public Conclusion getConclusion() { return conclusion; }
     public void setConclusion(Conclusion conclusion) { this.conclusion = conclusion; }
 
-    public OffsetDateTime getCreatedAt() { return createdAt; }
-    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
 
-    public OffsetDateTime getStartedAt() { return startedAt; }
-    public void setStartedAt(OffsetDateTime startedAt) { this.startedAt = startedAt; }
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
 
-    public OffsetDateTime getCompletedAt() { return completedAt; }
-    public void setCompletedAt(OffsetDateTime completedAt) { this.completedAt = completedAt; }
+    public long getCompletedAt() { return completedAt; }
+    public void setCompletedAt(long completedAt) { this.completedAt = completedAt; }
 
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
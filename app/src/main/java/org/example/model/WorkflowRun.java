@@ -1,20 +1,27 @@
 package org.example.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.time.OffsetDateTime;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.util.List;
 import java.util.Objects;
 
 public class WorkflowRun {
+    @JsonView(Views.Poll.class)
     private long id;
+    @JsonView(Views.Poll.class)
+    @JsonDeserialize(using = InternedStringDeserializer.class)
     private String name;
 
     @JsonProperty("node_id")
     private String nodeId;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("head_branch")
+    @JsonDeserialize(using = InternedStringDeserializer.class)
     private String headBranch;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("head_sha")
     private String headSha;
 
@@ -23,30 +30,40 @@ public class WorkflowRun {
     @JsonProperty("display_title")
     private String displayTitle;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("run_number")
     private int runNumber;
 
     private String event;
+    @JsonView(Views.Poll.class)
     private Status status;
+    @JsonView(Views.Poll.class)
     private Conclusion conclusion;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("workflow_id")
     private long workflowId;
 
     private String url;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("html_url")
     private String htmlUrl;
 
     @JsonProperty("pull_requests")
     private List<Object> pullRequests; // Can create a class if needed
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("created_at")
-    private OffsetDateTime createdAt;
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long createdAt = EpochMillis.NONE;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("updated_at")
-    private OffsetDateTime updatedAt;
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long updatedAt = EpochMillis.NONE;
 
+    @JsonView(Views.Poll.class)
     @JsonProperty("run_attempt")
     private int runAttempt;
 
@@ -111,11 +128,11 @@ public class WorkflowRun {
     public List<Object> getPullRequests() { return pullRequests; }
     public void setPullRequests(List<Object> pullRequests) { this.pullRequests = pullRequests; }
 
-    public OffsetDateTime getCreatedAt() { return createdAt; }
-    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
 
-    public OffsetDateTime getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
 
     public int getRunAttempt() { return runAttempt; }
     public void setRunAttempt(int runAttempt) { this.runAttempt = runAttempt; }
@@ -0,0 +1,168 @@
+package org.example.webhook;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.logic.WorkflowLogger;
+import org.example.model.WorkflowJob;
+import org.example.model.WorkflowRun;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Embedded listener for GitHub {@code workflow_run} and {@code workflow_job} webhook deliveries.
+ * <p>
+ * Deliveries are authenticated with the {@code X-Hub-Signature-256} HMAC, acknowledged right away and
+ * applied in arrival order on one worker thread, routed by {@code repository.full_name} to the logger
+ * of that repository.
+ */
+public class WebhookServer {
+    public static final String PATH = "/webhook";
+    // GitHub caps webhook payloads at 25 MB
+    private static final int MAX_PAYLOAD_BYTES = 25 * 1024 * 1024;
+    private static final int MAX_PENDING_DELIVERIES = 1000;
+    private static final String SIGNATURE_PREFIX = "sha256=";
+
+    private final HttpServer server;
+    private final byte[] secret;
+    private final Function<String, WorkflowLogger> loggers;
+    private final PrintStream out;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING_DELIVERIES), r -> {
+                Thread thread = new Thread(r, "webhook-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * @param loggers resolves an {@code owner/repo} name to its logger, or null if the repository isn't watched
+     */
+    public WebhookServer(int port, String secret, Function<String, WorkflowLogger> loggers, PrintStream out) throws IOException {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("A webhook secret is required to verify deliveries");
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.loggers = loggers;
+        this.out = out;
+        objectMapper.findAndRegisterModules();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(PATH, this::handle);
+    }
+
+    public void start() {
+        server.start();
+        out.println("Listening for webhook deliveries on port " + getPort() + PATH);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(1);
+        worker.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                exchange.sendResponseHeaders(413, -1);
+                return;
+            }
+            String signature = exchange.getRequestHeaders().getFirst("X-Hub-Signature-256");
+            if (!isValidSignature(secret, body, signature)) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+
+            String event = exchange.getRequestHeaders().getFirst("X-GitHub-Event");
+            if (!"workflow_run".equals(event) && !"workflow_job".equals(event)) {
+                // ping and anything else we didn't ask for
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+            try {
+                worker.execute(() -> dispatch(event, body));
+            } catch (RejectedExecutionException e) {
+                // Failed deliveries can be redelivered from the GitHub UI; polls reconcile the rest
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(202, -1);
+        }
+    }
+
+    private void dispatch(String event, byte[] body) {
+        try {
+            JsonNode payload = objectMapper.readTree(body);
+            String repository = payload.path("repository").path("full_name").asText();
+            WorkflowLogger logger = loggers.apply(repository);
+            if (logger == null) {
+                return;
+            }
+            if ("workflow_run".equals(event)) {
+                logger.onWorkflowRunEvent(objectMapper.treeToValue(payload.get("workflow_run"), WorkflowRun.class));
+            } else {
+                logger.onWorkflowJobEvent(objectMapper.treeToValue(payload.get("workflow_job"), WorkflowJob.class));
+            }
+        } catch (Exception e) {
+            out.println("Error handling " + event + " delivery: " + e.getMessage());
+        }
+    }
+
+    // Returns null when the payload exceeds the size limit
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_PAYLOAD_BYTES + 1);
+        return body.length > MAX_PAYLOAD_BYTES ? null : body;
+    }
+
+    /**
+     * Checks a {@code sha256=<hex>} signature header against the HMAC-SHA256 of the body, in constant time.
+     */
+    static boolean isValidSignature(byte[] secret, byte[] body, String signatureHeader) {
+        if (signatureHeader == null || !signatureHeader.startsWith(SIGNATURE_PREFIX)) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            expected = HexFormat.of().parseHex(signatureHeader.substring(SIGNATURE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, sign(secret, body));
+    }
+
+    static byte[] sign(byte[] secret, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package org.example.api;
 
 import org.example.model.Workflow;
+import org.example.model.WorkflowJob;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,14 +37,14 @@ class ApiDataRetrieverTest {
 
     @Test
     void getWorkflows_handlesPagination() throws Exception {
-        HttpResponse<String> page1 = mockResponse("""
+        HttpResponse<InputStream> page1 = mockResponse("""
             { "total_count": 3, "workflows": [
                 { "id": 1, "name": "A" },
                 { "id": 2, "name": "B" }
             ]}
         """);
 
-        HttpResponse<String> page2 = mockResponse("""
+        HttpResponse<InputStream> page2 = mockResponse("""
             { "total_count": 3, "workflows": [
                 { "id": 3, "name": "C" }
             ]}
@@ -68,10 +77,138 @@ class ApiDataRetrieverTest {
     }
 
 
-    private HttpResponse<String> mockResponse(String body) {
-        HttpResponse<String> response = mock(HttpResponse.class);
-        when(response.statusCode()).thenReturn(200);
-        when(response.body()).thenReturn(body);
+    @Test
+    void getWorkflows_reusesCachedPageOnNotModified() throws Exception {
+        HttpResponse<InputStream> fresh = mockResponse("""
+            { "total_count": 1, "workflows": [
+                { "id": 1, "name": "A" }
+            ]}
+        """);
+        when(fresh.headers()).thenReturn(HttpHeaders.of(Map.of("ETag", List.of("W/\"abc\"")), (k, v) -> true));
+
+        HttpResponse<InputStream> notModified = mockResponse(304, "");
+
+        doReturn(fresh)
+                .doReturn(notModified)
+                .when(api).executeRequest(any(HttpRequest.class));
+
+        api.getWorkflows();
+        List<Workflow> workflows = api.getWorkflows();
+
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(api, times(2)).executeRequest(requests.capture());
+        assertEquals("W/\"abc\"", requests.getAllValues().get(1).headers().firstValue("If-None-Match").orElse(null));
+
+        assertEquals(1, workflows.size());
+        assertEquals("A", workflows.get(0).getName());
+        assertEquals(1, api.getResponseCache().getHits());
+        assertEquals(1, api.getResponseCache().getMisses());
+    }
+
+    @Test
+    void getWorkflows_repeatsRequestUnconditionallyOnNotModifiedWithoutCachedPage() throws Exception {
+        HttpResponse<InputStream> notModified = mockResponse(304, "");
+        HttpResponse<InputStream> fresh = mockResponse("""
+            { "total_count": 1, "workflows": [
+                { "id": 1, "name": "A" }
+            ]}
+        """);
+
+        doReturn(notModified)
+                .doReturn(fresh)
+                .when(api).executeRequest(any(HttpRequest.class));
+
+        List<Workflow> workflows = api.getWorkflows();
+
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(api, times(2)).executeRequest(requests.capture());
+        assertTrue(requests.getAllValues().get(1).headers().firstValue("If-None-Match").isEmpty());
+        assertEquals(1, workflows.size());
+        assertEquals("A", workflows.get(0).getName());
+    }
+
+    @Test
+    void forEachJobOfWorkflowRun_streamsItemsAndSkipsUnknownFields() throws Exception {
+        HttpResponse<InputStream> page = mockResponse("""
+            { "total_count": 2, "extra": { "nested": [1, 2, 3] }, "jobs": [
+                { "id": 10, "name": "build", "steps": [ { "number": 1, "name": "Checkout" } ] },
+                { "id": 11, "name": "test", "labels": ["ubuntu-latest"] }
+            ]}
+        """);
+        doReturn(page).when(api).executeRequest(any(HttpRequest.class));
+
+        List<WorkflowJob> jobs = new ArrayList<>();
+        api.forEachJobOfWorkflowRun(99L, jobs::add);
+
+        assertEquals(2, jobs.size());
+        assertEquals(10L, jobs.get(0).getId());
+        assertEquals("Checkout", jobs.get(0).getSortedSteps().get(0).getName());
+        assertEquals("test", jobs.get(1).getName());
+    }
+
+    @Test
+    void getJobsForWorkflowRun_bindsOnlyJobsWhoseJsonChanged() throws Exception {
+        String job10 = """
+                { "id": 10, "name": "build", "steps": [ { "number": 1, "name": "Checkout" } ] }""";
+        HttpResponse<InputStream> first = mockResponse("""
+            { "jobs": [ %s, { "id": 11, "status": "queued" } ], "total_count": 2 }
+        """.formatted(job10));
+        HttpResponse<InputStream> second = mockResponse("""
+            { "jobs": [ %s, { "id": 11, "status": "in_progress", "name": "say \\"hi\\" }" } ], "total_count": 2 }
+        """.formatted(job10));
+        doReturn(first).doReturn(second).when(api).executeRequest(any(HttpRequest.class));
+
+        List<WorkflowJob> all = api.getJobsForWorkflowRun(99L, fingerprint -> false);
+        Set<Long> known = new HashSet<>();
+        all.forEach(job -> known.add(job.getFingerprint()));
+        List<WorkflowJob> changed = api.getJobsForWorkflowRun(99L, known::contains);
+
+        assertEquals(2, all.size());
+        assertEquals(2, known.size());
+        assertEquals(1, changed.size());
+        assertEquals(11L, changed.get(0).getId());
+        assertEquals("say \"hi\" }", changed.get(0).getName());
+    }
+
+    @Test
+    void getJobsForWorkflowRun_refetchesPageCachedWithoutFingerprints() throws Exception {
+        HttpResponse<InputStream> plain = mockResponse("""
+            { "jobs": [ { "id": 10, "name": "build" } ], "total_count": 1 }
+        """);
+        when(plain.headers()).thenReturn(HttpHeaders.of(Map.of("ETag", List.of("W/\"abc\"")), (k, v) -> true));
+        HttpResponse<InputStream> fingerprinted = mockResponse("""
+            { "jobs": [ { "id": 10, "name": "build" } ], "total_count": 1 }
+        """);
+        doReturn(plain).doReturn(fingerprinted).when(api).executeRequest(any(HttpRequest.class));
+
+        List<WorkflowJob> all = api.getJobsForWorkflowRun(99L);
+        List<WorkflowJob> changed = api.getJobsForWorkflowRun(99L, fingerprint -> false);
+
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(api, times(2)).executeRequest(requests.capture());
+        assertTrue(requests.getAllValues().get(1).headers().firstValue("If-None-Match").isEmpty());
+        assertNotEquals(0L, changed.get(0).getFingerprint());
+        assertEquals(0L, all.get(0).getFingerprint(), "Jobs of the cached page are left alone");
+    }
+
+    @Test
+    void parseLastPage_readsLastRelFromLinkHeader() {
+        String link = "<https://api.github.com/repositories/1/actions/runs?per_page=100&page=2>; rel=\"next\", "
+                + "<https://api.github.com/repositories/1/actions/runs?per_page=100&page=7>; rel=\"last\"";
+
+        assertEquals(7, ApiDataRetriever.parseLastPage(link));
+        assertEquals(0, ApiDataRetriever.parseLastPage(null));
+    }
+
+    private HttpResponse<InputStream> mockResponse(String body) {
+        return mockResponse(200, body);
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse<InputStream> mockResponse(int statusCode, String body) {
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(statusCode);
+        when(response.body()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
         return response;
     }
 }
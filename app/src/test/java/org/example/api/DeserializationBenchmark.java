@@ -0,0 +1,131 @@
+package org.example.api;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.example.model.Views;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares binding every model field with reading through the poll view, on synthetic pages shaped
+ * like real GitHub responses. Run with {@code ./gradlew deserializationBenchmark}.
+ */
+public class DeserializationBenchmark {
+    private static final int WARMUP_ITERATIONS = 3_000;
+    private static final int MEASURED_ITERATIONS = 5_000;
+
+    private static long consumed;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .build();
+        byte[] runsPage = runsPage(100).getBytes(StandardCharsets.UTF_8);
+        byte[] jobsPage = jobsPage(30, 15).getBytes(StandardCharsets.UTF_8);
+
+        PageParser full = new PageParser(objectMapper, null);
+        PageParser poll = new PageParser(objectMapper, Views.Poll.class);
+
+        System.out.printf("%-22s %12s %14s%n", "", "us/page", "KB alloc/page");
+        measure("runs page, full", full, runsPage, WorkflowRunsDataContract.class);
+        measure("runs page, poll view", poll, runsPage, WorkflowRunsDataContract.class);
+        measure("jobs page, full", full, jobsPage, WorkflowRunJobsDataContract.class);
+        measure("jobs page, poll view", poll, jobsPage, WorkflowRunJobsDataContract.class);
+        System.out.println("(checksum " + consumed + ")");
+    }
+
+    private static <T extends CountableDataContract<U>, U> void measure(String label, PageParser parser, byte[] page,
+                                                                        Class<T> type) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            consumed += parser.parse(new ByteArrayInputStream(page), type, item -> consumed++);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            consumed += parser.parse(new ByteArrayInputStream(page), type, item -> consumed++);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-22s %12.1f %14.1f%n", label,
+                elapsed / 1_000.0 / MEASURED_ITERATIONS, allocated / 1024.0 / MEASURED_ITERATIONS);
+    }
+
+    private static String runsPage(int runs) {
+        StringBuilder json = new StringBuilder("{\"total_count\":").append(runs).append(",\"workflow_runs\":[");
+        for (int i = 0; i < runs; i++) {
+            if (i > 0) json.append(',');
+            String base = "https://api.github.com/repos/octo-org/octo-repo/actions/runs/" + (30433642 + i);
+            json.append("{\"id\":").append(30433642 + i)
+                    .append(",\"name\":\"Build\",\"node_id\":\"MDEyOldvcmtmbG93IFJ1bjI2OTI4OQ==").append(i).append('"')
+                    .append(",\"head_branch\":\"main\",\"head_sha\":\"acb5820ced9479c074f688cc328bf03f341a511d\"")
+                    .append(",\"path\":\".github/workflows/build.yml@main\",\"display_title\":\"Update README.md\"")
+                    .append(",\"run_number\":").append(562 + i)
+                    .append(",\"event\":\"push\",\"status\":\"completed\",\"conclusion\":\"success\",\"workflow_id\":159038")
+                    .append(",\"check_suite_id\":42111,\"check_suite_node_id\":\"MDEwOkNoZWNrU3VpdGU0MjExMQ==\"")
+                    .append(",\"url\":\"").append(base).append('"')
+                    .append(",\"html_url\":\"https://github.com/octo-org/octo-repo/actions/runs/").append(30433642 + i).append('"')
+                    .append(",\"pull_requests\":[{\"url\":\"https://api.github.com/repos/octo-org/octo-repo/pulls/1\",\"id\":1,\"number\":1")
+                    .append(",\"head\":{\"ref\":\"feature\",\"sha\":\"acb5820ced9479c074f688cc328bf03f341a511d\"}")
+                    .append(",\"base\":{\"ref\":\"main\",\"sha\":\"9049f1265b7d61be4a8904a9a27120d2064dab3b\"}}]")
+                    .append(",\"created_at\":\"2020-01-22T19:33:08Z\",\"updated_at\":\"2020-01-22T19:33:08Z\"")
+                    .append(",\"actor\":").append(user())
+                    .append(",\"run_attempt\":1,\"run_started_at\":\"2020-01-22T19:33:08Z\",\"triggering_actor\":").append(user())
+                    .append(",\"jobs_url\":\"").append(base).append("/jobs\"")
+                    .append(",\"logs_url\":\"").append(base).append("/logs\"")
+                    .append(",\"check_suite_url\":\"https://api.github.com/repos/octo-org/octo-repo/check-suites/414944374\"")
+                    .append(",\"artifacts_url\":\"").append(base).append("/artifacts\"")
+                    .append(",\"cancel_url\":\"").append(base).append("/cancel\"")
+                    .append(",\"rerun_url\":\"").append(base).append("/rerun\"")
+                    .append(",\"workflow_url\":\"https://api.github.com/repos/octo-org/octo-repo/actions/workflows/159038\"")
+                    .append(",\"head_commit\":{\"id\":\"acb5820ced9479c074f688cc328bf03f341a511d\",\"tree_id\":\"d23f6eedb1e1b9610bbc754ddb5197bfe7271223\"")
+                    .append(",\"message\":\"Create linter.yaml\",\"timestamp\":\"2020-01-22T19:33:05Z\"")
+                    .append(",\"author\":{\"name\":\"Octo Cat\",\"email\":\"octocat@github.com\"}")
+                    .append(",\"committer\":{\"name\":\"GitHub\",\"email\":\"noreply@github.com\"}}")
+                    .append(",\"repository\":{\"id\":1296269,\"name\":\"octo-repo\",\"full_name\":\"octo-org/octo-repo\",\"owner\":")
+                    .append(user()).append(",\"private\":false}")
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String jobsPage(int jobs, int stepsPerJob) {
+        StringBuilder json = new StringBuilder("{\"total_count\":").append(jobs).append(",\"jobs\":[");
+        for (int i = 0; i < jobs; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(399444496 + i)
+                    .append(",\"run_id\":29679449,\"run_url\":\"https://api.github.com/repos/octo-org/octo-repo/actions/runs/29679449\"")
+                    .append(",\"node_id\":\"MDEyOldvcmtmbG93IEpvYjM5OTQ0NDQ5Ng==").append(i).append('"')
+                    .append(",\"head_sha\":\"f83a356604ae3c5d03e1b46ef4d1ca77d64a90b0\"")
+                    .append(",\"url\":\"https://api.github.com/repos/octo-org/octo-repo/actions/jobs/").append(399444496 + i).append('"')
+                    .append(",\"html_url\":\"https://github.com/octo-org/octo-repo/runs/").append(399444496 + i).append('"')
+                    .append(",\"status\":\"completed\",\"conclusion\":\"success\"")
+                    .append(",\"created_at\":\"2020-01-20T17:42:40Z\",\"started_at\":\"2020-01-20T17:42:40Z\",\"completed_at\":\"2020-01-20T17:44:39Z\"")
+                    .append(",\"name\":\"build\",\"steps\":[");
+            for (int s = 1; s <= stepsPerJob; s++) {
+                if (s > 1) json.append(',');
+                json.append("{\"name\":\"Step ").append(s).append("\",\"status\":\"completed\",\"conclusion\":\"success\",\"number\":").append(s)
+                        .append(",\"started_at\":\"2020-01-20T09:42:40.000-08:00\",\"completed_at\":\"2020-01-20T09:42:41.000-08:00\"}");
+            }
+            json.append("],\"check_run_url\":\"https://api.github.com/repos/octo-org/octo-repo/check-runs/").append(399444496 + i).append('"')
+                    .append(",\"labels\":[\"self-hosted\",\"foo\",\"bar\"],\"runner_id\":1,\"runner_name\":\"my runner\"")
+                    .append(",\"runner_group_id\":2,\"runner_group_name\":\"my runner group\"")
+                    .append(",\"workflow_name\":\"CI\",\"head_branch\":\"main\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String user() {
+        return "{\"login\":\"octocat\",\"id\":1,\"node_id\":\"MDQ6VXNlcjE=\",\"avatar_url\":\"https://github.com/images/error/octocat_happy.gif\""
+                + ",\"url\":\"https://api.github.com/users/octocat\",\"html_url\":\"https://github.com/octocat\",\"type\":\"User\",\"site_admin\":false}";
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTransportTest {
+
+    private final CountDownLatch releaseSlowResponses = new CountDownLatch(1);
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlowResponses.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void hedgeDelay_followsP95OfRecentLatencies() {
+        HttpTransport transport = new HttpTransport(TransportConfig.defaults().withMinHedgeDelay(Duration.ofMillis(10)));
+        assertEquals(Duration.ofMillis(10), transport.hedgeDelay(), "Too few latencies recorded yet");
+
+        for (int millis = 1; millis <= 100; millis++) {
+            transport.recordLatency(Duration.ofMillis(millis).toNanos());
+        }
+        assertEquals(Duration.ofMillis(95), transport.hedgeDelay());
+
+        HttpTransport withFloor = new HttpTransport(TransportConfig.defaults().withMinHedgeDelay(Duration.ofMillis(500)));
+        for (int millis = 1; millis <= 100; millis++) {
+            withFloor.recordLatency(Duration.ofMillis(millis).toNanos());
+        }
+        assertEquals(Duration.ofMillis(500), withFloor.hedgeDelay());
+    }
+
+    @Test
+    void send_hedgedGetReturnsTheFirstResponse() throws Exception {
+        // The first request hangs until the test ends; the hedge is answered right away
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/runs", exchange -> {
+            if (requests.incrementAndGet() == 1) {
+                try {
+                    releaseSlowResponses.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, "slow".getBytes(StandardCharsets.UTF_8), false);
+            } else {
+                respond(exchange, "fast".getBytes(StandardCharsets.UTF_8), false);
+            }
+        });
+        HttpTransport transport = new HttpTransport(TransportConfig.defaults()
+                .withHedging(true)
+                .withMinHedgeDelay(Duration.ofMillis(50)));
+
+        HttpResponse<InputStream> response = transport.send(get("/runs"));
+
+        try (InputStream body = response.body()) {
+            assertEquals("fast", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(2, requests.get());
+        assertEquals(1, transport.getHedgedRequests());
+    }
+
+    @Test
+    void send_asksForGzipAndDecodesTheBody() throws Exception {
+        String json = "{ \"total_count\": 1, \"workflows\": [ { \"id\": 1, \"name\": \"A\" } ] }";
+        AtomicReference<String> acceptEncoding = new AtomicReference<>();
+        server.createContext("/workflows", exchange -> {
+            acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            respond(exchange, gzip(json), true);
+        });
+        HttpTransport transport = new HttpTransport();
+
+        HttpResponse<InputStream> response = transport.send(get("/workflows"));
+
+        assertEquals("gzip", acceptEncoding.get());
+        assertEquals(200, response.statusCode());
+        try (InputStream body = response.body()) {
+            assertEquals(json, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + path)).GET().build();
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body, boolean gzipped) throws IOException {
+        try (exchange) {
+            if (gzipped) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
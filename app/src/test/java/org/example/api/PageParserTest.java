@@ -0,0 +1,77 @@
+package org.example.api;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.example.model.Views;
+import org.example.model.WorkflowJob;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageParserTest {
+
+    private final PageParser parser = new PageParser(JsonMapper.builder()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+            .build(), Views.Poll.class);
+
+    @Test
+    void parseFingerprinted_hashesItemsSpanningManyReads() throws Exception {
+        // Larger than one read chunk, and delivered a few bytes per read
+        String big = "{ \"id\": 10, \"name\": \"" + "x".repeat(20_000) + "\" }";
+        String small = "{ \"id\": 11, \"name\": \"say \\\"hi\\\" }\" }";
+        String page = "{ \"total_count\": 2, \"extra\": { \"nested\": [1, \"]\"] }, \"jobs\": [ " + big + ", " + small + " ] }";
+
+        List<WorkflowJob> jobs = new ArrayList<>();
+        List<Long> fingerprints = new ArrayList<>();
+        PageParser.Counts counts = parser.parseFingerprinted(new TricklingStream(page), WorkflowRunJobsDataContract.class,
+                fingerprint -> false, (WorkflowJob job, long fingerprint) -> {
+                    jobs.add(job);
+                    fingerprints.add(fingerprint);
+                });
+
+        assertEquals(new PageParser.Counts(2, 2), counts);
+        assertEquals(20_000, jobs.get(0).getName().length());
+        assertEquals("say \"hi\" }", jobs.get(1).getName());
+        assertEquals(List.of(hash(big), hash(small)), fingerprints);
+    }
+
+    @Test
+    void parseFingerprinted_rejectsTruncatedBody() {
+        String page = "{ \"total_count\": 1, \"jobs\": [ { \"id\": 10, \"name\": \"bu";
+
+        assertThrows(IOException.class, () -> parser.parseFingerprinted(new TricklingStream(page),
+                WorkflowRunJobsDataContract.class, fingerprint -> false, (WorkflowJob job, long fingerprint) -> {}));
+    }
+
+    private static long hash(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return XxHash64.hash(bytes, 0, bytes.length);
+    }
+
+    private static final class TricklingStream extends InputStream {
+        private final ByteArrayInputStream in;
+
+        TricklingStream(String text) {
+            this.in = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, 7));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitTrackerTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T12:00:00Z");
+
+    @Test
+    void update_readsTheQuotaHeaders() {
+        RateLimitTracker tracker = new RateLimitTracker();
+        tracker.update(200, headers(Map.of(
+                "X-RateLimit-Limit", "5000",
+                "X-RateLimit-Remaining", "0",
+                "X-RateLimit-Reset", "1792324800")));
+
+        RateLimitTracker.Snapshot snapshot = tracker.snapshot();
+        assertEquals(5000, snapshot.limit());
+        assertEquals(0, snapshot.remaining());
+        assertEquals(Instant.ofEpochSecond(1792324800L), snapshot.resetAt());
+        assertTrue(tracker.isExhausted());
+    }
+
+    @Test
+    void update_ignoresMalformedHeadersAndKeepsTheLastGoodValues() {
+        RateLimitTracker tracker = new RateLimitTracker();
+        tracker.update(200, headers(Map.of("X-RateLimit-Limit", "5000", "X-RateLimit-Remaining", "42")));
+        tracker.update(200, headers(Map.of(
+                "X-RateLimit-Limit", "lots",
+                "X-RateLimit-Remaining", "-1",
+                "X-RateLimit-Reset", "99999999999999999999")));
+
+        RateLimitTracker.Snapshot snapshot = tracker.snapshot();
+        assertEquals(5000, snapshot.limit());
+        assertEquals(42, snapshot.remaining());
+        assertNull(snapshot.resetAt());
+    }
+
+    @Test
+    void block_waitsForRetryAfterAndFallsBackWhenItIsNotANumber() {
+        RateLimitTracker tracker = new RateLimitTracker();
+
+        assertEquals(NOW.plusSeconds(30), tracker.block(headers(Map.of("Retry-After", "30")), NOW));
+        assertEquals(NOW.plusSeconds(60),
+                tracker.block(headers(Map.of("Retry-After", "Wed, 21 Oct 2026 07:28:00 GMT")), NOW));
+    }
+
+    @Test
+    void update_endsTheLockoutOnlyOnASuccessfulResponse() {
+        RateLimitTracker tracker = new RateLimitTracker();
+        tracker.block(headers(Map.of("Retry-After", "30")), NOW);
+
+        tracker.update(403, headers(Map.of()));
+        assertEquals(NOW.plusSeconds(30), tracker.snapshot().blockedUntil());
+
+        tracker.update(304, headers(Map.of()));
+        assertNull(tracker.snapshot().blockedUntil());
+    }
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        Map<String, List<String>> map = new HashMap<>();
+        values.forEach((name, value) -> map.put(name, List.of(value)));
+        return HttpHeaders.of(map, (k, v) -> true);
+    }
+}
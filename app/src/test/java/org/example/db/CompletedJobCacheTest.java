@@ -0,0 +1,113 @@
+package org.example.db;
+
+import org.example.model.Conclusion;
+import org.example.model.JobStep;
+import org.example.model.Status;
+import org.example.model.WorkflowJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletedJobCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void get_readsJobsBackAfterReopening() throws Exception {
+        Path file = tempDir.resolve("jobs.bin");
+        CompletedJobCache cache = new CompletedJobCache(file, 1, 1 << 20);
+        cache.put(1L, 1, List.of(createJob(10L, 1L)));
+        cache.put(2L, 1, List.of(createJob(20L, 2L)));
+        cache.close();
+
+        CompletedJobCache reopened = new CompletedJobCache(file, 1, 1 << 20);
+        WorkflowJob job = reopened.get(1L, 1).get(0);
+
+        assertEquals(10L, job.getId());
+        assertEquals(Conclusion.FAILURE, job.getConclusion());
+        assertEquals("Run tests", job.getSortedSteps().get(0).getName());
+        assertNull(reopened.get(1L, 2), "Another attempt of the run is a different entry");
+    }
+
+    @Test
+    void open_dropsTornRecordAtTheEnd() throws Exception {
+        Path file = tempDir.resolve("jobs.bin");
+        CompletedJobCache cache = new CompletedJobCache(file, 8, 1 << 20);
+        cache.put(1L, 1, List.of(createJob(10L, 1L)));
+        cache.put(2L, 1, List.of(createJob(20L, 2L)));
+        cache.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 5);
+        }
+
+        CompletedJobCache reopened = new CompletedJobCache(file, 8, 1 << 20);
+
+        assertNotNull(reopened.get(1L, 1));
+        assertNull(reopened.get(2L, 1));
+    }
+
+    @Test
+    void get_dropsRecordCorruptedAfterOpening() throws Exception {
+        Path file = tempDir.resolve("jobs.bin");
+        CompletedJobCache cache = new CompletedJobCache(file, 1, 1 << 20);
+        cache.put(1L, 1, List.of(createJob(10L, 1L)));
+        cache.put(2L, 1, List.of(createJob(20L, 2L)));
+        // Flip a byte in the payload of the first record, which is no longer held in memory
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, 40);
+            b.put(0, (byte) ~b.get(0)).rewind();
+            channel.write(b, 40);
+        }
+
+        assertNull(cache.get(1L, 1));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(2L, 1));
+        cache.close();
+    }
+
+    @Test
+    void open_keepsJobsInMemoryWhileAnotherCacheHoldsTheFile() throws Exception {
+        Path file = tempDir.resolve("jobs.bin");
+        CompletedJobCache owner = new CompletedJobCache(file, 8, 1 << 20);
+        owner.put(1L, 1, List.of(createJob(10L, 1L)));
+
+        CompletedJobCache second = new CompletedJobCache(file, 8, 1 << 20);
+        assertNull(second.get(1L, 1), "The file belongs to the first cache");
+        second.put(2L, 1, List.of(createJob(20L, 2L)));
+        assertEquals(20L, second.get(2L, 1).get(0).getId());
+        second.close();
+        owner.close();
+
+        CompletedJobCache reopened = new CompletedJobCache(file, 8, 1 << 20);
+        assertNotNull(reopened.get(1L, 1));
+        assertNull(reopened.get(2L, 1), "Jobs of the memory-only cache are not persisted");
+    }
+
+    private WorkflowJob createJob(long id, long runId) {
+        JobStep step = new JobStep();
+        step.setName("Run tests");
+        step.setNumber(1);
+        step.setStatus(Status.COMPLETED);
+        step.setConclusion(Conclusion.FAILURE);
+
+        WorkflowJob job = new WorkflowJob();
+        job.setId(id);
+        job.setRunId(runId);
+        job.setName("Unit Tests");
+        job.setStatus(Status.COMPLETED);
+        job.setConclusion(Conclusion.FAILURE);
+        job.setSteps(new ArrayList<>(List.of(step)));
+        return job;
+    }
+}
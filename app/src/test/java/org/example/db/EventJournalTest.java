@@ -0,0 +1,104 @@
+package org.example.db;
+
+import org.example.events.ChangeEvent;
+import org.example.events.ChangeEvent.JobStatusChanged;
+import org.example.events.ChangeEvent.RunStarted;
+import org.example.events.ChangeEvent.StepStatusChanged;
+import org.example.events.JobInfo;
+import org.example.events.RunInfo;
+import org.example.events.StepInfo;
+import org.example.model.Conclusion;
+import org.example.model.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void append_logsEachChangeOnceAcrossReopening() throws Exception {
+        EventJournal journal = new EventJournal(tempDir, 1 << 16, 4);
+        StepInfo firstStep = step(1, Status.COMPLETED, Conclusion.SUCCESS);
+        assertEquals(1, journal.append(new RunStarted("o/r", run(1L))).size());
+        assertEquals(1, journal.append(jobChanged(10L, firstStep)).size());
+        assertTrue(journal.append(new RunStarted("o/r", run(1L))).isEmpty());
+        journal.close();
+
+        EventJournal reopened = new EventJournal(tempDir, 1 << 16, 4);
+        StepInfo secondStep = step(2, Status.IN_PROGRESS, null);
+        List<ChangeEvent> unlogged = reopened.append(jobChanged(10L, firstStep, secondStep));
+        reopened.close();
+
+        assertEquals(List.of(new StepStatusChanged("o/r", run(1L), job(10L), secondStep)), unlogged,
+                "Only the step the journal didn't hold yet is logged");
+        assertEquals(3, reopened.nextSequence());
+    }
+
+    @Test
+    void replay_returnsChangesFromSequenceAcrossSegments() throws Exception {
+        EventJournal journal = new EventJournal(tempDir, 1 << 12, 100);
+        for (long id = 0; id < 200; id++) {
+            journal.append(new RunStarted("o/r", run(id)));
+        }
+        journal.close();
+
+        List<ChangeEvent> replayed = new ArrayList<>();
+        long count = EventJournal.replay(tempDir, 150, replayed::add);
+
+        assertEquals(50, count);
+        assertEquals(150L, replayed.get(0).run().id());
+        assertEquals(199L, replayed.get(49).run().id());
+    }
+
+    @Test
+    void open_dropsCorruptRecordAtTheEnd() throws Exception {
+        EventJournal journal = new EventJournal(tempDir, 1 << 16, 4);
+        journal.append(new RunStarted("o/r", run(1L)));
+        journal.append(new RunStarted("o/r", run(2L)));
+        journal.close();
+        Path segment;
+        try (var files = Files.list(tempDir)) {
+            segment = files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int second = 8 + 8 + buffer.getInt(8);
+            buffer.put(second + 20, (byte) ~buffer.get(second + 20));
+        }
+
+        EventJournal reopened = new EventJournal(tempDir, 1 << 16, 4);
+        assertEquals(1, reopened.nextSequence());
+        assertEquals(1, reopened.append(new RunStarted("o/r", run(2L))).size());
+        reopened.close();
+
+        assertEquals(2, EventJournal.replay(tempDir, 0, event -> {}));
+    }
+
+    private static JobStatusChanged jobChanged(long jobId, StepInfo... steps) {
+        return new JobStatusChanged("o/r", run(1L), job(jobId), List.of(steps));
+    }
+
+    private static RunInfo run(long id) {
+        return new RunInfo(id, 7L, "CI", "Build", "main", "abc", Status.IN_PROGRESS, null, 1, null, 1000L);
+    }
+
+    private static JobInfo job(long id) {
+        return new JobInfo(id, "test", Status.IN_PROGRESS, null, 1000L);
+    }
+
+    private static StepInfo step(int number, Status status, Conclusion conclusion) {
+        return new StepInfo(number, "step " + number, status, conclusion, 1000L);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.db;
+
+import org.example.events.ChangeEvent;
+import org.example.events.JobInfo;
+import org.example.events.RunInfo;
+import org.example.events.StepInfo;
+import org.example.model.Conclusion;
+import org.example.model.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryStoreTest {
+
+    private static final String REPO = "owner/repo";
+
+    @TempDir
+    Path tempDir;
+
+    private final HistoryStore store = new HistoryStore();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Database.useFile(tempDir.resolve("repos.db"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Database.useFile(Database.DEFAULT_FILE);
+    }
+
+    @Test
+    void endOfBatch_storesTheLatestStatePerRunJobAndStep() throws Exception {
+        RunInfo queued = run(1L, "CI", "main", Status.QUEUED, null, 100);
+        RunInfo completed = run(1L, "CI", "main", Status.COMPLETED, Conclusion.SUCCESS, 300);
+        JobInfo job = new JobInfo(10L, "build", Status.COMPLETED, Conclusion.SUCCESS, 300);
+        store.accept(new ChangeEvent.RunQueued(REPO, queued));
+        store.accept(new ChangeEvent.StepStatusChanged(REPO, queued,
+                new JobInfo(10L, "build", Status.IN_PROGRESS, null, 200),
+                new StepInfo(1, "Checkout", Status.IN_PROGRESS, null, 200)));
+        store.accept(new ChangeEvent.JobStatusChanged(REPO, completed, job,
+                List.of(new StepInfo(1, "Checkout", Status.COMPLETED, Conclusion.SUCCESS, 300))));
+        // Delivered late, older than what the batch already holds
+        store.accept(new ChangeEvent.RunStarted(REPO, run(1L, "CI", "main", Status.IN_PROGRESS, null, 200)));
+
+        store.endOfBatch();
+
+        assertEquals(List.of(completed), store.findRuns(query(null, null, null)));
+        assertEquals("COMPLETED", queryDirectly("SELECT status FROM history_jobs WHERE job_id = 10"));
+        assertEquals("SUCCESS", queryDirectly("SELECT conclusion FROM history_steps WHERE job_id = 10 AND number = 1"));
+    }
+
+    @Test
+    void endOfBatch_keepsStoredRowsThatAreNewer() throws Exception {
+        RunInfo completed = run(1L, "CI", "main", Status.COMPLETED, Conclusion.FAILURE, 300);
+        store.accept(new ChangeEvent.RunCompleted(REPO, completed, null));
+        store.endOfBatch();
+
+        store.accept(new ChangeEvent.RunStarted(REPO, run(1L, "CI", "main", Status.IN_PROGRESS, null, 200)));
+        store.endOfBatch();
+        assertEquals(List.of(completed), store.findRuns(query(null, null, null)));
+
+        RunInfo rerun = run(1L, "CI", "main", Status.COMPLETED, Conclusion.SUCCESS, 300);
+        store.accept(new ChangeEvent.RunCompleted(REPO, rerun, null));
+        store.endOfBatch();
+
+        assertEquals(List.of(rerun), store.findRuns(query(null, null, null)), "Replaced by a row of the same time");
+    }
+
+    @Test
+    void endOfBatch_splitsLargeBatchesIntoSeveralInserts() throws Exception {
+        for (long id = 1; id <= 130; id++) {
+            store.accept(new ChangeEvent.RunQueued(REPO, run(id, "CI", "main", Status.QUEUED, null, id)));
+        }
+
+        store.endOfBatch();
+
+        assertEquals("130", queryDirectly("SELECT COUNT(*) FROM history_runs"));
+        List<RunInfo> newest = store.findRuns(new HistoryQuery(REPO, null, null, null, 0, 2));
+        assertEquals(List.of(130L, 129L), newest.stream().map(RunInfo::id).toList());
+    }
+
+    @Test
+    void endOfBatch_retriesAFailedBatchWithTheNextOne() throws Exception {
+        store.accept(new ChangeEvent.RunQueued(REPO, run(1L, "CI", "main", Status.QUEUED, null, 100)));
+        execute("ALTER TABLE history_runs RENAME TO parked_runs");
+
+        assertThrows(Exception.class, store::endOfBatch);
+
+        execute("ALTER TABLE parked_runs RENAME TO history_runs");
+        store.accept(new ChangeEvent.RunQueued(REPO, run(2L, "CI", "main", Status.QUEUED, null, 200)));
+        store.endOfBatch();
+
+        assertEquals(List.of(2L, 1L), store.findRuns(query(null, null, null)).stream().map(RunInfo::id).toList());
+    }
+
+    @Test
+    void findRuns_appliesEveryFilter() throws Exception {
+        store.accept(new ChangeEvent.RunCompleted(REPO, run(1L, "CI", "main", Status.COMPLETED, Conclusion.FAILURE, 100), null));
+        store.accept(new ChangeEvent.RunCompleted(REPO, run(2L, "CI", "feature", Status.COMPLETED, Conclusion.FAILURE, 200), null));
+        store.accept(new ChangeEvent.RunCompleted(REPO, run(3L, "Deploy", "main", Status.COMPLETED, Conclusion.SUCCESS, 300), null));
+        store.accept(new ChangeEvent.RunCompleted("owner/other", run(4L, "CI", "main", Status.COMPLETED, Conclusion.FAILURE, 400), null));
+        store.endOfBatch();
+
+        assertEquals(List.of(3L, 2L, 1L), ids(query(null, null, null)));
+        assertEquals(List.of(2L, 1L), ids(query("CI", null, null)));
+        assertEquals(List.of(3L, 1L), ids(query(null, "main", null)));
+        assertEquals(List.of(1L), ids(query("CI", "main", Conclusion.FAILURE)));
+        assertEquals(List.of(3L, 2L), ids(new HistoryQuery(REPO, null, null, null, 200, 10)));
+    }
+
+    private List<Long> ids(HistoryQuery query) {
+        return store.findRuns(query).stream().map(RunInfo::id).toList();
+    }
+
+    private static HistoryQuery query(String workflowName, String branch, Conclusion conclusion) {
+        return new HistoryQuery(REPO, workflowName, branch, conclusion, 0, 10);
+    }
+
+    private static RunInfo run(long id, String workflowName, String branch, Status status, Conclusion conclusion,
+                               long timestamp) {
+        return new RunInfo(id, 7L, workflowName, "Run " + id, branch, "abc123", status, conclusion, 1,
+                "https://github.com/owner/repo/actions/runs/" + id, timestamp);
+    }
+
+    private static String queryDirectly(String sql) throws Exception {
+        return Database.withConnection(conn -> {
+            try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        });
+    }
+
+    private static void execute(String sql) throws Exception {
+        Database.withConnection(conn -> {
+            try (Statement statement = conn.createStatement()) {
+                return statement.executeUpdate(sql);
+            }
+        });
+    }
+}
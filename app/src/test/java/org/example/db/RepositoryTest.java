@@ -0,0 +1,108 @@
+package org.example.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryTest {
+
+    private static final OffsetDateTime FIRST = OffsetDateTime.parse("2026-01-01T10:00:00Z");
+    private static final OffsetDateTime SECOND = OffsetDateTime.parse("2026-01-01T11:00:00Z");
+    private static final String LAST_LOGGED_ITEM =
+            "SELECT last_logged_item_timestamp FROM connected_repos WHERE repo = 'repo/owner'";
+
+    @TempDir
+    Path tempDir;
+
+    private Repository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Database.useFile(tempDir.resolve("repos.db"));
+        // Only explicit flushes write
+        repository = new Repository(Duration.ofHours(1));
+        repository.add("repo", "owner");
+        repository.add("other", "owner");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Database.useFile(Database.DEFAULT_FILE);
+    }
+
+    @Test
+    void flush_dropsWritesThatChangeNothing() throws Exception {
+        repository.updateTimestamp("repo", "owner", FIRST, FIRST);
+        repository.flush();
+        execute("UPDATE connected_repos SET last_logged_item_timestamp = 'edited'");
+
+        repository.updateTimestamp("repo", "owner", FIRST, FIRST);
+        repository.flush();
+
+        assertEquals("edited", repository.getConnectedAt("repo", "owner").lastLoggedItemTimestamp());
+    }
+
+    @Test
+    void flush_writesOnlyTheLatestValuePerRepository() {
+        repository.updateTimestamp("repo", "owner", FIRST, FIRST);
+        repository.updateTimestamp("repo", "owner", SECOND, SECOND);
+        repository.setWatchedRuns("repo", "owner", List.of(1L, 2L));
+        repository.setWatchedRuns("repo", "owner", List.of(3L));
+        repository.saveSnapshot("repo", "owner", new byte[]{1});
+        repository.saveSnapshot("repo", "owner", new byte[]{2});
+
+        repository.flush();
+
+        assertEquals(new RepoMetadata(SECOND.toString(), SECOND.toString()), repository.getConnectedAt("repo", "owner"));
+        assertEquals(List.of(3L), repository.getWatchedRuns("repo", "owner"));
+        assertArrayEquals(new byte[]{2}, repository.getSnapshot("repo", "owner"));
+    }
+
+    @Test
+    void flush_commitsEveryRepositoryInOneTransactionAndKeepsTheWritesWhenItFails() throws Exception {
+        repository.updateTimestamp("repo", "owner", SECOND, SECOND);
+        repository.setWatchedRuns("other", "owner", List.of(7L));
+        repository.saveSnapshot("other", "owner", new byte[]{1});
+        // The snapshot is written last; without its table the whole flush fails
+        execute("ALTER TABLE tracking_snapshots RENAME TO parked_snapshots");
+
+        assertThrows(RuntimeException.class, repository::flush);
+
+        assertNull(queryDirectly("SELECT run_id FROM watched_runs"), "Watched runs were rolled back with the snapshot");
+        assertEquals(OffsetDateTime.MIN.toString(), queryDirectly(LAST_LOGGED_ITEM));
+
+        execute("ALTER TABLE parked_snapshots RENAME TO tracking_snapshots");
+        repository.flush();
+
+        assertEquals(SECOND.toString(), queryDirectly(LAST_LOGGED_ITEM));
+        assertEquals(List.of(7L), repository.getWatchedRuns("other", "owner"));
+        assertArrayEquals(new byte[]{1}, repository.getSnapshot("other", "owner"));
+    }
+
+    // Reads the first value without the flush that Repository's reads do first
+    private static String queryDirectly(String sql) throws Exception {
+        return Database.withConnection(conn -> {
+            try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        });
+    }
+
+    private static void execute(String sql) throws Exception {
+        Database.withConnection(conn -> {
+            try (Statement statement = conn.createStatement()) {
+                return statement.executeUpdate(sql);
+            }
+        });
+    }
+}
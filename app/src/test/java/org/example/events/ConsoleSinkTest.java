@@ -0,0 +1,106 @@
+package org.example.events;
+
+import org.example.model.Conclusion;
+import org.example.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleSinkTest {
+
+    private static final long RUN_TIME = Instant.parse("2026-05-04T10:15:30Z").toEpochMilli();
+    private static final long JOB_TIME = RUN_TIME + 42_000;
+    private static final RunInfo FAILED_RUN = new RunInfo(1L, 7L, "CI", "Build and Test", "main", "abc1234",
+            Status.COMPLETED, Conclusion.FAILURE, 1, "https://github.com/owner/repo/actions/runs/1", RUN_TIME);
+    private static final JobInfo FAILED_JOB = new JobInfo(10L, "Unit Tests", Status.COMPLETED, Conclusion.FAILURE, JOB_TIME);
+    private static final StepInfo FAILED_STEP = new StepInfo(3, "Run tests", Status.COMPLETED, Conclusion.FAILURE, JOB_TIME);
+
+    @Test
+    void accept_printsTheSameLinesAsTheFormattedOutput() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ConsoleSink sink = new ConsoleSink(new PrintStream(buffer), true);
+        StepInfo running = new StepInfo(4, "Upload", Status.IN_PROGRESS, null, JOB_TIME);
+        StepInfo queued = new StepInfo(5, "Cleanup", Status.QUEUED, null, JOB_TIME);
+
+        sink.accept(new ChangeEvent.JobStatusChanged("owner/repo", FAILED_RUN, FAILED_JOB, List.of(FAILED_STEP, running, queued)));
+        sink.accept(new ChangeEvent.RunCompleted("owner/repo", FAILED_RUN, new FailureSummary(List.of(
+                new FailureSummary.FailedJob(FAILED_JOB, List.of(FAILED_STEP), List.of("expected 1 but was 2"))))));
+        sink.endOfBatch();
+
+        // What the String.format based output printed for the same changes
+        String run = time(RUN_TIME);
+        String job = time(JOB_TIME);
+        String expected = String.join(System.lineSeparator(),
+                String.format("%s[Workflow] %s", "[owner/repo] ", "CI"),
+                String.format("%s [RUN %s] %s | Branch: %s | Commit: %s", run, "FAILURE", "Build and Test", "main", "abc1234"),
+                String.format("  %s [Job %s] %s", job, "FAILURE", "Unit Tests"),
+                String.format("    %s [Step %s] %s", job, "FAILURE", "Run tests"),
+                String.format("    %s [Step %s] %s", job, "IN PROGRESS", "Upload"),
+                String.format("%s[Workflow] %s", "[owner/repo] ", "CI"),
+                String.format("%s [RUN %s] %s | Branch: %s | Commit: %s", run, "FAILURE", "Build and Test", "main", "abc1234"),
+                "   FAILURE SUMMARY:",
+                String.format("  %s [Job %s] %s", job, "FAILURE", "Unit Tests"),
+                String.format("    %s [Step %s] %s", job, "FAILURE", "Run tests"),
+                "      | expected 1 but was 2") + System.lineSeparator();
+        assertEquals(expected, buffer.toString());
+    }
+
+    @Test
+    void dropped_reportsHowManyChangesWereSkippedUnderDrop() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        // Holds the first batch in its write so the queue behind it fills up
+        OutputStream console = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                buffer.write(b, off, len);
+            }
+        };
+
+        try (EventDispatcher dispatcher = new EventDispatcher(List.of(new ConsoleSink(new PrintStream(console), false)),
+                1, EventDispatcher.OverflowPolicy.DROP)) {
+            dispatcher.publish(queued(1L));
+            writing.await();
+            for (long id = 2; id <= 5; id++) {
+                dispatcher.publish(queued(id));
+            }
+            release.countDown();
+            dispatcher.flush();
+        }
+
+        String output = buffer.toString();
+        assertTrue(output.contains("[Output fell behind, 3 change(s) not printed]"), "Output was: " + output);
+        assertTrue(output.contains("Run 1") && output.contains("Run 2"), "Output was: " + output);
+        assertFalse(output.contains("Run 3"), "Output was: " + output);
+    }
+
+    private static ChangeEvent.RunQueued queued(long id) {
+        return new ChangeEvent.RunQueued("owner/repo", new RunInfo(id, 7L, "CI", "Run " + id, "main", "abc1234",
+                Status.QUEUED, null, 1, "https://github.com/owner/repo/actions/runs/" + id, RUN_TIME));
+    }
+
+    private static String time(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.events;
+
+import org.example.events.ChangeEvent.RunQueued;
+import org.example.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDispatcherTest {
+
+    @Test
+    void publish_deliversEventsInOrderWithoutWaitingForSlowSinks() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> slowSeen = new ArrayList<>();
+        List<Long> fastSeen = new ArrayList<>();
+        EventSink slow = event -> {
+            release.await();
+            slowSeen.add(event.run().id());
+        };
+        EventSink fast = event -> fastSeen.add(event.run().id());
+
+        try (EventDispatcher dispatcher = new EventDispatcher(List.of(slow, fast), 16, EventDispatcher.OverflowPolicy.BLOCK)) {
+            for (long id = 1; id <= 3; id++) {
+                dispatcher.publish(queued(id));
+            }
+            // The slow sink is still blocked, yet publishing returned
+            release.countDown();
+            dispatcher.flush();
+
+            assertEquals(List.of(1L, 2L, 3L), slowSeen);
+            assertEquals(List.of(1L, 2L, 3L), fastSeen);
+        }
+    }
+
+    private static RunQueued queued(long id) {
+        return new RunQueued("owner/repo", new RunInfo(id, 1L, "CI", "Build", "main", "abc", Status.QUEUED,
+                null, 1, "https://github.com/owner/repo/actions/runs/" + id, 0L));
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.Conclusion;
+import org.example.model.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLinesSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void accept_writesOneJsonObjectPerLineToTheRepositoryFile() throws Exception {
+        RunInfo run = new RunInfo(1L, 2L, "CI", "Build", "main", "abc", Status.IN_PROGRESS, null, 1, "url", 1_700_000_000_000L);
+        JobInfo job = new JobInfo(3L, "Unit Tests", Status.COMPLETED, Conclusion.FAILURE, 1_700_000_060_000L);
+
+        JsonLinesSink sink = new JsonLinesSink(tempDir, 1 << 20, Duration.ofHours(1));
+        sink.accept(new ChangeEvent.RunStarted("owner/repo", run));
+        sink.accept(new ChangeEvent.JobStatusChanged("owner/repo", run, job, List.of()));
+        sink.endOfBatch();
+        sink.close();
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("owner/repo/current.jsonl"));
+        assertEquals(2, lines.size());
+        JsonNode changed = new ObjectMapper().readTree(lines.get(1));
+        assertEquals("job_status_changed", changed.get("type").asText());
+        assertEquals("in_progress", changed.get("run").get("status").asText());
+        assertEquals("failure", changed.get("job").get("conclusion").asText());
+        assertEquals("2023-11-14T22:14:20Z", changed.get("job").get("updated_at").asText());
+    }
+
+    @Test
+    void endOfBatch_rotatesAndCompressesAFileThatReachedTheSizeLimit() throws Exception {
+        JsonLinesSink sink = new JsonLinesSink(tempDir, 1, Duration.ofHours(1));
+        sink.accept(new ChangeEvent.RunStarted("owner/repo", run(1L)));
+        sink.endOfBatch();
+        sink.accept(new ChangeEvent.RunStarted("owner/repo", run(2L)));
+        sink.endOfBatch();
+        sink.close();
+
+        Path repository = tempDir.resolve("owner/repo");
+        assertEquals(0, Files.size(repository.resolve("current.jsonl")));
+        List<Path> segments = files(repository, ".jsonl.gz");
+        assertEquals(2, segments.size());
+        assertTrue(files(repository, ".jsonl").stream().allMatch(p -> p.endsWith("current.jsonl")));
+        assertTrue(gunzip(segments.get(0)).contains("\"id\":1,"));
+        assertTrue(gunzip(segments.get(1)).contains("\"id\":2,"));
+    }
+
+    @Test
+    void idle_rotatesAFileThatReachedTheMaximumAgeWithoutFurtherEvents() throws Exception {
+        JsonLinesSink sink = new JsonLinesSink(tempDir, 1 << 20, Duration.ofMillis(100));
+        sink.accept(new ChangeEvent.RunStarted("owner/repo", run(1L)));
+        sink.endOfBatch();
+        Path repository = tempDir.resolve("owner/repo");
+        assertTrue(Files.size(repository.resolve("current.jsonl")) > 0);
+
+        Thread.sleep(150);
+        sink.idle();
+        sink.close();
+
+        assertEquals(0, Files.size(repository.resolve("current.jsonl")));
+        assertEquals(1, files(repository, ".jsonl.gz").size());
+    }
+
+    @Test
+    void accept_keepsTheAgeOfAFileLeftByThePreviousProcess() throws Exception {
+        Path repository = Files.createDirectories(tempDir.resolve("owner/repo"));
+        Path current = Files.writeString(repository.resolve("current.jsonl"), "{}\n");
+        Files.setLastModifiedTime(current, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        JsonLinesSink sink = new JsonLinesSink(tempDir, 1 << 20, Duration.ofHours(1));
+        sink.accept(new ChangeEvent.RunStarted("owner/repo", run(1L)));
+        sink.endOfBatch();
+        sink.close();
+
+        assertEquals(0, Files.size(current));
+        List<Path> segments = files(repository, ".jsonl.gz");
+        assertEquals(1, segments.size());
+        assertTrue(gunzip(segments.get(0)).startsWith("{}\n"));
+    }
+
+    @Test
+    void accept_compressesSegmentsLeftUncompressedByThePreviousProcess() throws Exception {
+        Path repository = Files.createDirectories(tempDir.resolve("owner/repo"));
+        Path leftover = Files.writeString(repository.resolve("20260101-000000-000.jsonl"), "{\"left\":true}\n");
+        Files.writeString(repository.resolve("20260101-000000-000.jsonl.gz.part"), "partial");
+
+        JsonLinesSink sink = new JsonLinesSink(tempDir, 1 << 20, Duration.ofHours(1));
+        sink.accept(new ChangeEvent.RunStarted("owner/repo", run(1L)));
+        sink.endOfBatch();
+        sink.close();
+
+        assertFalse(Files.exists(leftover));
+        assertFalse(Files.exists(repository.resolve("20260101-000000-000.jsonl.gz.part")));
+        assertEquals("{\"left\":true}\n", gunzip(repository.resolve("20260101-000000-000.jsonl.gz")));
+        assertEquals(1, Files.readAllLines(repository.resolve("current.jsonl")).size());
+    }
+
+    private static RunInfo run(long id) {
+        return new RunInfo(id, 2L, "CI", "Build", "main", "abc", Status.IN_PROGRESS, null, 1, "url", 1_700_000_000_000L);
+    }
+
+    private static List<Path> files(Path directory, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
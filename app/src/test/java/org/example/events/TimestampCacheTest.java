@@ -0,0 +1,58 @@
+package org.example.events;
+
+import org.example.model.EpochMillis;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimestampCacheTest {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Test
+    void appendTo_matchesDateTimeFormatterAcrossDaylightSavingChanges() {
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        TimestampCache cache = new TimestampCache(berlin);
+        // Clocks go forward at 01:00 UTC on 2026-03-29 and back at 01:00 UTC on 2026-10-25
+        for (String boundary : new String[]{"2026-03-29T01:00:00Z", "2026-10-25T01:00:00Z"}) {
+            long start = Instant.parse(boundary).toEpochMilli() - 3_000;
+            for (long millis = start; millis < start + 6_000; millis += 250) {
+                assertEquals(expected(millis, berlin), render(cache, millis), Instant.ofEpochMilli(millis).toString());
+            }
+        }
+    }
+
+    @Test
+    void appendTo_replacesSecondsThatShareASlot() {
+        TimestampCache cache = new TimestampCache(ZoneId.of("UTC"));
+        long millis = Instant.parse("2026-01-01T00:00:00.500Z").toEpochMilli();
+        // 256 seconds apart maps to the same slot
+        long colliding = millis + 256_000;
+
+        assertEquals("2026-01-01 00:00:00", render(cache, millis));
+        assertEquals("2026-01-01 00:04:16", render(cache, colliding));
+        assertEquals("2026-01-01 00:00:00", render(cache, millis));
+    }
+
+    @Test
+    void appendTo_handlesTimesBefore1970AndAbsentTimestamps() {
+        TimestampCache cache = new TimestampCache(ZoneId.of("UTC"));
+
+        assertEquals("1969-12-31 23:59:59", render(cache, -1));
+        assertEquals("????-??-?? ??:??:??", render(cache, EpochMillis.NONE));
+    }
+
+    private static String render(TimestampCache cache, long millis) {
+        StringBuilder line = new StringBuilder();
+        cache.appendTo(line, millis);
+        return line.toString();
+    }
+
+    private static String expected(long millis, ZoneId zone) {
+        return Instant.ofEpochMilli(millis).atZone(zone).format(FORMAT);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.logic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FailureLogExcerptsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void extract_endsAtLastErrorAndStopsAtTheFailingStepHeader() throws Exception {
+        Path log = tempDir.resolve("1.log");
+        Files.writeString(log, """
+                2024-01-15T10:00:00.1234567Z ##[group]Run actions/checkout@v4
+                2024-01-15T10:00:01.1234567Z Checked out
+                2024-01-15T10:00:02.1234567Z ##[group]Run ./gradlew test
+                2024-01-15T10:00:02.1234567Z FooTest > bar FAILED
+                2024-01-15T10:00:03.1234567Z ##[error]Process completed with exit code 1.
+                2024-01-15T10:00:04.1234567Z Post job cleanup.
+                """);
+
+        List<String> excerpt = FailureLogExcerpts.extract(log, 10);
+
+        assertEquals(List.of("##[group]Run ./gradlew test", "FooTest > bar FAILED",
+                "##[error]Process completed with exit code 1."), excerpt);
+    }
+
+    @Test
+    void extract_fallsBackToTheEndOfTheLogWithoutErrorAnnotation() throws Exception {
+        Path log = tempDir.resolve("2.log");
+        Files.writeString(log, "first\nsecond\nthird\n");
+
+        assertEquals(List.of("second", "third"), FailureLogExcerpts.extract(log, 2));
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.logic;
+
+import org.example.api.ApiDataRetriever;
+import org.example.api.GitHubApiException;
+import org.example.model.WorkflowJob;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobFetcherTest {
+
+    private final ApiDataRetriever mockApi = mock(ApiDataRetriever.class);
+
+    @Test
+    void fetchAll_returnsJobsInInputOrderWhateverOrderTheyArrive() throws Exception {
+        // Later runs answer first
+        List<Long> runIds = List.of(5L, 1L, 4L, 2L, 3L);
+        when(mockApi.getJobsForWorkflowRun(anyLong())).thenAnswer(invocation -> {
+            long runId = invocation.getArgument(0);
+            Thread.sleep(60 - runIds.indexOf(runId) * 10L);
+            return List.of(job(runId));
+        });
+
+        Map<Long, List<WorkflowJob>> jobs = new JobFetcher(mockApi, 5, Duration.ofSeconds(5)).fetchAll(runIds);
+
+        assertEquals(runIds, new ArrayList<>(jobs.keySet()));
+        jobs.forEach((runId, runJobs) -> assertEquals(runId, runJobs.get(0).getRunId()));
+    }
+
+    @Test
+    void fetchAll_neverRunsMoreRequestsThanTheLimit() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(mockApi.getJobsForWorkflowRun(anyLong())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return List.of(job(invocation.getArgument(0)));
+        });
+        List<Long> runIds = new ArrayList<>();
+        for (long runId = 1; runId <= 20; runId++) {
+            runIds.add(runId);
+        }
+
+        Map<Long, List<WorkflowJob>> jobs = new JobFetcher(mockApi, 3, Duration.ofSeconds(5)).fetchAll(runIds);
+
+        assertEquals(20, jobs.size());
+        assertTrue(maxInFlight.get() <= 3, "In flight at once: " + maxInFlight.get());
+    }
+
+    @Test
+    void fetchAll_failsAsAWholeAndCancelsRequestsWhenTheDeadlinePasses() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(mockApi.getJobsForWorkflowRun(1L)).thenReturn(List.of(job(1L)));
+        when(mockApi.getJobsForWorkflowRun(2L)).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return List.of(job(2L));
+        });
+        JobFetcher fetcher = new JobFetcher(mockApi, 2, Duration.ofMillis(100));
+
+        long start = System.nanoTime();
+        TimeoutException e = assertThrows(TimeoutException.class, () -> fetcher.fetchAll(List.of(1L, 2L)));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Waited for the slow request");
+        assertTrue(e.getMessage().contains("2 runs exceeded PT0.1S"), e.getMessage());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "The slow request was not cancelled");
+    }
+
+    @Test
+    void fetchAll_rethrowsTheFailureOfARequest() throws Exception {
+        GitHubApiException failure = new GitHubApiException(502, "GitHub API error: 502");
+        when(mockApi.getJobsForWorkflowRun(1L)).thenReturn(List.of(job(1L)));
+        when(mockApi.getJobsForWorkflowRun(2L)).thenThrow(failure);
+
+        Exception e = assertThrows(Exception.class,
+                () -> new JobFetcher(mockApi, 2, Duration.ofSeconds(5)).fetchAll(List.of(1L, 2L)));
+
+        assertSame(failure, e);
+    }
+
+    @Test
+    void fetchAll_asksOnlyForChangedJobsOfRunsWithAFilter() throws Exception {
+        LongPredicate known = fingerprint -> true;
+        when(mockApi.getJobsForWorkflowRun(1L)).thenReturn(List.of(job(1L)));
+        when(mockApi.getJobsForWorkflowRun(2L, known)).thenReturn(List.of());
+
+        Map<Long, List<WorkflowJob>> jobs = new JobFetcher(mockApi)
+                .fetchAll(List.of(1L, 2L), runId -> runId == 2L ? known : null);
+
+        assertEquals(1, jobs.get(1L).size());
+        assertEquals(List.of(), jobs.get(2L));
+    }
+
+    private static WorkflowJob job(long runId) {
+        WorkflowJob job = new WorkflowJob();
+        job.setId(runId * 10);
+        job.setRunId(runId);
+        return job;
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.logic;
+
+import org.example.api.ApiDataRetriever;
+import org.example.api.RateLimitTracker;
+import org.example.db.CompletedJobCache;
+import org.example.db.Repository;
+import org.example.events.ConsoleSink;
+import org.example.events.EventDispatcher;
+import org.example.logic.MonitorEngine.RepositoryRef;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonitorEngineTest {
+
+    private final ByteArrayOutputStream outputBuffer = new ByteArrayOutputStream();
+    private final Map<RepositoryRef, ApiDataRetriever> apis = new HashMap<>();
+    private final RateLimitTracker rateLimit = new RateLimitTracker();
+    private Repository mockRepo;
+    private MonitorEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        mockRepo = mock(Repository.class);
+        PrintStream out = new PrintStream(outputBuffer, true);
+        engine = new MonitorEngine(mockRepo, out, LoggerConfig.defaults(),
+                new EventDispatcher(List.of(new ConsoleSink(out, true))), null, CompletedJobCache.inMemory(), apis::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void start_skipsRepositoriesThatFailToConnect() throws Exception {
+        mockApi("owner", "good");
+        ApiDataRetriever bad = mockApi("owner", "bad");
+        when(bad.getWorkflowRunsFrom(anyString())).thenThrow(new RuntimeException("boom"));
+
+        engine.start(List.of(new RepositoryRef("owner", "bad"), new RepositoryRef("owner", "good")));
+
+        String output = outputBuffer.toString();
+        assertTrue(output.contains("[owner/bad] Failed to start: boom"), "Output was: " + output);
+        assertTrue(output.contains("Watching 1 of 2 repositories"), "Output was: " + output);
+        assertNotNull(engine.findLogger("Owner/Good"));
+        assertNull(engine.findLogger("owner/bad"));
+        assertNull(engine.findLogger("owner/unknown"));
+    }
+
+    @Test
+    void start_connectsOnlyAFewRepositoriesAtATime() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<RepositoryRef> refs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ApiDataRetriever api = mockApi("owner", "repo" + i);
+            when(api.getWorkflowRunsFrom(anyString())).thenAnswer(invocation -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                inFlight.decrementAndGet();
+                return Collections.emptyList();
+            });
+            refs.add(new RepositoryRef("owner", "repo" + i));
+        }
+
+        engine.start(refs);
+
+        assertTrue(maxInFlight.get() <= MonitorEngine.CONNECT_CONCURRENCY, "Connected at once: " + maxInFlight.get());
+        for (RepositoryRef ref : refs) {
+            assertNotNull(engine.findLogger(ref.toString()));
+        }
+    }
+
+    @Test
+    void start_pollsInTheGivenOrderWhateverOrderTheRepositoriesConnected() throws Exception {
+        // The first repository connects last; it still gets the first poll, the second one waits its turn
+        ApiDataRetriever slow = mockApi("owner", "slow");
+        AtomicInteger calls = new AtomicInteger();
+        when(slow.getWorkflowRunsFrom(anyString())).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                Thread.sleep(200);
+            }
+            return Collections.emptyList();
+        });
+        ApiDataRetriever fast = mockApi("owner", "fast");
+
+        engine.start(List.of(new RepositoryRef("owner", "slow"), new RepositoryRef("owner", "fast")));
+
+        awaitPoll(slow);
+        assertEquals(0, polls(fast), "The second poll is staggered by half the poll interval");
+    }
+
+    @Test
+    void stop_endsPollingAndFlushesTheRepositoryOnce() throws Exception {
+        ApiDataRetriever api = mockApi("owner", "repo");
+        engine.start(List.of(new RepositoryRef("owner", "repo")));
+        awaitPoll(api);
+
+        engine.stop();
+        engine.stop();
+        engine.awaitTermination();
+
+        verify(mockRepo, times(1)).flush();
+        long pollsAtStop = polls(api);
+        Thread.sleep(100);
+        assertEquals(pollsAtStop, polls(api));
+    }
+
+    private ApiDataRetriever mockApi(String owner, String repo) throws Exception {
+        ApiDataRetriever api = mock(ApiDataRetriever.class);
+        when(api.getRateLimit()).thenReturn(rateLimit);
+        when(api.getWorkflowRunsFrom(anyString())).thenReturn(Collections.emptyList());
+        when(api.getWorkflowRunsWithStatus(any())).thenReturn(Collections.emptyList());
+        apis.put(new RepositoryRef(owner, repo), api);
+        return api;
+    }
+
+    // A poll asks for runs by status; connecting doesn't
+    private static long polls(ApiDataRetriever api) {
+        return mockingDetails(api).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("getWorkflowRunsWithStatus"))
+                .count();
+    }
+
+    private static void awaitPoll(ApiDataRetriever api) throws InterruptedException {
+        for (int i = 0; i < 100 && polls(api) == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertNotEquals(0, polls(api), "No poll started");
+    }
+}
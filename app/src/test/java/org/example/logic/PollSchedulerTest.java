@@ -0,0 +1,60 @@
+package org.example.logic;
+
+import org.example.api.RateLimitTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollSchedulerTest {
+
+    private final Instant now = Instant.parse("2024-01-01T12:00:00Z");
+    private PollScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new PollScheduler(new RateLimitTracker(), () -> 0);
+    }
+
+    @Test
+    void computeDelay_usesDefaultIntervalWithoutQuotaInformation() {
+        RateLimitTracker.Snapshot unknown = new RateLimitTracker.Snapshot(-1, -1, null, null);
+
+        assertEquals(PollScheduler.DEFAULT_INTERVAL, scheduler.computeDelay(unknown, now));
+    }
+
+    @Test
+    void computeDelay_pollsFasterWhenBudgetIsSpare() {
+        RateLimitTracker.Snapshot plenty = new RateLimitTracker.Snapshot(5000, 4900, now.plusSeconds(3600), null);
+
+        assertEquals(PollScheduler.MIN_INTERVAL, scheduler.computeDelay(plenty, now));
+    }
+
+    @Test
+    void computeDelay_spreadsRemainingBudgetUntilReset() {
+        // 600 usable requests (1100 - 10% reserve of 5000) over 30 minutes would allow a poll every 3s
+        RateLimitTracker.Snapshot tight = new RateLimitTracker.Snapshot(5000, 1100, now.plusSeconds(1800), null);
+
+        assertEquals(PollScheduler.MIN_INTERVAL, scheduler.computeDelay(tight, now));
+
+        RateLimitTracker.Snapshot tighter = new RateLimitTracker.Snapshot(5000, 530, now.plusSeconds(1800), null);
+        assertEquals(Duration.ofSeconds(60), scheduler.computeDelay(tighter, now));
+    }
+
+    @Test
+    void computeDelay_waitsForResetWhenReserveIsReached() {
+        RateLimitTracker.Snapshot exhausted = new RateLimitTracker.Snapshot(5000, 400, now.plusSeconds(900), null);
+
+        assertEquals(Duration.ofSeconds(900), scheduler.computeDelay(exhausted, now));
+    }
+
+    @Test
+    void computeDelay_honoursRetryAfterLockout() {
+        RateLimitTracker.Snapshot blocked = new RateLimitTracker.Snapshot(5000, 4000, now.plusSeconds(3600), now.plusSeconds(120));
+
+        assertEquals(Duration.ofSeconds(120), scheduler.computeDelay(blocked, now));
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.logic;
+
+import org.example.model.Conclusion;
+import org.example.model.JobStep;
+import org.example.model.Status;
+import org.example.model.WorkflowJob;
+import org.example.model.WorkflowRun;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal runs, jobs and steps for the tests of the tracking state.
+ */
+final class RunFixtures {
+
+    private RunFixtures() {}
+
+    static WorkflowRun run(long id, int attempt, Status status) {
+        WorkflowRun run = new WorkflowRun();
+        run.setId(id);
+        run.setRunAttempt(attempt);
+        run.setStatus(status);
+        return run;
+    }
+
+    // A completed job succeeded; any other has no conclusion yet
+    static WorkflowJob job(long id, Status status, JobStep... steps) {
+        WorkflowJob job = new WorkflowJob();
+        job.setId(id);
+        job.setStatus(status);
+        job.setConclusion(status == Status.COMPLETED ? Conclusion.SUCCESS : null);
+        job.setSteps(new ArrayList<>(List.of(steps)));
+        return job;
+    }
+
+    static JobStep step(int number, Status status) {
+        JobStep step = new JobStep();
+        step.setNumber(number);
+        step.setStatus(status);
+        return step;
+    }
+}
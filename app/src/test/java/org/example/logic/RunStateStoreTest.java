@@ -0,0 +1,59 @@
+package org.example.logic;
+
+import org.example.model.Status;
+import org.example.model.WorkflowRun;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.logic.RunFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunStateStoreTest {
+
+    @Test
+    void jobState_detectsNewAndChangedStepsOnly() {
+        RunStateStore store = new RunStateStore();
+        RunStateStore.RunState state = store.start(run(1L, 1, Status.IN_PROGRESS), null);
+        state.update(job(10L, Status.IN_PROGRESS, step(1, Status.COMPLETED), step(2, Status.IN_PROGRESS)));
+
+        RunStateStore.JobState job = state.job(10L);
+        assertEquals(Status.IN_PROGRESS, job.status());
+        assertFalse(job.stepChanged(step(1, Status.COMPLETED)));
+        assertTrue(job.stepChanged(step(2, Status.COMPLETED)));
+        assertTrue(job.stepChanged(step(3, Status.IN_PROGRESS)));
+    }
+
+    @Test
+    void reAttempt_replacesTheStateOfThePreviousAttempt() {
+        RunStateStore store = new RunStateStore();
+        store.start(run(1L, 1, Status.IN_PROGRESS), null).update(job(10L, Status.COMPLETED));
+
+        WorkflowRun secondAttempt = run(1L, 2, Status.IN_PROGRESS);
+        assertNull(store.get(secondAttempt));
+        store.evictOtherAttempts(secondAttempt);
+        assertFalse(store.contains(1L));
+
+        store.start(secondAttempt, null);
+        assertNotNull(store.get(secondAttempt));
+        assertNull(store.get(secondAttempt).job(10L));
+    }
+
+    @Test
+    void retainInProgress_evictsRunsThatCompletedOrDisappeared() {
+        RunStateStore store = new RunStateStore();
+        for (long id = 1; id <= 100; id++) {
+            store.start(run(id, 1, Status.IN_PROGRESS), null);
+        }
+
+        List<WorkflowRun> current = new ArrayList<>();
+        current.add(run(1L, 1, Status.IN_PROGRESS));
+        current.add(run(2L, 1, Status.COMPLETED));
+        current.add(run(3L, 2, Status.IN_PROGRESS));
+        store.retainInProgress(current);
+
+        assertEquals(1, store.size());
+        assertArrayEquals(new long[]{1L}, store.runIds());
+    }
+}
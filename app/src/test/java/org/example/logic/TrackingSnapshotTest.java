@@ -0,0 +1,64 @@
+package org.example.logic;
+
+import org.example.events.RunInfo;
+import org.example.model.Status;
+import org.example.model.WorkflowJob;
+import org.example.model.WorkflowRun;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.example.logic.RunFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackingSnapshotTest {
+
+    @Test
+    void decode_restoresWhatWasEncoded() throws IOException {
+        WorkflowRun run = run(1L, 2, Status.IN_PROGRESS);
+        run.setUpdatedAt(1000L);
+        RunStateStore runs = new RunStateStore();
+        RunInfo info = new RunInfo(1L, 7L, "CI", "Build", "main", "abc", Status.IN_PROGRESS, null, 2, null, 1000L);
+        RunStateStore.RunState state = runs.start(run, info);
+        WorkflowJob job = job(10L, Status.IN_PROGRESS, step(1, Status.COMPLETED), step(2, Status.IN_PROGRESS));
+        job.setFingerprint(42L);
+        state.update(job);
+        RunChangeIndex changes = new RunChangeIndex(Duration.ofMinutes(5));
+        changes.recordJobsFetched(run, 5000L);
+
+        byte[] snapshot = TrackingSnapshot.encode(123L, List.of(2L), List.of(5L), List.of(3L, 4L), runs, changes);
+
+        Set<Long> queued = new HashSet<>();
+        Set<Long> waiting = new HashSet<>();
+        Set<Long> completed = new HashSet<>();
+        RunStateStore restoredRuns = new RunStateStore();
+        RunChangeIndex restoredChanges = new RunChangeIndex(Duration.ofMinutes(5));
+        assertEquals(123L, TrackingSnapshot.decode(snapshot, queued, waiting, completed, restoredRuns, restoredChanges));
+        assertEquals(Set.of(2L), queued);
+        assertEquals(Set.of(5L), waiting);
+        assertEquals(Set.of(3L, 4L), completed);
+
+        RunStateStore.RunState restored = restoredRuns.get(run);
+        assertEquals(info, restored.run());
+        assertTrue(restored.isKnownFingerprint(42L));
+        assertEquals(Status.IN_PROGRESS, restored.job(10L).status());
+        assertFalse(restored.job(10L).stepChanged(step(2, Status.IN_PROGRESS)));
+        assertTrue(restored.job(10L).stepChanged(step(2, Status.COMPLETED)));
+        assertFalse(restoredChanges.needsJobs(run, 6000L));
+    }
+
+    @Test
+    void decode_rejectsTruncatedSnapshot() throws IOException {
+        byte[] snapshot = TrackingSnapshot.encode(1L, List.of(2L), List.of(), List.of(), new RunStateStore(),
+                new RunChangeIndex(Duration.ofMinutes(5)));
+        byte[] truncated = Arrays.copyOf(snapshot, snapshot.length - 3);
+
+        assertThrows(IOException.class, () -> TrackingSnapshot.decode(truncated, new HashSet<>(), new HashSet<>(), new HashSet<>(),
+                new RunStateStore(), new RunChangeIndex(Duration.ofMinutes(5))));
+    }
+}
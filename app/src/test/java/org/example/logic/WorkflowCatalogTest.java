@@ -0,0 +1,56 @@
+package org.example.logic;
+
+import org.example.api.ApiDataRetriever;
+import org.example.db.Repository;
+import org.example.db.StoredWorkflow;
+import org.example.model.Workflow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkflowCatalogTest {
+
+    @Mock private ApiDataRetriever mockApi;
+    @Mock private Repository mockRepo;
+
+    @Test
+    void get_servesStoredWorkflowsWithoutNetwork() {
+        when(mockRepo.getWorkflows(any(), any()))
+                .thenReturn(List.of(new StoredWorkflow(workflow(1L, "Main CI"), System.currentTimeMillis())));
+
+        WorkflowCatalog catalog = new WorkflowCatalog(mockApi, mockRepo);
+
+        assertEquals("Main CI", catalog.get(1L).getName());
+        verifyNoInteractions(mockApi);
+    }
+
+    @Test
+    void get_looksUpAndStoresUnknownWorkflow() throws Exception {
+        when(mockRepo.getWorkflows(any(), any())).thenReturn(List.of());
+        Workflow added = workflow(2L, "Release");
+        when(mockApi.getWorkflow(2L)).thenReturn(added);
+        when(mockApi.getWorkflow(3L)).thenReturn(null);
+
+        WorkflowCatalog catalog = new WorkflowCatalog(mockApi, mockRepo);
+
+        assertEquals("Release", catalog.get(2L).getName());
+        assertEquals("Release", catalog.get(2L).getName());
+        assertEquals("Workflow 3", catalog.get(3L).getName());
+        verify(mockApi, times(1)).getWorkflow(2L);
+        verify(mockRepo).saveWorkflow(any(), any(), eq(added), anyLong());
+    }
+
+    private static Workflow workflow(long id, String name) {
+        Workflow workflow = new Workflow();
+        workflow.setId(id);
+        workflow.setName(name);
+        return workflow;
+    }
+}
@@ -1,20 +1,34 @@
 package org.example.logic;
 
 import org.example.api.ApiDataRetriever;
+import org.example.db.CompletedJobCache;
+import org.example.db.EventJournal;
 import org.example.db.Repository;
+import org.example.events.ChangeEvent;
+import org.example.events.ConsoleSink;
+import org.example.events.EventDispatcher;
+import org.example.events.RunInfo;
 import org.example.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,20 +48,23 @@ class WorkflowLoggerTest {
         outputBuffer = new ByteArrayOutputStream();
         PrintStream testOut = new PrintStream(outputBuffer);
 
-        // Mock the workflow lookup for the constructor
+        // Mock the on-demand workflow lookup of the catalog (nothing is stored yet)
         Workflow workflow = new Workflow();
         workflow.setId(1L);
         workflow.setName("Main CI");
-        when(mockApi.getWorkflows()).thenReturn(List.of(workflow));
+        lenient().when(mockApi.getWorkflow(1L)).thenReturn(workflow);
 
-        logger = new WorkflowLogger(mockApi, mockRepo, testOut);
+        logger = new WorkflowLogger(mockApi, mockRepo, testOut, LoggerConfig.defaults(), CompletedJobCache.inMemory());
 
         // FIX: Mock the initialization call to set the internal timestamps
         // This sets 'oldestNotCompletedJobTimestamp' so it isn't null
         when(mockApi.getWorkflowRunsFrom(anyString())).thenReturn(Collections.emptyList());
+        // Status queries find nothing unless a test says otherwise
+        lenient().when(mockApi.getWorkflowRunsWithStatus(any())).thenReturn(Collections.emptyList());
         logger.handleNewRepository();
 
-        // Clear the buffer so setup logs don't interfere with test assertions
+        // Clear the buffer so setup logs don't interfere with test assertions (sinks print asynchronously)
+        logger.flush();
         outputBuffer.reset();
     }
 
@@ -59,24 +76,46 @@ class WorkflowLoggerTest {
         when(mockApi.getJobsForWorkflowRun(123L)).thenReturn(List.of(createMockJob(456L, Status.IN_PROGRESS)));
 
         logger.checkForChanges();
+        logger.flush();
         outputBuffer.reset(); // Clear buffer after first poll
 
         // Act: Second poll finds the exact same data
         logger.checkForChanges();
 
         // Assert: Output should be empty because no status changed
+        logger.flush();
         assertTrue(outputBuffer.toString().isEmpty(), "Should not log unchanged jobs twice");
     }
 
+    @Test
+    void testCheckForChanges_RefetchesJobsOnlyWhenTheRunChanged() throws Exception {
+        // Arrange: First poll starts tracking the run
+        WorkflowRun run = createMockRun(123L, Status.IN_PROGRESS, null);
+        when(mockApi.getWorkflowRunsWithStatus(Status.IN_PROGRESS)).thenReturn(List.of(run));
+        when(mockApi.getJobsForWorkflowRun(123L)).thenReturn(List.of(createMockJob(456L, Status.IN_PROGRESS)));
+        logger.checkForChanges();
+
+        // Act: The run is unchanged for one poll, then its updated_at moves
+        logger.checkForChanges();
+        WorkflowRun updated = createMockRun(123L, Status.IN_PROGRESS, null);
+        updated.setUpdatedAt(run.getUpdatedAt() + 1_000);
+        when(mockApi.getWorkflowRunsWithStatus(Status.IN_PROGRESS)).thenReturn(List.of(updated));
+        logger.checkForChanges();
+
+        // Assert: Jobs were fetched for the first and the last poll only, the last one skipping known jobs
+        verify(mockApi, times(1)).getJobsForWorkflowRun(123L);
+        verify(mockApi, times(1)).getJobsForWorkflowRun(eq(123L), any());
+    }
+
     @Test
     void testCheckForChanges_LogsFailureSummaryOnCompletion() throws Exception {
         // 1. Setup a COMPLETED run with a FAILURE conclusion
         WorkflowRun run = createMockRun(123L, Status.COMPLETED, Conclusion.FAILURE);
-        run.setUpdatedAt(OffsetDateTime.now().plusMinutes(1)); // Must be AFTER setup timestamp
+        run.setUpdatedAt(Instant.now().plusSeconds(60).toEpochMilli()); // Must be AFTER setup timestamp
 
         WorkflowJob failedJob = createMockJob(456L, Status.COMPLETED);
         failedJob.setConclusion(Conclusion.FAILURE);
-        failedJob.setCompletedAt(OffsetDateTime.now().plusMinutes(1));
+        failedJob.setCompletedAt(Instant.now().plusSeconds(60).toEpochMilli());
 
         when(mockApi.getWorkflowRunsFrom(anyString())).thenReturn(List.of(run));
         when(mockApi.getJobsForWorkflowRun(123L)).thenReturn(List.of(failedJob));
@@ -85,11 +124,179 @@ class WorkflowLoggerTest {
         logger.checkForChanges();
 
         // 3. Assert
+        logger.flush();
         String output = outputBuffer.toString();
         assertTrue(output.contains("FAILURE SUMMARY"), "Output was: " + output);
         assertTrue(output.contains("[Job FAILURE]"), "Output was: " + output);
     }
 
+    @Test
+    void testCheckForChanges_LooksUpTrackedRunThatLeftTheActiveLists() throws Exception {
+        // Arrange: First poll sees the run through the in_progress status query
+        WorkflowRun run = createMockRun(123L, Status.IN_PROGRESS, null);
+        when(mockApi.getWorkflowRunsWithStatus(Status.IN_PROGRESS)).thenReturn(List.of(run));
+        when(mockApi.getJobsForWorkflowRun(123L)).thenReturn(List.of(createMockJob(456L, Status.IN_PROGRESS)));
+
+        logger.checkForChanges();
+        logger.flush();
+        outputBuffer.reset();
+
+        // Act: The run finished, so it is no longer listed as in progress
+        WorkflowRun finished = createMockRun(123L, Status.COMPLETED, Conclusion.SUCCESS);
+        when(mockApi.getWorkflowRunsWithStatus(Status.IN_PROGRESS)).thenReturn(List.of());
+        when(mockApi.getWorkflowRun(123L)).thenReturn(finished);
+
+        logger.checkForChanges();
+
+        // Assert
+        logger.flush();
+        String output = outputBuffer.toString();
+        assertTrue(output.contains("[RUN SUCCESS]"), "Output was: " + output);
+    }
+
+    @Test
+    void testCheckForChanges_LooksUpWaitingRunUntilItCompletes() throws Exception {
+        // Arrange: The run is only listed while it is young enough for the created>= query
+        WorkflowRun waiting = createMockRun(123L, Status.WAITING, null);
+        when(mockApi.getWorkflowRunsFrom(anyString())).thenReturn(List.of(waiting));
+        logger.checkForChanges();
+
+        // Act: Its approval was rejected after it fell out of the created>= window
+        WorkflowRun finished = createMockRun(123L, Status.COMPLETED, Conclusion.CANCELLED);
+        when(mockApi.getWorkflowRunsFrom(anyString())).thenReturn(List.of());
+        when(mockApi.getWorkflowRun(123L)).thenReturn(finished);
+        when(mockApi.getJobsForWorkflowRun(123L)).thenReturn(List.of());
+        logger.checkForChanges();
+
+        // Assert
+        logger.flush();
+        String output = outputBuffer.toString();
+        assertTrue(output.contains("[RUN CANCELLED]"), "Output was: " + output);
+    }
+
+    @Test
+    void testPollOnce_KeepsCreatedWatermarkWhenThePollFails() throws Exception {
+        // Arrange: Fetching the jobs of the first poll fails
+        WorkflowRun run = createMockRun(123L, Status.COMPLETED, Conclusion.SUCCESS);
+        when(mockApi.getWorkflowRunsFrom(anyString())).thenReturn(List.of(run));
+        when(mockApi.getJobsForWorkflowRun(123L))
+                .thenThrow(new RuntimeException("Connection reset"))
+                .thenReturn(List.of());
+
+        // Act
+        logger.pollOnce();
+        Thread.sleep(5);
+        logger.pollOnce();
+
+        // Assert: The second poll asks for the same window again, after setup's initial query
+        ArgumentCaptor<String> from = ArgumentCaptor.forClass(String.class);
+        verify(mockApi, times(3)).getWorkflowRunsFrom(from.capture());
+        assertEquals(from.getAllValues().get(1), from.getAllValues().get(2));
+        logger.flush();
+        assertTrue(outputBuffer.toString().contains("[RUN SUCCESS]"), "Output was: " + outputBuffer);
+    }
+
+    @Test
+    void testCheckForChanges_WatchesOnlyRunsOlderThanTheStuckRunAge() throws Exception {
+        WorkflowLogger watching = startLogger(LoggerConfig.defaults().withStuckRunAge(Duration.ofHours(1)));
+        WorkflowRun stuck = createMockRun(200L, Status.QUEUED, null);
+        stuck.setCreatedAt(Instant.now().minus(Duration.ofHours(2)).toEpochMilli());
+        WorkflowRun young = createMockRun(201L, Status.QUEUED, null);
+        when(mockApi.getWorkflowRunsWithStatus(Status.QUEUED)).thenReturn(List.of(stuck, young));
+
+        watching.checkForChanges();
+
+        verify(mockRepo).setWatchedRuns(any(), any(), eq(Set.of(200L)));
+        // The restart window starts at the oldest run that isn't watched
+        ArgumentCaptor<OffsetDateTime> oldest = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(mockRepo, atLeastOnce()).updateTimestamp(any(), any(), oldest.capture(), any());
+        assertEquals(young.getCreatedAt(), oldest.getValue().toInstant().toEpochMilli());
+    }
+
+    @Test
+    void testCheckForChanges_LooksUpWatchedRunsByIdOnceTheyLeaveTheLists() throws Exception {
+        WorkflowLogger watching = startLogger(LoggerConfig.defaults().withStuckRunAge(Duration.ofHours(1)));
+        WorkflowRun stuck = createMockRun(200L, Status.WAITING, null);
+        stuck.setCreatedAt(Instant.now().minus(Duration.ofHours(2)).toEpochMilli());
+        when(mockApi.getWorkflowRunsFrom(anyString())).thenReturn(List.of(stuck));
+        watching.checkForChanges();
+
+        // Act: No list returns the run any more, but it is still waiting
+        when(mockApi.getWorkflowRunsFrom(anyString())).thenReturn(List.of());
+        when(mockApi.getWorkflowRun(200L)).thenReturn(stuck);
+        watching.checkForChanges();
+        watching.checkForChanges();
+
+        // Assert: Watched once, then kept on the list through per-id lookups without storing it again
+        verify(mockRepo, times(1)).setWatchedRuns(any(), any(), eq(Set.of(200L)));
+        verify(mockApi, times(2)).getWorkflowRun(200L);
+    }
+
+    @Test
+    void testWebhookEvents_UseTheSameChangeDetectionAsPolling() throws Exception {
+        // Arrange: A workflow_run delivery starts tracking the run
+        WorkflowRun run = createMockRun(123L, Status.IN_PROGRESS, null);
+        WorkflowJob job = createMockJob(456L, Status.IN_PROGRESS);
+        job.setRunId(123L);
+        when(mockApi.getJobsForWorkflowRun(123L)).thenReturn(List.of(job));
+
+        logger.onWorkflowRunEvent(run);
+        logger.flush();
+        assertTrue(outputBuffer.toString().contains("[Job IN PROGRESS]"), "Output was: " + outputBuffer);
+        outputBuffer.reset();
+
+        // Act: A workflow_job delivery reports the job finished, then the same delivery arrives again
+        WorkflowJob finished = createMockJob(456L, Status.COMPLETED);
+        finished.setRunId(123L);
+        finished.setCompletedAt(Instant.now().toEpochMilli());
+        logger.onWorkflowJobEvent(finished);
+        logger.flush();
+        String output = outputBuffer.toString();
+        outputBuffer.reset();
+        logger.onWorkflowJobEvent(finished);
+
+        // Assert
+        assertTrue(output.contains("[Job SUCCESS]"), "Output was: " + output);
+        logger.flush();
+        assertTrue(outputBuffer.toString().isEmpty(), "Redelivery should not log again");
+        verify(mockApi, times(1)).getJobsForWorkflowRun(123L);
+    }
+
+    @Test
+    void testHandleExistingRepository_RepublishesFromTheJournalButKeepsTheStoredWatermark(@TempDir Path journalDir)
+            throws Exception {
+        // Arrange: The journal holds a change from before the restart, and the watermark is ahead of the run
+        OffsetDateTime watermark = Instant.now().truncatedTo(ChronoUnit.MILLIS).atOffset(ZoneOffset.UTC);
+        WorkflowRun run = createMockRun(123L, Status.COMPLETED, Conclusion.SUCCESS);
+        run.setUpdatedAt(watermark.minusMinutes(1).toInstant().toEpochMilli());
+        when(mockApi.getWorkflowRunsFrom(anyString())).thenReturn(List.of(run));
+        when(mockApi.getJobsForWorkflowRun(123L)).thenReturn(List.of());
+
+        EventJournal journal = new EventJournal(journalDir, 1 << 16, 4);
+        journal.append(new ChangeEvent.RunQueued("owner/repo", RunInfo.of(createMockRun(99L, Status.QUEUED, null), "Main CI")));
+        PrintStream out = new PrintStream(outputBuffer);
+        WorkflowLogger restarted = new WorkflowLogger(mockApi, mockRepo, out, LoggerConfig.defaults(),
+                CompletedJobCache.inMemory(), new EventDispatcher(List.of(new ConsoleSink(out, false))), journal);
+
+        // Act
+        restarted.handleExistingRepository(watermark.minusHours(1).toString(), watermark.toString());
+
+        // Assert: The run is published again for the journal to sort out, and the watermark is not reset
+        restarted.flush();
+        assertTrue(outputBuffer.toString().contains("[RUN SUCCESS]"), "Output was: " + outputBuffer);
+        ArgumentCaptor<OffsetDateTime> lastLogged = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(mockRepo, atLeastOnce()).updateTimestamp(any(), any(), any(), lastLogged.capture());
+        assertEquals(watermark, lastLogged.getValue());
+        journal.close();
+    }
+
+    private WorkflowLogger startLogger(LoggerConfig config) throws Exception {
+        WorkflowLogger started = new WorkflowLogger(mockApi, mockRepo, new PrintStream(outputBuffer), config,
+                CompletedJobCache.inMemory());
+        started.handleNewRepository();
+        return started;
+    }
+
     // Helper Methods to generate data with current timestamps
     private WorkflowRun createMockRun(Long id, Status status, Conclusion conclusion) {
         WorkflowRun run = new WorkflowRun();
@@ -103,9 +310,9 @@ class WorkflowLoggerTest {
         run.setHeadSha("abc1234");
 
         // Ensure timestamps exist for the logger's comparison logic
-        OffsetDateTime now = OffsetDateTime.now();
-        run.setCreatedAt(now.minusMinutes(5));
-        run.setUpdatedAt(now);
+        Instant now = Instant.now();
+        run.setCreatedAt(now.minusSeconds(300).toEpochMilli());
+        run.setUpdatedAt(now.toEpochMilli());
         return run;
     }
 
@@ -116,10 +323,10 @@ class WorkflowLoggerTest {
         job.setStatus(status != null ? status : Status.QUEUED);
         job.setConclusion(Conclusion.SUCCESS); // Default
 
-        OffsetDateTime now = OffsetDateTime.now();
-        job.setCreatedAt(now.minusMinutes(2));
-        job.setStartedAt(now.minusMinutes(1));
-        job.setCompletedAt(null); // Explicitly null if IN_PROGRESS
+        Instant now = Instant.now();
+        job.setCreatedAt(now.minusSeconds(120).toEpochMilli());
+        job.setStartedAt(now.minusSeconds(60).toEpochMilli());
+        job.setCompletedAt(EpochMillis.NONE); // Explicitly absent if IN_PROGRESS
         job.setSteps(new ArrayList<>());
         return job;
     }
@@ -0,0 +1,27 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpochMillisTest {
+
+    @Test
+    void parse_matchesJavaTimeForGitHubFormats() {
+        for (String timestamp : new String[]{
+                "2020-01-22T19:33:08Z",
+                "2020-01-20T09:42:40.000-08:00",
+                "2024-02-29T23:59:59.5+05:30",
+                "1969-12-31T23:59:59.999999Z"}) {
+            assertEquals(OffsetDateTime.parse(timestamp).toInstant().toEpochMilli(), EpochMillis.parse(timestamp), timestamp);
+        }
+    }
+
+    @Test
+    void absentTimestampOrdersBeforeEveryInstant() {
+        assertFalse(EpochMillis.isSet(EpochMillis.NONE));
+        assertTrue(EpochMillis.NONE < EpochMillis.parse("1970-01-01T00:00:00Z"));
+    }
+}
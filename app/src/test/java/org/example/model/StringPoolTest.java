@@ -0,0 +1,25 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+
+    @Test
+    void intern_returnsTheSameInstanceForRepeatedValues() {
+        StringPool pool = new StringPool(16);
+        String first = pool.intern(new String("Run tests"));
+
+        assertSame(first, pool.intern(new String("Run tests")));
+        assertEquals("Set up job", pool.intern("Set up job"));
+    }
+
+    @Test
+    void intern_doesNotKeepLongValues() {
+        StringPool pool = new StringPool(16);
+        String message = "x".repeat(200);
+
+        assertNotSame(pool.intern(message), pool.intern(message));
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.webhook;
+
+import org.example.logic.WorkflowLogger;
+import org.example.model.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookServerTest {
+
+    private static final String SECRET = "It's a Secret to Everybody";
+
+    // Recorded deliveries, trimmed to the fields the logger reads
+    private static final String WORKFLOW_RUN_DELIVERY = """
+            { "action": "completed",
+              "workflow_run": { "id": 30433642, "name": "Build", "head_branch": "main",
+                "head_sha": "acb5820ced9479c074f688cc328bf03f341a511d", "run_number": 562, "event": "push",
+                "status": "completed", "conclusion": "success", "workflow_id": 159038, "run_attempt": 1,
+                "created_at": "2020-01-22T19:33:08Z", "updated_at": "2020-01-22T19:33:08Z",
+                "html_url": "https://github.com/octo-org/octo-repo/actions/runs/30433642" },
+              "repository": { "id": 1296269, "full_name": "octo-org/octo-repo" } }
+            """;
+    private static final String WORKFLOW_JOB_DELIVERY = """
+            { "action": "in_progress",
+              "workflow_job": { "id": 29679449, "run_id": 30433642, "run_attempt": 1, "name": "build",
+                "head_sha": "acb5820ced9479c074f688cc328bf03f341a511d", "status": "in_progress", "conclusion": null,
+                "started_at": "2021-12-15T19:08:09Z", "completed_at": null,
+                "steps": [ { "name": "Set up job", "status": "completed", "conclusion": "success", "number": 1,
+                  "started_at": "2021-12-15T19:08:09.000Z", "completed_at": "2021-12-15T19:08:10.000Z" } ] },
+              "repository": { "id": 1296269, "full_name": "octo-org/octo-repo" } }
+            """;
+
+    private final byte[] secret = SECRET.getBytes(StandardCharsets.UTF_8);
+    private final byte[] body = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private WorkflowLogger logger;
+    private WebhookServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        logger = mock(WorkflowLogger.class);
+        server = new WebhookServer(0, SECRET, fullName -> "octo-org/octo-repo".equals(fullName) ? logger : null,
+                System.out);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void isValidSignature_acceptsGitHubReferenceSignature() {
+        // Example from the GitHub webhook documentation
+        String header = "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17";
+
+        assertTrue(WebhookServer.isValidSignature(secret, body, header));
+        assertEquals(header, "sha256=" + HexFormat.of().formatHex(WebhookServer.sign(secret, body)));
+    }
+
+    @Test
+    void isValidSignature_rejectsMissingMalformedOrForeignSignatures() {
+        String valid = "sha256=" + HexFormat.of().formatHex(WebhookServer.sign(secret, body));
+        byte[] tampered = "Hello, World?".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(WebhookServer.isValidSignature(secret, body, null));
+        assertFalse(WebhookServer.isValidSignature(secret, body, "sha1=abc"));
+        assertFalse(WebhookServer.isValidSignature(secret, body, "sha256=not-hex"));
+        assertFalse(WebhookServer.isValidSignature(secret, tampered, valid));
+    }
+
+    @Test
+    void post_acceptsSignedWorkflowRunDeliveryAndHandsItToTheLogger() throws Exception {
+        HttpResponse<Void> response = deliver("workflow_run", WORKFLOW_RUN_DELIVERY, secret);
+
+        assertEquals(202, response.statusCode());
+        awaitDispatch();
+        verify(logger).onWorkflowRunEvent(argThat(run ->
+                run.getId() == 30433642L && run.getStatus() == Status.COMPLETED && run.getWorkflowId() == 159038L));
+    }
+
+    @Test
+    void post_acceptsSignedWorkflowJobDeliveryAndHandsItToTheLogger() throws Exception {
+        HttpResponse<Void> response = deliver("workflow_job", WORKFLOW_JOB_DELIVERY, secret);
+
+        assertEquals(202, response.statusCode());
+        awaitDispatch();
+        verify(logger).onWorkflowJobEvent(argThat(job ->
+                job.getId() == 29679449L && job.getRunId() == 30433642L && job.getStatus() == Status.IN_PROGRESS));
+    }
+
+    @Test
+    void post_rejectsDeliveryWithInvalidSignature() throws Exception {
+        HttpResponse<Void> response = deliver("workflow_run", WORKFLOW_RUN_DELIVERY,
+                "Not the secret".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(401, response.statusCode());
+        verifyNoInteractions(logger);
+    }
+
+    // verify(timeout()) would wait inside the logger's monitor (its handlers are synchronized) and block the worker
+    private void awaitDispatch() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mockingDetails(logger).getInvocations().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private HttpResponse<Void> deliver(String event, String payload, byte[] signingSecret) throws Exception {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + server.getPort() + WebhookServer.PATH))
+                .header("Content-Type", "application/json")
+                .header("X-GitHub-Event", event)
+                .header("X-Hub-Signature-256", "sha256=" + HexFormat.of().formatHex(WebhookServer.sign(signingSecret, bytes)))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(bytes))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+}